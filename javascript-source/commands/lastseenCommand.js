@@ -25,14 +25,14 @@
      * @event ircChannelJoin
      */
     $.bind('ircChannelJoin', function(event) {
-        $.inidb.set('lastseen', event.getUser().toLowerCase(), $.systemTime());
+        $.inidb.touch('lastseen', event.getUser().toLowerCase(), $.systemTime());
     });
 
     /*
      * @event ircChannelLeave
      */
     $.bind('ircChannelLeave', function(event) {
-        $.inidb.set('lastseen', event.getUser().toLowerCase(), $.systemTime());
+        $.inidb.touch('lastseen', event.getUser().toLowerCase(), $.systemTime());
     });
 
     /*
@@ -22,20 +22,27 @@
  * Use the $.lang API
  */
 (function() {
-    let data = [];
+    let catalog = Packages.tv.phantombot.script.LangCatalog.instance();
 
     /**
      * @function load
      */
     function load(force) {
         let curLang = $.getSetIniDbString('settings', 'lang', 'english');
-        loadLang('./lang/english', force);
-        if (curLang !== 'english') {
-            loadLang('./lang/' + curLang, force);
-        }
 
-        if ($.isDirectory('./scripts/lang/custom')) {
-            loadLang('./lang/custom', force);
+        // Strings are collected into a new catalog, which replaces the active one once every file is loaded
+        catalog.begin();
+        try {
+            loadLang('./lang/english', force);
+            if (curLang !== 'english') {
+                loadLang('./lang/' + curLang, force);
+            }
+
+            if ($.isDirectory('./scripts/lang/custom')) {
+                loadLang('./lang/custom', force);
+            }
+        } finally {
+            catalog.commit();
         }
     }
 
@@ -49,23 +56,11 @@
             path = './scripts/' + path;
         }
 
-        let files = $.findFiles(path, '');
-
-        for (let x in files) {
-            let fPath = path + '/' + files[x];
-            try {
-                if ($.isDirectory(fPath)) {
-                    loadJSON(fPath);
-                } else if (fPath.endsWith('.json')) {
-                    let jso = JSON.parse($.readFileString(fPath).trim());
-                    for (let y in jso) {
-                        register(y, jso[y]);
-                    }
-                }
-            } catch (e) {
-                $.log.error('Error loading ' + fPath);
-                $.log.error(e);
-            }
+        try {
+            catalog.loadDirectory(path);
+        } catch (e) {
+            $.log.error('Error loading ' + path);
+            $.log.error(e);
         }
     }
 
@@ -76,11 +71,8 @@
      * @param {string} string
      */
     function register(key, string) {
-        if (key && string) {
-            data[key.toLowerCase()] = string;
-        }
-        if (key && string.length === 0) {
-            data[key.toLowerCase()] = '<<EMPTY_PLACEHOLDER>>';
+        if (key && string !== undefined && string !== null) {
+            catalog.register(key, String(string));
         }
     }
 
@@ -91,24 +83,22 @@
      * @returns {string}
      */
     function get(key) {
-        let string = data[key.toLowerCase()],
+        let args = [],
+            string,
             i;
 
-        if (string === undefined) {
-            $.log.warn('Lang string for key "' + key + '" was not found.');
-            return '';
+        for (i = 1; i < arguments.length; i++) {
+            args.push(String(arguments[i]));
         }
 
-        if (string === '<<EMPTY_PLACEHOLDER>>') {
+        string = catalog.format(key, args);
+
+        if (string === null) {
+            $.log.warn('Lang string for key "' + key + '" was not found.');
             return '';
         }
 
-        for (i = arguments.length; i > 0; i--) {
-            while (string.indexOf("$" + i) >= 0) {
-                string = string.replace("$" + i, arguments[i]);
-            }
-        }
-        return string;
+        return $.jsString(string);
     }
 
     /**
@@ -118,22 +108,7 @@
      * @returns {Number}
      */
     function paramCount(key) {
-        let string = data[key.toLowerCase()],
-            i,
-            ctr = 0;
-
-        if (!string) {
-            return 0;
-        }
-
-        for (i = 1; i < 99; i++) {
-            if (string.indexOf("$" + i) >= 0) {
-                ctr++;
-            } else {
-                break;
-            }
-        }
-        return ctr;
+        return catalog.paramCount(key);
     }
 
     /**
@@ -143,7 +118,7 @@
      * @returns {boolean}
      */
     function exists(key) {
-        return key !== undefined && key !== null && data[key.toLowerCase()] !== undefined && data[key.toLowerCase()] !== null;
+        return key !== undefined && key !== null && catalog.exists(key);
     }
 
     $.bind('webPanelSocketUpdate', function (event) {
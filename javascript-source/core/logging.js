@@ -47,7 +47,7 @@
         });
         $.log.file('customCommands', lines.join('\r\n'));
         if ($.hasDiscordToken && cmdLogEnabled && cmdDiscordLogChannel) {
-            $.discordAPI.sendMessageEmbed(cmdDiscordLogChannel, 'blue', lines.join('\r\n\r\n'));
+            $.discordAPI.queueMessageEmbed(cmdDiscordLogChannel, 'blue', lines.join('\r\n\r\n'));
         }
     }
 
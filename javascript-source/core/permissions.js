@@ -35,7 +35,8 @@
             lastJoinPart = $.systemTime(),
             isUpdatingUsers = false,
             _isSwappedSubscriberVIP = $.getSetIniDbBoolean('settings', 'isSwappedSubscriberVIP', true),
-            _usersGroupsLock = new Packages.java.util.concurrent.locks.ReentrantLock();
+            _usersGroupsLock = new Packages.java.util.concurrent.locks.ReentrantLock(),
+            _permissionCache = $.permissionCache;
 
     /**
      * @export $
@@ -86,6 +87,14 @@
         return botList.contains($.javaString(username.toLowerCase()));
     }
 
+    /**
+     * @function getTwitchBots
+     * @returns {java.util.List<java.lang.String>} the lower-case logins of the ignored bots
+     */
+    function getTwitchBots() {
+        return botList;
+    }
+
     /**
      * @function removeTwitchBot
      * @param {String} username
@@ -393,9 +402,40 @@
      *
      * Gets the lowest group id of a users according to the PERMISSION enum
      * A lower group id indicates a higher level of permissions
+     *
+     * The group id without tags is cached in PermissionCache, the tags are then applied on top of it
      */
     function getUserGroupId(username, tags) {
+        let id = _permissionCache.get(username);
+
+        if (id < 0) {
+            let generation = _permissionCache.generation();
+            id = _permissionCache.put(username, resolveUserGroupId(username), generation);
+        }
+
+        if (id > PERMISSION.Mod && checkTags(tags)) {
+            if (($.strlen(tags.getOrDefault('user-type', '')) > 0 && !tags.getOrDefault('user-type', '').equals('staff')) || tags.getOrDefault('mod', '0').equals('1')) {
+                id = PERMISSION.Mod;
+            }
+            if (id > PERMISSION.Sub && tags.getOrDefault('subscriber', '0').equals('1')) {
+                id = PERMISSION.Sub;
+            }
+            if (id > PERMISSION.VIP && tags.containsKey('vip')) {
+                id = PERMISSION.VIP;
+            }
+        }
+
+        return id;
+    }
 
+    /**
+     * @function resolveUserGroupId
+     * @param {String} username
+     * @returns {Number}
+     *
+     * Resolves the lowest group id of a user from the database and caches, without tags
+     */
+    function resolveUserGroupId(username) {
         if (isOwner(username) || isBot(username)) {
             return PERMISSION.Caster;
         }
@@ -408,16 +448,16 @@
         if (id > PERMISSION.Admin && isAdmin(username)) {
             id = PERMISSION.Admin;
         }
-        if (id > PERMISSION.Mod && isMod(username, tags)) {
+        if (id > PERMISSION.Mod && isModNoTags(username)) {
             id = PERMISSION.Mod;
         }
-        if (id > PERMISSION.Sub && isSub(username, tags)) {
+        if (id > PERMISSION.Sub && isSubNoTags(username)) {
             id = PERMISSION.Sub;
         }
         if (id > PERMISSION.Donator && isDonator(username)) {
             id = PERMISSION.Donator;
         }
-        if (id > PERMISSION.VIP && isVIP(username, tags)) {
+        if (id > PERMISSION.VIP && isVIPNoTags(username)) {
             id = PERMISSION.VIP;
         }
         if (id > PERMISSION.Regular && isRegular(username)) {
@@ -465,10 +505,13 @@
             commandGroup = $.getSubcommandGroup(command, subcommand);
         }
 
-        $.consoleDebug('Checking permissions for command: ' + command + ' and subcommand: ' + subcommand + ' with group/permission level: ' + commandGroup);
-        $.consoleDebug('For user: ' + username + ' with group/permission level: ' + getUserGroupId(username, tags) + '(' + getUserGroupName(username, tags) + ')');
-        $.consoleDebug('Current VIP id: ' + PERMISSION.VIP + ', Current Sub id: ' + PERMISSION.Sub + ', is VIPSubGroupID swapped: ' + _isSwappedSubscriberVIP);
-        $.consoleDebug('isSub?: ' + isSub(username, tags) + ', isVIP?: ' + isVIP(username, tags) + ', isMod?: ' + isMod(username, tags) + ', isAdmin?: ' + isAdmin(username) + ', isDonator?: ' + isDonator(username) + ', isRegular?: ' + isRegular(username) + ' isCaster?: ' + isCaster(username));
+        // Only build the debug output when debugging, since it performs several database lookups
+        if (Packages.tv.phantombot.PhantomBot.getEnableDebugging()) {
+            $.consoleDebug('Checking permissions for command: ' + command + ' and subcommand: ' + subcommand + ' with group/permission level: ' + commandGroup);
+            $.consoleDebug('For user: ' + username + ' with group/permission level: ' + getUserGroupId(username, tags) + '(' + getUserGroupName(username, tags) + ')');
+            $.consoleDebug('Current VIP id: ' + PERMISSION.VIP + ', Current Sub id: ' + PERMISSION.Sub + ', is VIPSubGroupID swapped: ' + _isSwappedSubscriberVIP);
+            $.consoleDebug('isSub?: ' + isSub(username, tags) + ', isVIP?: ' + isVIP(username, tags) + ', isMod?: ' + isMod(username, tags) + ', isAdmin?: ' + isAdmin(username) + ', isDonator?: ' + isDonator(username) + ', isRegular?: ' + isRegular(username) + ' isCaster?: ' + isCaster(username));
+        }
 
 
         allowed = checkUserPermission(username, tags, parseInt(commandGroup));
@@ -616,7 +659,12 @@
      * @param {String} username
      */
     function addSubUsersList(username) {
-        return subUsers.addIfAbsent($.javaString(username.toLowerCase()));
+        if (subUsers.addIfAbsent($.javaString(username.toLowerCase()))) {
+            _permissionCache.invalidate(username);
+            return true;
+        }
+
+        return false;
     }
 
     /**
@@ -625,7 +673,9 @@
      * @param {String} username
      */
     function delSubUsersList(username) {
-        subUsers.remove($.javaString(username.toLowerCase()));
+        if (subUsers.remove($.javaString(username.toLowerCase()))) {
+            _permissionCache.invalidate(username);
+        }
     }
 
     /**
@@ -644,7 +694,9 @@
      * @param {String} username
      */
     function addVIPUsersList(username) {
-        vipUsers.addIfAbsent($.javaString(username.toLowerCase()));
+        if (vipUsers.addIfAbsent($.javaString(username.toLowerCase()))) {
+            _permissionCache.invalidate(username);
+        }
     }
 
     /**
@@ -653,7 +705,9 @@
      * @param {String} username
      */
     function delVIPUsersList(username) {
-        vipUsers.remove($.javaString(username.toLowerCase()));
+        if (vipUsers.remove($.javaString(username.toLowerCase()))) {
+            _permissionCache.invalidate(username);
+        }
     }
 
     /**
@@ -682,7 +736,9 @@
      * @param {String} username
      */
     function addModeratorToCache(username) {
-        moderatorsCache.addIfAbsent($.javaString(username.toLowerCase()));
+        if (moderatorsCache.addIfAbsent($.javaString(username.toLowerCase()))) {
+            _permissionCache.invalidate(username);
+        }
     }
 
     /**
@@ -691,7 +747,9 @@
      * @param {String} username
      */
     function removeModeratorFromCache(username) {
-        moderatorsCache.remove($.javaString(username.toLowerCase()));
+        if (moderatorsCache.remove($.javaString(username.toLowerCase()))) {
+            _permissionCache.invalidate(username);
+        }
     }
 
     /**
@@ -709,6 +767,7 @@
 
         $.consoleDebug("Adding the mods to the moderator cache: " + a.toString());
         moderatorsCache.addAllAbsent(a);
+        _permissionCache.invalidateAll();
     }
 
     /**
@@ -877,6 +936,7 @@
         $.inidb.SetBatchString('group', '', oldSubU, newSubU);
         $.inidb.SetBatchString('group', '', oldVIPU, newVIPU);
         _isSwappedSubscriberVIP = !_isSwappedSubscriberVIP;
+        _permissionCache.invalidateAll();
         $.inidb.SetBoolean('settings', '', 'isSwappedSubscriberVIP', _isSwappedSubscriberVIP);
         //Update Permission export (needs to be done since VIP and Sub are computed variables, otherwise VIP and Sub doesn't get switched)
         $.PERMISSION = PERMISSION;
@@ -1425,6 +1485,7 @@
     $.userExists = userExists;
     $.isBot = isBot;
     $.isTwitchBot = isTwitchBot;
+    $.getTwitchBots = getTwitchBots;
     $.isOwner = isOwner;
     $.isCaster = isCaster;
     $.isAdmin = isAdmin;
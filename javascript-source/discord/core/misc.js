@@ -108,6 +108,33 @@
         }
     }
 
+    /**
+     * @function sayQueued
+     *
+     * @export $.discord
+     * @param {string} channel
+     * @param {string} message
+     * @return {java.util.concurrent.CompletableFuture} a handle which completes with the sent message, the message is queued and sent without waiting
+     */
+    function sayQueued(channel, message) {
+        if (message === undefined || message === null) {
+            return;
+        }
+        message = $.jsString(message);
+        if (message.trim().length === 0) {
+            return;
+        }
+        if (embedReg.test(message)) {
+            return $.discordAPI.queueMessageEmbed(channel, message.match(embedReg)[1], message.match(embedReg)[2]);
+        } else if (fileRegMsg.test(message)) {
+            return $.discordAPI.queueFile(channel, message.match(fileRegMsg)[2], message.match(fileRegMsg)[1]);
+        } else if (fileReg.test(message)) {
+            return $.discordAPI.queueFile(channel, '', message.match(fileReg)[1]);
+        } else {
+            return $.discordAPI.queueMessage(channel, message);
+        }
+    }
+
     /**
      * @function setGame
      *
@@ -487,6 +514,7 @@
     $.discord.setGame = setGame;
     $.discord.setRole = setRole;
     $.discord.say = say;
+    $.discord.sayQueued = sayQueued;
     $.discord.handleDeleteReaction = handleDeleteReaction;
     $.discord.sanitizeChannelName = sanitizeChannelName;
     $.discord.resolve = {
@@ -175,7 +175,7 @@
                 toSend += keys[i].replace(/_/g, ' ') + ' ' + obj[keys[i]] + '\r\n\r\n';
             }
         }
-        $.discordAPI.sendMessageEmbed(modLogChannel, 'blue', toSend);
+        $.discordAPI.queueMessageEmbed(modLogChannel, 'blue', toSend);
     }
 
     /*
@@ -206,7 +206,7 @@
                 toSend += keys[i].replace(/_/g, ' ') + ' ' + obj[keys[i]] + '\r\n\r\n';
             }
         }
-        $.discordAPI.sendMessageEmbed(modLogChannel, 'yellow', toSend);
+        $.discordAPI.queueMessageEmbed(modLogChannel, 'yellow', toSend);
     }
 
     /*
@@ -235,7 +235,7 @@
                 toSend += keys[i].replace(/_/g, ' ') + ' ' + obj[keys[i]] + '\r\n\r\n';
             }
         }
-        $.discordAPI.sendMessageEmbed(modLogChannel, 'red', toSend);
+        $.discordAPI.queueMessageEmbed(modLogChannel, 'red', toSend);
     }
 
     $.bind('eventSubChannelModerate', function (event) {
@@ -257,13 +257,13 @@
                     (chat[d.timeout().userLogin()]!== undefined && chat[d.timeout().userLogin()] !== null ? 
                         chat[d.timeout().userLogin()].message : null));
             } else if (action === 'untimeout') {
-                $.discordAPI.sendMessageEmbed(modLogChannel, 'green', '**Timeout removed from:** ' + '[' + d.untimeout().userLogin() + '](' + userLink(d.untimeout().userLogin()) + ')' + ' \r\n\r\n **Moderator:** ' + moderator);
+                $.discordAPI.queueMessageEmbed(modLogChannel, 'green', '**Timeout removed from:** ' + '[' + d.untimeout().userLogin() + '](' + userLink(d.untimeout().userLogin()) + ')' + ' \r\n\r\n **Moderator:** ' + moderator);
             } else if (action === 'ban') {
                 embedBanned(d.ban().userLogin(), moderator, (d.ban().reason() !== null && $.strlen(d.ban().reason()) > 0 ? d.ban().reason() : ''),
                 (chat[d.ban().userLogin()]!== undefined && chat[d.ban().userLogin()] !== null ? 
                     chat[d.ban().userLogin()].message : null));
             } else if (action === 'unban') {
-                $.discordAPI.sendMessageEmbed(modLogChannel, 'green', '**Ban removed from:** ' + '[' + d.unban().userLogin() + '](' + userLink(d.unban().userLogin()) + ')' + ' \r\n\r\n **Moderator:** ' + moderator);
+                $.discordAPI.queueMessageEmbed(modLogChannel, 'green', '**Ban removed from:** ' + '[' + d.unban().userLogin() + '](' + userLink(d.unban().userLogin()) + ')' + ' \r\n\r\n **Moderator:** ' + moderator);
             }
         }
     });
@@ -43,73 +43,28 @@
             // Create our default roles.
             createRoles();
 
-            // Wait a bit to create the roles.
+            // Wait a bit to create the roles, then let the role sync compare and update all linked users at once.
             setTimeout(function() {
+                let desired = new Packages.java.util.HashMap();
+
                 for (i in users) {
                     try {
-                        if (hasRankOrPermission($.getIniDbString('discordToTwitch', users[i]))) {
-                            let user = $.discord.getUserById(users[i]);
-                            if (user !== null && user !== undefined) {
-                                updateRoles(users[i], getRanksAndPermissions($.getIniDbString('discordToTwitch', users[i])), user);
-                            }
+                        let roles = getRanksAndPermissions($.getIniDbString('discordToTwitch', users[i])),
+                            list = new Packages.java.util.ArrayList();
+                        // Users without any roles are included with an empty list, so their managed roles are removed.
+                        for (let x in roles) {
+                            list.add($.javaString(roles[x]));
                         }
+                        desired.put($.javaString(users[i]), list);
                     } catch (e){
                         $.log.error(e);
                     }
                 }
-            }, 5e3);
-        }
-    }
-
-    /*
-     * @function updateRoles
-     *
-     * @param {Number} id
-     * @param {Array}  roles
-     */
-    function updateRoles(id, roles, user) {
-        let oldRoles = $.getIniDbString('discordRoles', id, ',').split(','),
-            currentRoles = null,
-            newRoles = roles.join(','),
-            i;
-        
-        try {
-            currentRoles = $.discordAPI.getUserRoles(user);
-        } catch (e){
-            $.log.error(e);
-            return;
-        }
-
-        // Build our roles list.
-        for (i in currentRoles) {
-            // If the user's current Discord role list contains an old role, and the new list does not have it, don't add it to the list.
-            if ((oldRoles.length > 0 && hasRole(oldRoles, currentRoles[i].getName())) && newRoles.indexOf(currentRoles[i].getName()) === -1) {
-                continue;
-            } else {
-                if (!hasRole(roles, currentRoles[i].getName())) {
-                    roles.push(currentRoles[i].getName());
-                }
-            }
-        }
 
-        // Only update the user's role if there's a new one.
-        for (i in roles) {
-            if (!hasRole(currentRoles, roles[i], true)) {
-                let roleObjs = null;
-                try {
-                    roleObjs = $.discordAPI.getRoleObjects(roles);
-                } catch (e){
-                    $.log.error(e);
-                    return;
-                }
-                try {
-                    $.discordAPI.editUserRoles(user, roleObjs);
-                    $.setIniDbString('discordRoles', id, newRoles);
-                } catch (e){
-                    $.log.error(e);
+                if (!$.discordAPI.syncRoles(desired)) {
+                    $.consoleDebug('Discord role sync was not started, see the debug log for the reason');
                 }
-                return;
-            }
+            }, 5e3);
         }
     }
 
@@ -195,29 +150,6 @@
         }
     }
 
-    /*
-     * @function hasRole
-     *
-     * @param  {Array}  array
-     * @param  {String} role
-     * @param  {Boolean} getName
-     * @return {Boolean}
-     */
-    function hasRole(array, role, getName) {
-        for (var i in array) {
-            if (!getName) {
-                if ($.equalsIgnoreCase(array[i], role)) {
-                    return true;
-                }
-            } else {
-                if ($.equalsIgnoreCase(array[i].getName(), role)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     /*
      * @function cleanOldRanks
      */
@@ -336,6 +268,20 @@
                     $.discord.say(channel, $.discord.userPrefix(mention) + $.lang.get('discord.rolemanager.blacklist.remove.success', blacklist));
                 }
             }
+
+            /*
+             * @discordcommandpath rolemanager syncstatus - Shows the progress of the current or last role sync.
+             */
+            if ($.equalsIgnoreCase(action, 'syncstatus')) {
+                let progress = $.discordAPI.getRoleSyncProgress(),
+                    rate = progress.usersPerSecond().toFixed(1);
+
+                if (progress.running()) {
+                    $.discord.say(channel, $.discord.userPrefix(mention) + $.lang.get('discord.rolemanager.syncstatus.running', progress.checked(), progress.total(), progress.modified(), progress.failed(), rate));
+                } else {
+                    $.discord.say(channel, $.discord.userPrefix(mention) + $.lang.get('discord.rolemanager.syncstatus.idle', progress.checked(), progress.total(), progress.modified(), progress.failed(), Math.round(progress.elapsed().toMillis() / 1000), rate));
+                }
+            }
         }
     });
 
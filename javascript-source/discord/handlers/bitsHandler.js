@@ -118,7 +118,7 @@
         }
 
         if (ircMessage.length > 0) {
-        	$.discordAPI.sendMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
+        	$.discordAPI.queueMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
                     .withColor(getBitsColor(bits))
                     .withThumbnail('https://d3aqoihi2n8ty8.cloudfront.net/actions/cheer/dark/animated/' + getCheerAmount(bits) + '/1.gif')
                     .withTitle($.lang.get('discord.bitshandler.bits.embed.title'))
@@ -126,16 +126,16 @@
                     .appendField($.lang.get('discord.bitsHandler.bits.embed.messagetitle'), ircMessage, true)
                     .withTimestamp(Date.now())
                     .withFooterText('Twitch')
-                    .withFooterIcon($.twitchcache.getLogoLink()).build());
+                    .withFooterIcon($.twitchcache.getLogoLink()).build(), true);
         } else {
-        	$.discordAPI.sendMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
+        	$.discordAPI.queueMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
                     .withColor(getBitsColor(bits))
                     .withThumbnail('https://d3aqoihi2n8ty8.cloudfront.net/actions/cheer/dark/animated/' + getCheerAmount(bits) + '/1.gif')
                     .withTitle($.lang.get('discord.bitshandler.bits.embed.title'))
                     .appendDescription(s)
                     .withTimestamp(Date.now())
                     .withFooterText('Twitch')
-                    .withFooterIcon($.twitchcache.getLogoLink()).build());
+                    .withFooterIcon($.twitchcache.getLogoLink()).build(), true);
         }
     });
 
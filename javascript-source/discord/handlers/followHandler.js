@@ -67,14 +67,14 @@
             s = $.replace(s, '(name)', name);
         }
 
-        $.discordAPI.sendMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
+        $.discordAPI.queueMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
                     .withColor(20, 184, 102)
                     .withThumbnail('https://raw.githubusercontent.com/PhantomBot/Miscellaneous/master/Discord-Embed-Icons/follow-embed-icon.png')
                     .withTitle($.lang.get('discord.followhandler.follow.embedtitle'))
                     .appendDescription(s)
                     .withTimestamp(Date.now())
                     .withFooterText('Twitch')
-                    .withFooterIcon($.twitchcache.getLogoLink()).build());
+                    .withFooterIcon($.twitchcache.getLogoLink()).build(), true);
     });
 
     /**
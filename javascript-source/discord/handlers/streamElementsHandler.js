@@ -87,14 +87,14 @@
             s = $.replace(s, '(message)', donationMessage);
         }
 
-        $.discordAPI.sendMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
+        $.discordAPI.queueMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
                     .withColor(87, 113, 220)
                     .withThumbnail('https://raw.githubusercontent.com/PhantomBot/Miscellaneous/master/Discord-Embed-Icons/streamelements-embed-icon.png')
                     .withTitle($.lang.get('discord.streamelementshandler.embed.title'))
                     .appendDescription(s)
                     .withTimestamp(Date.now())
                     .withFooterText('Twitch')
-                    .withFooterIcon($.twitchcache.getLogoLink()).build());
+                    .withFooterIcon($.twitchcache.getLogoLink()).build(), true);
     });
 
     /**
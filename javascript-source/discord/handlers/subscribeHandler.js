@@ -62,14 +62,14 @@
             s = $.replace(s, '(name)', subscriber);
         }
 
-        $.discordAPI.sendMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
+        $.discordAPI.queueMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
                     .withColor(100, 65, 164)
                     .withThumbnail('https://static-cdn.jtvnw.net/badges/v1/5d9f2208-5dd8-11e7-8513-2ff4adfae661/2')
                     .withTitle($.lang.get('discord.subscribehandler.subscriber.embedtitle'))
                     .appendDescription(s)
                     .withTimestamp(Date.now())
                     .withFooterText('Twitch')
-                    .withFooterIcon($.twitchcache.getLogoLink()).build());
+                    .withFooterIcon($.twitchcache.getLogoLink()).build(), true);
     });
 
      /*
@@ -97,14 +97,14 @@
             s = $.replace(s, '(months)', months);
         }
 
-        $.discordAPI.sendMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
+        $.discordAPI.queueMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
                     .withColor(100, 65, 164)
                     .withThumbnail('https://static-cdn.jtvnw.net/badges/v1/5d9f2208-5dd8-11e7-8513-2ff4adfae661/2')
                     .withTitle($.lang.get('discord.subscribehandler.giftsubscriber.embedtitle'))
                     .appendDescription(s)
                     .withTimestamp(Date.now())
                     .withFooterText('Twitch')
-                    .withFooterIcon($.twitchcache.getLogoLink()).build());
+                    .withFooterIcon($.twitchcache.getLogoLink()).build(), true);
     });
 
     /**
@@ -122,14 +122,14 @@
             s = $.replace(s, '(name)', subscriber);
         }
 
-        $.discordAPI.sendMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
+        $.discordAPI.queueMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
                     .withColor(100, 65, 164)
                     .withThumbnail('https://static-cdn.jtvnw.net/badges/v1/5d9f2208-5dd8-11e7-8513-2ff4adfae661/2')
                     .withTitle($.lang.get('discord.subscribehandler.primesubscriber.embedtitle'))
                     .appendDescription(s)
                     .withTimestamp(Date.now())
                     .withFooterText('Twitch')
-                    .withFooterIcon($.twitchcache.getLogoLink()).build());
+                    .withFooterIcon($.twitchcache.getLogoLink()).build(), true);
     });
 
     /**
@@ -152,14 +152,14 @@
             s = $.replace(s, '(months)', months);
         }
 
-        $.discordAPI.sendMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
+        $.discordAPI.queueMessageEmbed(channelName, new Packages.tv.phantombot.discord.util.EmbedBuilder()
                     .withColor(100, 65, 164)
                     .withThumbnail('https://static-cdn.jtvnw.net/badges/v1/5d9f2208-5dd8-11e7-8513-2ff4adfae661/2')
                     .withTitle($.lang.get('discord.subscribehandler.resubscriber.embedtitle'))
                     .appendDescription(s)
                     .withTimestamp(Date.now())
                     .withFooterText('Twitch')
-                    .withFooterIcon($.twitchcache.getLogoLink()).build());
+                    .withFooterIcon($.twitchcache.getLogoLink()).build(), true);
     });
 
     /**
@@ -371,8 +371,34 @@
             return;
         }
 
-        let isOnline = $.isOnline($.channelName),
-                activeList,
+        let isOnline = $.isOnline($.channelName);
+
+        // When no permission group has a custom gain, every chatter earns the same amount, so the payout is done entirely in Java
+        if (!hasGroupPointOverrides(isOnline)) {
+            let amount = isOnline ? Math.max(onlineGain, 0) : Math.max(offlineGain, 0),
+                    exclude = new Packages.java.util.ArrayList($.getTwitchBots()),
+                    penalized = getPenalizedUsers();
+
+            for (let i = 0; i < penalized.length; i++) {
+                exclude.add($.javaString(penalized[i]));
+            }
+
+            if (pointsBonus && pointsBonusAmount > 0) {
+                amount += pointsBonusAmount;
+            }
+
+            if (amount > 0) {
+                $.inidb.IncreaseChattersString('points', '', amount, exclude);
+            }
+
+            if (isOnline && activeBonus > 0) {
+                $.inidb.IncreaseActiveChattersString('points', '', activeBonus, exclude);
+            }
+
+            return;
+        }
+
+        let activeList,
                 active,
                 chatList = $.viewer.chatters(),
                 normalPayoutUsers = []; // users that get the normal online payout, nothing custom.
@@ -412,6 +438,23 @@
         }
     }
 
+    /**
+     * @function hasGroupPointOverrides
+     * @param {boolean} isOnline
+     * @returns {boolean} true if any permission group, or subscriber plan, has a custom point gain
+     */
+    function hasGroupPointOverrides(isOnline) {
+        let values = $.inidb.GetKeyValueList('grouppoints' + (isOnline ? '' : 'offline'), '');
+
+        for (let i = 0; i < values.length; i++) {
+            if (parseInt(values[i].getValue()) >= 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     /**
      * @function setupPayoutRun
      */
@@ -458,6 +501,25 @@
         }
     }
 
+    /**
+     * @function getPenalizedUsers
+     * @returns {Array<string>} the users who currently have a penalty
+     */
+    function getPenalizedUsers() {
+        let now = $.systemTime(),
+                users = [];
+
+        penalties = penalties.filter(function (penalty) {
+            return penalty.time - now > 0;
+        });
+
+        for (let i = 0; i < penalties.length; i++) {
+            users.push(penalties[i].user);
+        }
+
+        return users;
+    }
+
     /**
      * @function getUserPenalty
      * @param username
@@ -134,6 +134,29 @@
         }
     }
 
+    /**
+     * @function parseVideoId
+     * @param {string} searchQuery
+     * @returns {string} the video id if searchQuery is a video link or id, otherwise null
+     */
+    function parseVideoId(searchQuery) {
+        searchQuery = $.jsString(searchQuery).trim();
+
+        if (searchQuery.includes('/watch') && searchQuery.includes('v=')) {
+            searchQuery = searchQuery.substring(searchQuery.indexOf('v=') + 2);
+            if (searchQuery.includes('&')) {
+                searchQuery = searchQuery.substring(0, searchQuery.indexOf('&'));
+            }
+        } else if (searchQuery.startsWith('https://youtu.be/')) {
+            searchQuery = searchQuery.substring(17);
+            if (searchQuery.includes('?')) {
+                searchQuery = searchQuery.substring(0, searchQuery.indexOf('?'));
+            }
+        }
+
+        return /^[A-Za-z0-9_-]{11}$/.test(searchQuery) ? searchQuery : null;
+    }
+
     /**
      * @class
      * @description This class holds information about a youtube video.
@@ -330,9 +353,7 @@
     function BotPlayList(playlistName, loadDefault) {
         var previousVideo = null,
             currentVideo = null,
-            playListDbId = playlistDbPrefix + playlistName,
-            defaultPlaylist = [], // @type { Integer[] }
-            defaultPlaylistReadOnly = [], // @type { Integer[] }
+            playlist = null, // @type { tv.phantombot.ytplayer.YTPlaylist }
             requests = new Packages.java.util.concurrent.ConcurrentLinkedQueue, // @type { YoutubeVideo[] }
             requestFailReason = '';
 
@@ -352,10 +373,15 @@
                 playlistFailCount = 0,
                 spaceMacther = new RegExp('\\s');
 
-            if ($.inidb.exists('yt_playlists_registry', 'ytPlaylist_' + listName)) {
+            if (Packages.tv.phantombot.ytplayer.YTPlaylist.exists(listName)) {
                 if ($.fileExists("./addons/youtubePlayer/" + fileName)) {
                     $.say($.whisperPrefix(sender) + $.lang.get('ytplayer.command.importpl.file.start'));
                     importedList = $.readFile("./addons/youtubePlayer/" + fileName);
+                    // Each accepted line in file order; direct ids are only kept once their batched lookup succeeds
+                    var entries = [],
+                        videoIds = new Packages.java.util.ArrayList(),
+                        resolvedIds = new Packages.java.util.HashSet(),
+                        importedIds = new Packages.java.util.ArrayList();
                     for (var i = 0; i < importedList.length; i++) {
                         var item = $.jsString(importedList[i]);
                         if (item.includes('&list')) {
@@ -370,16 +396,64 @@
                             continue;
                         }
 
+                        var videoId = parseVideoId(item);
+                        if (videoId !== null) {
+                            // Looked up in batches below
+                            videoIds.add(videoId);
+                            entries.push({id: videoId, direct: true});
+                            continue;
+                        }
+
                         try {
                             var youtubeVideo = new YoutubeVideo(item, 'importPlaylistFile');
-                            $.inidb.set(playlistDbPrefix + listName, importCount, youtubeVideo.getVideoId());
-                            importCount++;
+                            entries.push({id: youtubeVideo.getVideoId(), direct: false});
                         } catch (ex) {
                             $.log.error("importPlaylistFile::skipped [" + item + "]: " + ex);
                             failCount++;
                         }
                     }
-                    $.inidb.set(playlistDbPrefix + listName, 'lastkey', importCount);
+
+                    // Each batch of up to 50 videos is resolved in one request
+                    var videos = $.youtube.GetVideos(videoIds).iterator(),
+                        resolvedCount = 0;
+                    while (videos.hasNext()) {
+                        var video = videos.next();
+                        resolvedCount++;
+                        if (video.live()) {
+                            $.log.error("importPlaylistFile::skipped [" + video.id() + "]: Live Stream Detected");
+                            failCount++;
+                        } else if (!video.creativeCommons() && playCCOnly) {
+                            $.log.error("importPlaylistFile::skipped [" + video.id() + "]: Video is not licensed as Creative Commons (ID: " + video.id() + ")");
+                            failCount++;
+                        } else if (!video.embeddable()) {
+                            $.log.error("importPlaylistFile::skipped [" + video.id() + "]: This video is not allowed to be embedded (ID: " + video.id() + ")");
+                            failCount++;
+                        } else {
+                            $.inidb.set('ytcache', video.id(), JSON.stringify({
+                                id: $.jsString(video.id()),
+                                title: $.jsString(video.title()),
+                                time: video.duration()
+                            }));
+                            resolvedIds.add(video.id());
+                        }
+                    }
+
+                    for (var j = 0; j < entries.length; j++) {
+                        if (!entries[j].direct || resolvedIds.contains(entries[j].id)) {
+                            importedIds.add(entries[j].id);
+                        }
+                    }
+
+                    if (resolvedCount < videoIds.size()) {
+                        $.log.error("importPlaylistFile::skipped " + (videoIds.size() - resolvedCount) + " videos: No data returned.");
+                        failCount += videoIds.size() - resolvedCount;
+                    }
+                    // Songs already in the playlist are skipped, the rest are written in one batch
+                    importCount = Packages.tv.phantombot.ytplayer.YTPlaylist.get(listName).addAll(importedIds, randomizePlaylist);
+                    // Only refresh the player if the import went into the playlist it is playing
+                    if (connectedPlayerClient !== null && currentPlaylist !== null && $.jsString(listName) === $.jsString(currentPlaylist.getPlaylistname())) {
+                        connectedPlayerClient.pushPlayList();
+                    }
 
                     if (playlistFailCount > 0) {
                         return $.lang.get('ytplayer.command.importpl.file.success.plerror', importCount, failCount, fileName, listName, playlistFailCount);
@@ -398,9 +472,9 @@
          * @return {Boolean}
          */
         this.loadNewPlaylist = function(listName) {
-            if ($.inidb.exists('yt_playlists_registry', 'ytPlaylist_' + listName)) {
+            if (Packages.tv.phantombot.ytplayer.YTPlaylist.exists(listName)) {
                 this.playlistName = listName;
-                playListDbId = playlistDbPrefix + listName;
+                playlist = Packages.tv.phantombot.ytplayer.YTPlaylist.get(listName);
                 this.loadPlaylistKeys();
                 connectedPlayerClient.pushPlayList();
             }
@@ -411,7 +485,7 @@
          * @return {String}
          */
         this.getplayListDbId = function() {
-            return playListDbId;
+            return playlist.table();
         };
 
         /**
@@ -442,16 +516,9 @@
             }
             var newKey;
             targetPlaylistName = (targetPlaylistName ? targetPlaylistName : this.playlistName);
-            if (this.videoExistsInPlaylist(youtubeVideo, targetPlaylistName)) {
-                return -2;
-            }
-            if (targetPlaylistName) {
-                newKey = (!$.inidb.exists(playlistDbPrefix + targetPlaylistName, 'lastkey') ? 0 : parseInt($.getIniDbString(playlistDbPrefix + targetPlaylistName, 'lastkey')) + 1);
-                $.inidb.set(playlistDbPrefix + targetPlaylistName, newKey, youtubeVideo.getVideoId());
-                $.inidb.set(playlistDbPrefix + targetPlaylistName, 'lastkey', newKey);
-            }
-            if (targetPlaylistName.equals(this.playlistName)) {
-                this.loadPlaylistKeys();
+            // Returns -2 if the video is already in the playlist; otherwise the song is also placed in the remaining play order
+            newKey = Packages.tv.phantombot.ytplayer.YTPlaylist.get(targetPlaylistName).add(youtubeVideo.getVideoId(), randomizePlaylist);
+            if (newKey >= 0 && targetPlaylistName.equals(this.playlistName)) {
                 connectedPlayerClient.pushPlayList();
             }
             return newKey;
@@ -462,20 +529,10 @@
          * @returns {Number}
          */
         this.deleteCurrentVideo = function() {
-            var keyList = $.inidb.GetKeyList(playListDbId, ''),
-                i;
-
-            for (i = 0; i < keyList.length; i++) {
-                if (!keyList[i].equals("lastkey")) {
-                    if ($.getIniDbString(playListDbId, keyList[i]) == currentVideo.getVideoId()) {
-                        $.inidb.del(playListDbId, keyList[i]);
-                        break;
-                    }
-                }
-            }
+            playlist.remove(currentVideo.getVideoId());
 
             connectedPlayerClient.pushPlayList();
-            if (this.loadPlaylistKeys() > 0) {
+            if (playlist.size() > 0) {
                 this.nextVideo();
             }
 
@@ -488,22 +545,13 @@
          * @returns {Number}
          */
         this.deleteVideoByID = function(videoId) {
-            var keyList = $.inidb.GetKeyList(playListDbId, ''),
-                i,
-                isCurrent = false;
-
-            for (i = 0; i < keyList.length; i++) {
-                if ($.getIniDbString(playListDbId, keyList[i]).equals(videoId)) {
-                    if (currentVideo !== null && $.getIniDbString(playListDbId, keyList[i]) == currentVideo.getVideoId()) {
-                        isCurrent = true;
-                    }
-                    $.inidb.del(playListDbId, keyList[i]);
-                    break;
-                }
+            var isCurrent = currentVideo !== null && currentVideo.getVideoId().equals(videoId);
+
+            if (!playlist.remove(videoId)) {
+                return;
             }
-            this.loadPlaylistKeys();
             connectedPlayerClient.pushPlayList();
-            if (isCurrent && this.loadPlaylistKeys() > 0) {
+            if (isCurrent && playlist.size() > 0) {
                 this.nextVideo();
             }
         };
@@ -513,12 +561,7 @@
          * @returns {boolean}
          */
         this.deletePlaylist = function(listName) {
-            if ($.inidb.exists('yt_playlists_registry', 'ytPlaylist_' + listName)) {
-                $.inidb.del('yt_playlists_registry', 'ytPlaylist_' + listName);
-                $.inidb.RemoveFile('ytPlaylist_' + listName);
-                return true;
-            }
-            return false;
+            return Packages.tv.phantombot.ytplayer.YTPlaylist.delete(listName);
         };
 
         /**
@@ -542,7 +585,7 @@
          * @returns {Number}
          */
         this.getplaylistLength = function() {
-            return defaultPlaylist.length;
+            return playlist.size();
         };
 
         /**
@@ -550,7 +593,7 @@
          * @returns {String}[]
          */
         this.getReadOnlyPlaylistData = function() {
-            return defaultPlaylistReadOnly;
+            return playlist.playOrder();
         };
 
         /**
@@ -609,14 +652,14 @@
                     return false;
                 }
             } else {
-                if (defaultPlaylistReadOnly.length == 0 || defaultPlaylistReadOnly.length < playlistPosition) {
+                var playOrder = playlist.playOrder();
+                if (playOrder.isEmpty() || playlistPosition < 0 || playOrder.size() <= playlistPosition) {
                     return false;
                 }
 
                 previousVideo = currentVideo;
                 try {
-                    var playListIndex = defaultPlaylistReadOnly[playlistPosition];
-                    currentVideo = new YoutubeVideo($.getIniDbString(playListDbId, playListIndex), playlistDJname);
+                    currentVideo = new YoutubeVideo(playOrder.get(playlistPosition), playlistDJname);
                 } catch (ex) {
                     $.log.error("YoutubeVideo::exception: " + ex);
                     return false;
@@ -668,16 +711,17 @@
                     }
                 }
             } else {
-                if (defaultPlaylistReadOnly.length == 0) {
+                var playOrder = playlist.playOrder();
+                if (playOrder.isEmpty()) {
                     return false;
                 }
 
-                for (var i in defaultPlaylistReadOnly) {
+                for (var i = 0; i < playOrder.size(); i++) {
                     try {
-                        examineVideo = new YoutubeVideo($.getIniDbString(playListDbId, defaultPlaylistReadOnly[i]), playlistDJname);
+                        examineVideo = new YoutubeVideo(playOrder.get(i), playlistDJname);
                         if (examineVideo.getVideoTitle().toLowerCase().indexOf(songTitle.toLowerCase()) >= 0) {
                             previousVideo = currentVideo;
-                            currentVideo = new YoutubeVideo($.getIniDbString(playListDbId, defaultPlaylistReadOnly[i]), playlistDJname);
+                            currentVideo = examineVideo;
                             match = true;
                             index = i;
                             break;
@@ -716,22 +760,12 @@
          * @returns {number}
          */
         this.loadPlaylistKeys = function() {
-            var keyList = $.inidb.GetKeyList(playListDbId, '');
-
-            defaultPlaylist = [];
-            defaultPlaylistReadOnly = [];
+            // Picks up a new instance if the playlist was deleted and recreated
+            playlist = Packages.tv.phantombot.ytplayer.YTPlaylist.get(this.playlistName);
+            var size = playlist.reset(randomizePlaylist);
 
-            for (var i = 0; i < keyList.length; i++) {
-                if (!keyList[i].equals("lastkey")) {
-                    defaultPlaylist.push(keyList[i]);
-                }
-            }
-            defaultPlaylist = (randomizePlaylist ? $.arrayShuffle(defaultPlaylist) : defaultPlaylist);
-            for (var i = 0; i < defaultPlaylist.length; i++) {
-                defaultPlaylistReadOnly.push(defaultPlaylist[i]);
-            }
             this.loaded = true;
-            return keyList.length;
+            return size;
         };
 
         /**
@@ -751,7 +785,8 @@
                     currentVideo = requests.poll();
                     exception = false;
                 } else {
-                    if (defaultPlaylist.length == 0) {
+                    var videoId = playlist.next();
+                    if (videoId === null) {
                         if (this.loadPlaylistKeys() == 0) {
                             return new YoutubeVideo('r9NsG7pMwNk', playlistDJname);
                         }
@@ -759,8 +794,7 @@
                     }
 
                     try {
-                        var playListIndex = defaultPlaylist.shift();
-                        currentVideo = new YoutubeVideo($.getIniDbString(playListDbId, playListIndex), playlistDJname);
+                        currentVideo = new YoutubeVideo(videoId, playlistDJname);
                         exception = false
                     } catch (ex) {
                         $.log.error("YoutubeVideo::exception: " + ex);
@@ -792,10 +826,8 @@
          */
         this.preparePlaylist = function(playlistName) {
             $.inidb.set('ytSettings', 'activePlaylistname', playlistName);
-            if (!$.inidb.exists('yt_playlists_registry', playListDbId) || !$.inidb.FileExists(playListDbId)) {
-                $.setIniDbBoolean('yt_playlists_registry', playListDbId, true);
-                $.inidb.AddFile(playListDbId);
-            }
+            // Registers and creates the playlist table if it is missing
+            playlist = Packages.tv.phantombot.ytplayer.YTPlaylist.get(playlistName);
             return true;
         };
 
@@ -935,17 +967,8 @@
          * @returns {boolean}
          */
         this.videoExistsInPlaylist = function(youtubeVideo, targetPlaylistName) {
-            var keyList = $.inidb.GetKeyList(playlistDbPrefix + targetPlaylistName, ''),
-                i;
-
-            for (i in keyList) {
-                if (!keyList[i].equals("lastkey")) {
-                    if ($.getIniDbString(playlistDbPrefix + targetPlaylistName, keyList[i]) == youtubeVideo.getVideoId()) {
-                        return true;
-                    }
-                }
-            }
-            return false;
+            return Packages.tv.phantombot.ytplayer.YTPlaylist.exists(targetPlaylistName)
+                    && Packages.tv.phantombot.ytplayer.YTPlaylist.get(targetPlaylistName).contains(youtubeVideo.getVideoId());
         };
 
         /**
@@ -1033,9 +1056,9 @@
                 jsonList['playlist'] = [];
                 playList = currentPlaylist.getReadOnlyPlaylistData();
 
-                for (i = 0; i < playList.length; i++) {
+                for (i = 0; i < playList.size(); i++) {
 
-                    youTubeDbId = $.getIniDbString(currentPlaylist.getplayListDbId(), playList[i]);
+                    youTubeDbId = playList.get(i);
 
                     if ($.inidb.exists('ytcache', youTubeDbId)) {
                         jsonString = $.getIniDbString('ytcache', youTubeDbId);
@@ -1405,8 +1428,9 @@
                     $.say($.whisperPrefix(sender) + $.lang.get('ytplayer.command.ytp.resetdefaultlist.active'));
                     return;
                 }
-                $.inidb.RemoveFile('ytPlaylist_default');
+                Packages.tv.phantombot.ytplayer.YTPlaylist.delete('default');
                 createDefaultPl();
+                Packages.tv.phantombot.ytplayer.YTPlaylist.get('default');
                 $.say($.whisperPrefix(sender) + $.lang.get('ytplayer.command.ytp.resetdefaultlist.success'));
                 return;
             }
@@ -1789,10 +1813,15 @@
              * @commandpath playlist listpl - List the playlists
              */
             if ($.equalsIgnoreCase(action, 'listpl')) {
-                var playlistsList = $.inidb.GetKeyList('yt_playlists_registry', '');
+                var playlistNames = Packages.tv.phantombot.ytplayer.YTPlaylist.names(),
+                    playlistsList = [];
+
+                for (var i = 0; i < playlistNames.size(); i++) {
+                    playlistsList.push($.jsString(playlistNames.get(i)));
+                }
 
-                if (playlistsList) {
-                    $.say($.whisperPrefix(sender) + $.lang.get('ytplayer.command.playlist.listpl', playlistsList.join(', ').replace(/ytPlaylist_/g, '')));
+                if (playlistsList.length > 0) {
+                    $.say($.whisperPrefix(sender) + $.lang.get('ytplayer.command.playlist.listpl', playlistsList.join(', ')));
                 }
                 return;
             }
@@ -1823,7 +1852,7 @@
             }
 
             /**
-             * @commandpath playlist importpl file [playlist name] [file] - Creates/overwrites playlist with new list generated from ./addons/youtubePlayer/file. File may contain links, descriptions, or YouTube IDs
+             * @commandpath playlist importpl file [playlist name] [file] - Appends the songs listed in ./addons/youtubePlayer/file to the playlist, creating it if needed. Songs already in the playlist are skipped. File may contain links, descriptions, or YouTube IDs
              */
             if ($.equalsIgnoreCase(action, 'importpl')) {
                 if (actionArgs.length == 3) {
@@ -242,7 +242,7 @@ $(function () {
      * @return {ReconnectingWebSocket}
      */
     function getWebSocket() {
-        let socketUri = ((window.location.protocol === 'https:' ? 'wss://' : 'ws://') + window.location.host + '/ws/alertspolls'), // URI of the socket.
+        let socketUri = ((window.location.protocol === 'https:' ? 'wss://' : 'ws://') + window.location.host + '/ws/alertspolls?batch'), // URI of the socket.
                 reconnectInterval = 5000; // How often in milliseconds we should try reconnecting.
 
         return new ReconnectingWebSocket(socketUri, null, {
@@ -1058,11 +1058,17 @@ $(function () {
     webSocket.onmessage = function (e) {
         try {
             let rawMessage = e.data,
-                    message = JSON.parse(rawMessage);
+                    parsed = JSON.parse(rawMessage),
+                    // Messages which were sent close together arrive as one array.
+                    messages = Array.isArray(parsed) ? parsed : [parsed];
 
             printDebug('[MESSAGE] ' + rawMessage);
 
-            if (message.query_id === undefined) {
+            for (const message of messages) {
+                if (message.query_id !== undefined) {
+                    continue;
+                }
+
                 // Check for our auth result.
                 if (message.authresult !== undefined) {
                     if (message.authresult === 'true') {
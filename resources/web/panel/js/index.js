@@ -38,7 +38,7 @@ $(function () {
                 }
         );
     }
-    var webSocket = new ReconnectingWebSocket((window.location.protocol === 'https:' ? 'wss://' : 'ws://') + helpers.getBotHost() + '/ws/panel?target=' + helpers.getBotHost(), null, {reconnectInterval: 500}),
+    var webSocket = new ReconnectingWebSocket((window.location.protocol === 'https:' ? 'wss://' : 'ws://') + helpers.getBotHost() + '/ws/panel?batch&target=' + helpers.getBotHost(), null, {reconnectInterval: 500}),
             callbacks = [],
             listeners = [],
             socket = {};
@@ -773,8 +773,30 @@ $(function () {
      * @function Socket calls when it gets message.
      */
     webSocket.onmessage = function (e) {
+        // Messages which were sent close together arrive as one array.
+        if (typeof e.data === 'string' && e.data.charAt(0) === '[') {
+            let batch;
+            try {
+                batch = JSON.parse(e.data);
+            } catch (ex) {
+                helpers.logError('Failed to parse message from socket: ' + ex.stack + '\n\n' + e.data, helpers.LOG_TYPE.FORCE);
+                return;
+            }
+
+            for (let i = 0; i < batch.length; i++) {
+                handleSocketMessage({data: batch[i]});
+            }
+        } else {
+            handleSocketMessage(e);
+        }
+    };
+
+    /*
+     * @function Handles a single message from the socket; data is either the raw text, or an already parsed message from a batch.
+     */
+    function handleSocketMessage(e) {
         try {
-            helpers.log('Message from socket: ' + e.data, helpers.LOG_TYPE.DEBUG);
+            helpers.log('Message from socket: ' + (typeof e.data === 'string' ? e.data : JSON.stringify(e.data)), helpers.LOG_TYPE.DEBUG);
 
             if (e.data === 'PING') {
                 helpers.log('Sending PONG', helpers.LOG_TYPE.DEBUG);
@@ -782,7 +804,7 @@ $(function () {
                 return;
             }
 
-            let message = JSON.parse(e.data);
+            let message = typeof e.data === 'string' ? JSON.parse(e.data) : e.data;
 
             // Check this message here before doing anything else.
             if (message.authresult !== undefined) {
@@ -906,9 +928,9 @@ $(function () {
             }
         } catch (ex) {
             // Line number won't be accurate, function will by anonymous, but we get the stack so it should be fine.
-            helpers.logError('Failed to parse message from socket: ' + ex.stack + '\n\n' + e.data, helpers.LOG_TYPE.FORCE);
+            helpers.logError('Failed to parse message from socket: ' + ex.stack + '\n\n' + JSON.stringify(e.data), helpers.LOG_TYPE.FORCE);
         }
-    };
+    }
 
     // Make this a global object.
     window.socket = socket;
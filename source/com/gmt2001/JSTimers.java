@@ -16,32 +16,116 @@
  */
 package com.gmt2001;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.gmt2001.util.concurrent.ExecutorService;
 
+import tv.phantombot.CaselessProperties;
+
 /**
+ * Provides {@code setTimeout} and {@code setInterval} to scripts
+ * <p>
+ * All timers share a single hashed timer wheel which advances once per tick. Scheduling and cancelling a timer links or unlinks it
+ * from one slot of the wheel, and each tick only visits the timers in its slot. Expired timers run on the shared executor, so a slow
+ * callback does not delay the wheel. An interval is re-armed when its callback finishes, so runs of the same interval never overlap
  *
  * @author gmt2001
  */
 public class JSTimers {
 
+    private static final ThreadLocal<Boolean> IN_CALLBACK = ThreadLocal.withInitial(() -> Boolean.FALSE);
     private static final JSTimers INSTANCE = new JSTimers();
+    /**
+     * The number of slots in the wheel; must be a power of 2
+     */
+    private static final int WHEEL_SIZE = 512;
     private final Map<Integer, JSTimer> timers = new ConcurrentHashMap<>();
-    private int index = 0;
-    private boolean overflow = false;
+    private final Map<String, TimerStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final JSTimer[] wheel = new JSTimer[WHEEL_SIZE];
+    private final long tickNanos;
+    private final long startNanos = System.nanoTime();
+    /**
+     * The last tick which was processed; guarded by {@link #wheel}
+     */
+    private long processedTick = 0L;
+
+    /**
+     * Execution statistics of the timers with the same name
+     *
+     * @param name The timer name
+     * @param interval {@code true} if the timers are intervals
+     * @param runs The number of times a callback ran
+     * @param averageExecutionMillis The average execution time of the callback, in milliseconds
+     * @param maxExecutionMillis The longest execution time of the callback, in milliseconds
+     * @param averageDriftMillis The average time between when the callback was due and when it started, in milliseconds
+     * @param maxDriftMillis The longest time between when the callback was due and when it started, in milliseconds
+     */
+    public record TimerReport(String name, boolean interval, long runs, double averageExecutionMillis, double maxExecutionMillis,
+            double averageDriftMillis, double maxDriftMillis) {
+    }
+
+    private static final class TimerStats {
+        private final boolean interval;
+        private final LongAdder runs = new LongAdder();
+        private final LongAdder execution = new LongAdder();
+        private final AtomicLong maxExecution = new AtomicLong();
+        private final LongAdder drift = new LongAdder();
+        private final AtomicLong maxDrift = new AtomicLong();
+
+        private TimerStats(boolean interval) {
+            this.interval = interval;
+        }
+
+        private void record(long driftNanos, long executionNanos) {
+            this.runs.increment();
+            this.drift.add(driftNanos);
+            this.maxDrift.accumulateAndGet(driftNanos, Math::max);
+            this.execution.add(executionNanos);
+            this.maxExecution.accumulateAndGet(executionNanos, Math::max);
+        }
+
+        private TimerReport report(String name) {
+            long runs = Math.max(1L, this.runs.sum());
+            return new TimerReport(name, this.interval, this.runs.sum(), millis(this.execution.sum() / runs), millis(this.maxExecution.get()),
+                millis(this.drift.sum() / runs), millis(this.maxDrift.get()));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
 
     public static JSTimers instance() {
         return INSTANCE;
     }
 
     private JSTimers() {
-        ExecutorService.scheduleAtFixedRate(this::cleanup, 15, 15, TimeUnit.MINUTES);
+        /**
+         * @botproperty jstimerstickms - The resolution of `setTimeout` and `setInterval` in scripts, in milliseconds. Default `10`
+         * @botpropertycatsort jstimerstickms 160 50 Misc
+         */
+        long tickMS = Math.max(1L, Math.min(1000L, CaselessProperties.instance().getPropertyAsLong("jstimerstickms", 10L)));
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMS);
+        ExecutorService.scheduleAtFixedRate(this::tick, tickMS, tickMS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Indicates if the current thread is running the callback of a timer
+     *
+     * @return {@code true} if called from within a {@code setTimeout} or {@code setInterval} callback
+     */
+    public static boolean isTimerCallback() {
+        return IN_CALLBACK.get();
     }
 
     public int setTimeout(Runnable callback, int delayMS) {
@@ -49,110 +133,189 @@ public class JSTimers {
     }
 
     public int setTimeout(Runnable callback, int delayMS, String name) {
-        int id = this.getNextId();
-        delayMS = Math.max(1, delayMS);
+        return this.schedule(callback, delayMS, name, false);
+    }
 
-        if (name == null || name.isBlank()) {
-            name = "GenericTimeout" + id;
-        }
+    public int setInterval(Runnable callback, int delayMS) {
+        return this.setInterval(callback, delayMS, null);
+    }
 
-        JSTimer timer = new JSTimer(name, false, callback);
-        ScheduledFuture<?> future = ExecutorService.schedule(timer::run, delayMS, TimeUnit.MILLISECONDS);
-        timer.setFuture(future);
+    public int setInterval(Runnable callback, int delayMS, String name) {
+        return this.schedule(callback, delayMS, name, true);
+    }
 
-        this.timers.put(id, timer);
+    public void clearTimer(int idx) {
+        JSTimer timer = this.timers.remove(idx);
 
-        return id;
+        if (timer != null) {
+            timer.cancel();
+        }
     }
 
-    public int setInterval(Runnable callback, int delayMS) {
-        return this.setInterval(callback, delayMS, null);
+    /**
+     * The number of active timers
+     *
+     * @return The number of timers which are scheduled or running
+     */
+    public int size() {
+        return this.timers.size();
     }
 
-    public int setInterval(Runnable callback, int delayMS, String name) {
-        int id = this.getNextId();
+    /**
+     * Returns the execution statistics of each timer name, slowest first
+     *
+     * @return The statistics
+     */
+    public List<TimerReport> report() {
+        List<TimerReport> reports = new ArrayList<>();
+        this.stats.forEach((name, stat) -> reports.add(stat.report(name)));
+        reports.sort(Comparator.comparingDouble(TimerReport::maxExecutionMillis).reversed());
+        return reports;
+    }
+
+    private int schedule(Runnable callback, int delayMS, String name, boolean isInterval) {
         delayMS = Math.max(1, delayMS);
+        String statsName;
 
         if (name == null || name.isBlank()) {
-            name = "GenericInterval" + id;
+            // Unnamed timers share one entry, so the statistics do not grow with every timer
+            statsName = isInterval ? "GenericInterval" : "GenericTimeout";
+            name = null;
+        } else {
+            statsName = name;
         }
 
-        JSTimer timer = new JSTimer(name, true, callback);
-        ScheduledFuture<?> future = ExecutorService.scheduleAtFixedRate(timer::run, delayMS, delayMS, TimeUnit.MILLISECONDS);
-        timer.setFuture(future);
+        int id;
+        JSTimer timer;
+        do {
+            id = this.nextId.getAndUpdate(i -> i == Integer.MAX_VALUE ? 0 : i + 1);
+            timer = new JSTimer(id, name == null ? statsName + id : name, isInterval, callback, TimeUnit.MILLISECONDS.toNanos(delayMS),
+                this.stats.computeIfAbsent(statsName, k -> new TimerStats(isInterval)));
+        } while (this.timers.putIfAbsent(id, timer) != null);
 
-        this.timers.put(id, timer);
+        this.arm(timer, System.nanoTime() + timer.period);
 
         return id;
     }
 
-    public void clearTimer(int idx) {
-        if (this.timers.containsKey(idx)) {
-            JSTimer timer = this.timers.remove(idx);
+    /**
+     * Links a timer into the slot of the tick at which it is due
+     *
+     * @param timer The timer
+     * @param deadline The {@link System#nanoTime()} at which it is due
+     */
+    private void arm(JSTimer timer, long deadline) {
+        synchronized (this.wheel) {
+            if (timer.isCancelled()) {
+                return;
+            }
 
-            if (timer != null) {
-                timer.cancel();
+            timer.deadline = deadline;
+            timer.tick = Math.max((deadline - this.startNanos + this.tickNanos - 1) / this.tickNanos, this.processedTick + 1);
+            int slot = (int) (timer.tick & (WHEEL_SIZE - 1));
+            timer.prev = null;
+            timer.next = this.wheel[slot];
+            if (timer.next != null) {
+                timer.next.prev = timer;
             }
+            this.wheel[slot] = timer;
+            timer.armed = true;
         }
     }
 
-    private void cleanup() {
-        this.timers.forEach((id, timer) -> {
-            if (timer == null || timer.isCancelled()) {
-                this.timers.remove(id);
+    /**
+     * Unlinks a timer from its slot
+     *
+     * @param timer The timer
+     */
+    private void disarm(JSTimer timer) {
+        synchronized (this.wheel) {
+            if (!timer.armed) {
+                return;
             }
-        });
-    }
 
-    private synchronized int getNextId() {
-        if (this.index < Integer.MAX_VALUE && !this.overflow) {
-            return this.index++;
-        } else if (this.index < Integer.MAX_VALUE) {
-            for (int b = this.index; b < Integer.MAX_VALUE; b++) {
-                if (!this.timers.containsKey(b)) {
-                    this.index = b;
-                    return this.index++;
-                }
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                this.wheel[(int) (timer.tick & (WHEEL_SIZE - 1))] = timer.next;
             }
+
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            }
+
+            timer.prev = null;
+            timer.next = null;
+            timer.armed = false;
         }
+    }
 
-        this.overflow = true;
-        this.cleanup();
+    /**
+     * Advances the wheel to the current time, and dispatches the timers which are due
+     */
+    private void tick() {
+        List<JSTimer> expired = null;
 
-        for (int b = 0; b < Integer.MAX_VALUE; b++) {
-            if (!this.timers.containsKey(b)) {
-                this.index = b;
-                return this.index++;
+        synchronized (this.wheel) {
+            long now = (System.nanoTime() - this.startNanos) / this.tickNanos;
+
+            // If the wheel fell behind by a full turn, one pass over every slot is enough
+            for (long t = Math.max(this.processedTick + 1, now - WHEEL_SIZE + 1); t <= now; t++) {
+                JSTimer timer = this.wheel[(int) (t & (WHEEL_SIZE - 1))];
+
+                while (timer != null) {
+                    JSTimer next = timer.next;
+
+                    if (timer.tick <= now) {
+                        this.disarm(timer);
+                        if (expired == null) {
+                            expired = new ArrayList<>();
+                        }
+                        expired.add(timer);
+                    }
+
+                    timer = next;
+                }
             }
+
+            this.processedTick = Math.max(this.processedTick, now);
         }
 
-        throw new IllegalStateException("TimerQueue Exhausted");
+        if (expired != null) {
+            for (JSTimer timer : expired) {
+                ExecutorService.execute(timer::run);
+            }
+        }
     }
 
     private class JSTimer {
 
+        private final int id;
         private final String name;
         private final Runnable callback;
         private final boolean isInterval;
-        private AtomicBoolean  isCancelled = new AtomicBoolean(false);
-        private volatile ScheduledFuture<?> future = null;
-
-        public JSTimer(String name, boolean isInterval, Runnable callback) {
+        private final long period;
+        private final TimerStats stats;
+        private final AtomicBoolean isCancelled = new AtomicBoolean(false);
+        // Guarded by the wheel
+        private JSTimer prev;
+        private JSTimer next;
+        private long tick;
+        private long deadline;
+        private boolean armed = false;
+
+        public JSTimer(int id, String name, boolean isInterval, Runnable callback, long period, TimerStats stats) {
+            this.id = id;
             this.name = name + (isInterval ? " [interval]" : "");
             this.isInterval = isInterval;
             this.callback = callback;
-        }
-
-        public void setFuture(ScheduledFuture<?> future) {
-            this.future = future;
+            this.period = period;
+            this.stats = stats;
         }
 
         public void cancel() {
             if (isCancelled.compareAndSet(false, true)) {
-                ScheduledFuture<?> f = this.future;
-                if (f != null) {
-                    f.cancel(false);
-                }
+                disarm(this);
             }
         }
 
@@ -161,47 +324,33 @@ public class JSTimers {
         }
 
         public void run() {
-            try {
-                if (this.isCancelled.get()) {
-                    return;
-                }
+            if (this.isCancelled.get()) {
+                return;
+            }
+
+            long deadline = this.deadline;
+            long start = System.nanoTime();
 
+            try {
+                IN_CALLBACK.set(Boolean.TRUE);
                 tv.phantombot.script.RhinoRuntime.getContextFactory().enterContext();
                 this.callback.run();
+            } catch (Exception ex) {
+                com.gmt2001.Console.err.printStackTrace(ex, Map.of("timer", this.name));
             } finally {
                 org.mozilla.javascript.Context.exit();
-                if (!this.isInterval) {
+                IN_CALLBACK.set(Boolean.FALSE);
+                long end = System.nanoTime();
+                this.stats.record(Math.max(0L, start - deadline), end - start);
+
+                if (this.isInterval) {
+                    // Fixed rate, without a burst of catch-up runs if the callback overran its period
+                    arm(this, Math.max(deadline + this.period, end));
+                } else {
                     this.isCancelled.set(true);
+                    timers.remove(this.id, this);
                 }
             }
         }
-
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + getEnclosingInstance().hashCode();
-            result = prime * result + Objects.hash(name, callback, isInterval);
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj)
-                return true;
-            if (obj == null)
-                return false;
-            if (getClass() != obj.getClass())
-                return false;
-            JSTimer other = (JSTimer) obj;
-            if (!getEnclosingInstance().equals(other.getEnclosingInstance()))
-                return false;
-            return Objects.equals(name, other.name) && Objects.equals(callback, other.callback)
-                    && isInterval == other.isInterval;
-        }
-
-        private JSTimers getEnclosingInstance() {
-            return JSTimers.this;
-        }
     }
 }
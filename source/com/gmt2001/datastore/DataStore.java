@@ -23,9 +23,16 @@ import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.jooq.Configuration;
@@ -42,11 +49,13 @@ import org.jooq.SortOrder;
 import org.jooq.Table;
 import org.jooq.exception.DataAccessException;
 import org.jooq.exception.TooManyRowsException;
+import org.jooq.impl.DSL;
 import org.jooq.impl.SQLDataType;
 
 import com.gmt2001.datastore2.Datastore2;
 import com.gmt2001.datastore2.H2Store2;
 import com.gmt2001.datastore2.SQLiteStore2;
+import com.gmt2001.twitch.cache.ViewerCache;
 
 import tv.phantombot.PhantomBot;
 
@@ -63,6 +72,14 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
      * Table name prefix for all tables created as {@link SectionVariableValueTable}
      */
     public static final String PREFIX = "phantombot_";
+    /**
+     * Listeners to notify when a table is written to, keyed by lower-case table name
+     */
+    private final ConcurrentMap<String, List<Consumer<String>>> writeListeners = new ConcurrentHashMap<>();
+    /**
+     * Pending writes from {@link #touch(String, String, String)}
+     */
+    private final TouchAccumulator touches = new TouchAccumulator(this);
     /**
      * Provides an instance of {@link DataStore}
      *
@@ -80,6 +97,87 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
     protected DataStore(String unused) {
     }
 
+    /**
+     * Registers a listener which is notified after a row in the given table is written to or deleted
+     * <p>
+     * The listener receives the value of the {@code variable} column that was changed, or {@code null} if
+     * a section or the entire table was changed
+     * <p>
+     * Listeners are called synchronously on the writing thread and must not block
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param listener the listener
+     */
+    public void addWriteListener(String fName, Consumer<String> listener) {
+        this.writeListeners.computeIfAbsent(fName.toLowerCase(), k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Deregisters a listener which was registered with {@link #addWriteListener(String, Consumer)}
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param listener the listener
+     */
+    public void removeWriteListener(String fName, Consumer<String> listener) {
+        List<Consumer<String>> listeners = this.writeListeners.get(fName.toLowerCase());
+
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Notifies the write listeners of the given table
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param key the value of the {@code variable} column that was changed; {@code null} if multiple rows were changed
+     */
+    protected void notifyWrite(String fName, String key) {
+        if (this.writeListeners.isEmpty()) {
+            return;
+        }
+
+        if (fName.startsWith(DataStore.PREFIX)) {
+            fName = fName.substring(DataStore.PREFIX.length());
+        }
+
+        List<Consumer<String>> listeners = this.writeListeners.get(fName.toLowerCase());
+
+        if (listeners != null) {
+            for (Consumer<String> listener : listeners) {
+                try {
+                    listener.accept(key);
+                } catch (Exception ex) {
+                    com.gmt2001.Console.err.printStackTrace(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the latest value of a key in the default section of the given table, to be written to the database on an interval
+     * <p>
+     * This is intended for high-churn tables where only the most recent value matters, such as {@code lastseen}. Repeated touches
+     * of the same key between flushes are collapsed into one write, and all changed keys of a table are written as a batch.
+     * Reads of the key through {@link #GetString(String, String, String)} return the pending value until it is flushed
+     * <p>
+     * The flush interval is set by the {@code datastoretouchinterval} bot property
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param key the value of the {@code variable} column to update
+     * @param value the new value of the {@code value} column
+     */
+    public void touch(String fName, String key, String value) {
+        this.touches.touch(fName, key, value);
+    }
+
+    /**
+     * Immediately writes all values pending from {@link #touch(String, String, String)} to the database
+     */
+    public void flushTouches() {
+        this.touches.flush();
+    }
+
     /**
      * Converts Datastore1 driver names to Datastore2 driver names
      *
@@ -217,6 +315,36 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
         return new KeyValue[0];
     }
 
+    /**
+     * Returns one page of {@code variable/value} pairs within the table and section, ordered by variable
+     * <p>
+     * Pages are selected by keyset rather than by offset, so walking a large table costs the same for every page. To read the next page,
+     * pass the variable of the last pair of the previous page as {@code after}
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section
+     * @param after only variables which sort after this one are returned; {@code null} to start from the beginning
+     * @param limit the maximum number of pairs to return
+     * @return an array of {@link KeyValue} pairs, in ascending order of variable
+     */
+    public KeyValue[] GetKeyValuePage(String fName, String section, String after, int limit) {
+        Optional<Table<?>> otbl = findTable(fName);
+
+        if (otbl.isPresent() && limit > 0) {
+            Table<?> tbl = otbl.get();
+            Field<String> variable = field("variable", tbl);
+            Field<String> value = field("value", tbl);
+            return dsl().select(variable, value).from(tbl)
+            .where(field("section", tbl).eq(section == null ? "" : section))
+            .and(after == null ? DSL.noCondition() : variable.gt(after))
+            .orderBy(variable.asc()).limit(limit)
+            .fetch(r -> new KeyValue(r.value1(), r.value2()))
+            .toArray(new KeyValue[0]);
+        }
+
+        return new KeyValue[0];
+    }
+
     /**
      * Returns a list of values in the {@code variable} column within the table and section, sorted naturally
      *
@@ -759,6 +887,14 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
      * @return the value
      */
     public String GetString(String fName, String section, String key) {
+        if (section == null || section.isEmpty()) {
+            String touched = this.touches.peek(fName, key);
+
+            if (touched != null) {
+                return touched;
+            }
+        }
+
         return this.OptRecord(fName, section, key).map(r -> r.value()).orElse(null);
     }
 
@@ -784,12 +920,15 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
      * @param value the new value of the {@code value} column
      */
     public void SetString(String fName, String section, String key, String value) {
-        SectionVariableValueTable table = SectionVariableValueTable.instance(DataStore.PREFIX + fName);
-        SectionVariableValueRecord record = this.OptRecord(table, section, key)
-            .orElseGet(() -> new SectionVariableValueRecord(table, section, key, value));
-        record.value(value);
-        record.changed(true);
-        record.merge();
+        this.touches.overwrite(fName, section, new String[]{key}, () -> {
+            SectionVariableValueTable table = SectionVariableValueTable.instance(DataStore.PREFIX + fName);
+            SectionVariableValueRecord record = this.OptRecord(table, section, key)
+                .orElseGet(() -> new SectionVariableValueRecord(table, section, key, value));
+            record.value(value);
+            record.changed(true);
+            record.merge();
+        });
+        this.notifyWrite(fName, key);
     }
 
     /**
@@ -821,6 +960,19 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
             return;
         }
 
+        this.touches.update(fName, section, keys, () -> this.increaseBatchString(fName, section, keys, amount));
+    }
+
+    /**
+     * Performs {@link #IncreaseBatchString(String, String, String[], String)}, without regard to values pending from
+     * {@link #touch(String, String, String)}
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section; {@code null} for all sections
+     * @param keys the values of the {@code variable} column to update
+     * @param amount the value to increase the {@code value} column by
+     */
+    private void increaseBatchString(String fName, String section, String[] keys, int amount) {
         SectionVariableValueTable table = SectionVariableValueTable.instance(DataStore.PREFIX + fName, false);
 
         if (table != null) {
@@ -864,9 +1016,95 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
 
                 c.dsl().commit().execute();
             });
+
+            for (String key : keys) {
+                this.notifyWrite(fName, key);
+            }
+        }
+    }
+
+    /**
+     * Increases the value of the {@code value} column as an integer for the login of every user currently in chat, in a single batch
+     * <p>
+     * The keys are the lower-case user logins, as provided by {@link ViewerCache#forEachChatterLogin(Consumer)}
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section; {@code null} for all sections
+     * @param value the value to increase the {@code value} column by
+     */
+    public void IncreaseChattersString(String fName, String section, String value) {
+        this.IncreaseChattersString(fName, section, value, null);
+    }
+
+    /**
+     * Increases the value of the {@code value} column as an integer for the login of every user currently in chat, in a single batch
+     * <p>
+     * The keys are the lower-case user logins, as provided by {@link ViewerCache#forEachChatterLogin(Consumer)}
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section; {@code null} for all sections
+     * @param value the value to increase the {@code value} column by
+     * @param exclude the user logins to skip; {@code null} to skip nobody
+     */
+    public void IncreaseChattersString(String fName, String section, String value, Collection<?> exclude) {
+        String[] keys = chatterKeys(false, exclude);
+
+        if (keys.length > 0) {
+            this.IncreaseBatchString(fName, section, keys, value);
         }
     }
 
+    /**
+     * Increases the value of the {@code value} column as an integer for the login of every user currently in chat, who has sent a
+     * message in the past 5 minutes, in a single batch
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section; {@code null} for all sections
+     * @param value the value to increase the {@code value} column by
+     * @param exclude the user logins to skip; {@code null} to skip nobody
+     */
+    public void IncreaseActiveChattersString(String fName, String section, String value, Collection<?> exclude) {
+        String[] keys = chatterKeys(true, exclude);
+
+        if (keys.length > 0) {
+            this.IncreaseBatchString(fName, section, keys, value);
+        }
+    }
+
+    /**
+     * Collects the lower-case logins of the users currently in chat
+     *
+     * @param activeOnly {@code true} to only collect users who have sent a message in the past 5 minutes
+     * @param exclude the user logins to skip; {@code null} to skip nobody
+     * @return the user logins
+     */
+    private static String[] chatterKeys(boolean activeOnly, Collection<?> exclude) {
+        final Set<String> excluded = new HashSet<>();
+        final List<String> keys = new ArrayList<>();
+
+        if (exclude != null) {
+            for (Object login : exclude) {
+                if (login != null) {
+                    excluded.add(login.toString().toLowerCase());
+                }
+            }
+        }
+
+        Consumer<String> collector = login -> {
+            if (!excluded.contains(login)) {
+                keys.add(login);
+            }
+        };
+
+        if (activeOnly) {
+            ViewerCache.instance().forEachActiveChatterLogin(collector);
+        } else {
+            ViewerCache.instance().forEachChatterLogin(collector);
+        }
+
+        return keys.toArray(String[]::new);
+    }
+
     /**
      * Performs a bulk {@link #SetString(String, String, String, String)} operation, using available database features to do so more efficiently.
      * <p>
@@ -878,6 +1116,19 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
      * @param values the new values to set the {@code value} column to
      */
     public void SetBatchString(String fName, String section, String[] keys, String[] values) {
+        this.touches.overwrite(fName, section, keys, () -> this.writeBatchString(fName, section, keys, values));
+    }
+
+    /**
+     * Performs {@link #SetBatchString(String, String, String[], String[])}, without regard to values pending from
+     * {@link #touch(String, String, String)}
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section; {@code null} for all sections
+     * @param keys the values of the {@code variable} column to update
+     * @param values the new values to set the {@code value} column to
+     */
+    void writeBatchString(String fName, String section, String[] keys, String[] values) {
         SectionVariableValueTable table = SectionVariableValueTable.instance(DataStore.PREFIX + fName);
 
         if (table != null) {
@@ -901,6 +1152,10 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
 
                 c.dsl().commit().execute();
             });
+
+            for (int i = 0; i < Math.min(keys.length, values.length); i++) {
+                this.notifyWrite(fName, keys[i]);
+            }
         }
     }
 
@@ -997,7 +1252,12 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
         }
         record.value(sval);
         record.changed(true);
-        return record.merge() == 1;
+        if (record.merge() == 1) {
+            this.notifyWrite(fName, key);
+            return true;
+        }
+
+        return false;
     }
 
     /**
@@ -1259,14 +1519,18 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
 
         if (otbl.isPresent()) {
             Table<?> tbl = otbl.get();
-            if (section == null) {
-                dsl().deleteFrom(tbl)
-                .where(field("variable", tbl).eq(key)).execute();
-            } else {
-                dsl().deleteFrom(tbl)
-                .where(field("section", tbl).eq(section),
-                field("variable", tbl).eq(key)).execute();
-            }
+            this.touches.overwrite(fName, section, new String[]{key}, () -> {
+                if (section == null) {
+                    dsl().deleteFrom(tbl)
+                    .where(field("variable", tbl).eq(key)).execute();
+                } else {
+                    dsl().deleteFrom(tbl)
+                    .where(field("section", tbl).eq(section),
+                    field("variable", tbl).eq(key)).execute();
+                }
+            });
+
+            this.notifyWrite(fName, key);
         }
     }
 
@@ -1281,8 +1545,12 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
 
         if (otbl.isPresent()) {
             Table<?> tbl = otbl.get();
-            dsl().deleteFrom(tbl)
-            .where(field("section", tbl).eq(section)).execute();
+            this.touches.overwrite(fName, section, null, () -> {
+                dsl().deleteFrom(tbl)
+                .where(field("section", tbl).eq(section)).execute();
+            });
+
+            this.notifyWrite(fName, null);
         }
     }
 
@@ -1301,7 +1569,8 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
      * @param fName a table name, without the {@code phantombot_} prefix
      */
     public void RemoveFile(String fName) {
-        SectionVariableValueTable.instance(fName).drop();
+        this.touches.overwrite(fName, null, null, () -> SectionVariableValueTable.instance(fName).drop());
+        this.notifyWrite(fName, null);
     }
 
     /**
@@ -1311,7 +1580,10 @@ public sealed class DataStore permits H2Store, MySQLStore, MariaDBStore, SqliteS
      * @param fNameDest a new table name that does not yet exist, without the {@code phantombot_} prefix
      */
     public void RenameFile(String fNameSource, String fNameDest) {
+        this.touches.flush();
         SectionVariableValueTable.instance(fNameSource).rename(fNameDest);
+        this.notifyWrite(fNameSource, null);
+        this.notifyWrite(fNameDest, null);
     }
 
     /**
@@ -0,0 +1,276 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.datastore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.gmt2001.util.concurrent.ExecutorService;
+
+import tv.phantombot.CaselessProperties;
+
+/**
+ * Accumulates high-churn writes to the default section of a table in memory and flushes them on an interval
+ * <p>
+ * Only the latest value of each key is kept, so repeated writes to the same key between flushes only result in one row being written
+ * <p>
+ * Direct writes to keys with a pending value go through {@link #overwrite(String, String, String[], Runnable)} or
+ * {@link #update(String, String, String[], Runnable)}, which order them against the flush, so the older pending value never replaces them
+ *
+ * @author gmt2001
+ */
+final class TouchAccumulator {
+    /**
+     * The maximum number of rows written in one batch
+     */
+    private static final int BATCH_SIZE = 500;
+    private final DataStore dataStore;
+    private final ConcurrentMap<String, ConcurrentMap<String, String>> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private boolean scheduled = false;
+
+    /**
+     * Constructor
+     *
+     * @param dataStore the {@link DataStore} to flush to
+     */
+    TouchAccumulator(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    /**
+     * Starts the flush timer, if it is not yet running
+     */
+    private synchronized void schedule() {
+        if (!this.scheduled) {
+            /**
+             * @botproperty datastoretouchinterval - The interval, in seconds, at which values written with `$.inidb.touch` are flushed to the database. Default `30`
+             * @botpropertycatsort datastoretouchinterval 430 30 Datastore
+             */
+            long interval = Math.max(1L, CaselessProperties.instance().getPropertyAsLong("datastoretouchinterval", 30L));
+            ExecutorService.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.SECONDS);
+            this.scheduled = true;
+        }
+    }
+
+    /**
+     * Records the latest value of a key
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param key the value of the {@code variable} column
+     * @param value the new value of the {@code value} column
+     */
+    void touch(String fName, String key, String value) {
+        if (!this.scheduled) {
+            this.schedule();
+        }
+
+        this.pending.computeIfAbsent(fName.toLowerCase(), k -> new ConcurrentHashMap<>()).put(key, value);
+    }
+
+    /**
+     * Returns the pending value of a key
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param key the value of the {@code variable} column
+     * @return the pending value; {@code null} if there is no pending value
+     */
+    String peek(String fName, String key) {
+        if (this.pending.isEmpty()) {
+            return null;
+        }
+
+        Map<String, String> table = this.pending.get(fName.toLowerCase());
+
+        return table == null ? null : table.get(key);
+    }
+
+    /**
+     * Returns the pending values which a direct write to the database affects
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section; {@code null} for all sections
+     * @param keys the values of the {@code variable} column which are written; {@code null} for the entire table
+     * @return the affected pending values; {@code null} if there are none
+     */
+    private Map<String, String> affected(String fName, String section, String[] keys) {
+        if (this.pending.isEmpty() || (section != null && !section.isEmpty())) {
+            return null;
+        }
+
+        Map<String, String> table = this.pending.get(fName.toLowerCase());
+
+        if (table == null || table.isEmpty()) {
+            return null;
+        }
+
+        Map<String, String> affected = new HashMap<>();
+
+        if (keys == null) {
+            affected.putAll(table);
+        } else {
+            for (String key : keys) {
+                String value = table.get(key);
+
+                if (value != null) {
+                    affected.put(key, value);
+                }
+            }
+        }
+
+        return affected.isEmpty() ? null : affected;
+    }
+
+    /**
+     * Performs a direct write which replaces or deletes keys, and discards their pending values
+     * <p>
+     * If any of the keys has a pending value, the write is performed while holding the flush lock, so that a flush which is in progress
+     * can not overwrite it with the older pending value afterwards. Only the pending values which were seen before the write are
+     * discarded, and only once the write has succeeded
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section; {@code null} for all sections
+     * @param keys the values of the {@code variable} column which are written; {@code null} for the entire table
+     * @param write the write
+     */
+    void overwrite(String fName, String section, String[] keys, Runnable write) {
+        Map<String, String> affected = this.affected(fName, section, keys);
+
+        if (affected == null) {
+            write.run();
+            return;
+        }
+
+        this.flushLock.lock();
+        try {
+            write.run();
+            this.discard(fName, affected);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Performs a direct write which changes keys relative to their current value, such as an increment
+     * <p>
+     * If any of the keys has a pending value, the pending values of those keys are written first, while holding the flush lock, so that
+     * the write applies to the latest value
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param section a section name. {@code ""} (empty string) for the default section; {@code null} for all sections
+     * @param keys the values of the {@code variable} column which are written
+     * @param write the write
+     */
+    void update(String fName, String section, String[] keys, Runnable write) {
+        Map<String, String> affected = this.affected(fName, section, keys);
+
+        if (affected == null) {
+            write.run();
+            return;
+        }
+
+        this.flushLock.lock();
+        try {
+            List<String> pkeys = new ArrayList<>(affected.keySet());
+            List<String> pvalues = new ArrayList<>(pkeys.size());
+            pkeys.forEach(key -> pvalues.add(affected.get(key)));
+            this.dataStore.writeBatchString(fName, "", pkeys.toArray(String[]::new), pvalues.toArray(String[]::new));
+            this.discard(fName, affected);
+            write.run();
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Discards pending values which were written to the database, unless they have been touched again since
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param written the values which were written
+     */
+    private void discard(String fName, Map<String, String> written) {
+        Map<String, String> table = this.pending.get(fName.toLowerCase());
+
+        if (table != null) {
+            written.forEach(table::remove);
+        }
+    }
+
+    /**
+     * Writes all pending values to the database
+     * <p>
+     * The values stay readable through {@link #peek(String, String)} until they have been written, and are then only removed if they
+     * have not been touched again, otherwise the newer value is picked up by the next flush
+     */
+    void flush() {
+        this.flushLock.lock();
+        try {
+            this.pending.forEach((fName, table) -> {
+                List<String> keys = new ArrayList<>();
+                List<String> values = new ArrayList<>();
+
+                table.forEach((key, value) -> {
+                    keys.add(key);
+                    values.add(value);
+
+                    if (keys.size() >= BATCH_SIZE) {
+                        this.write(fName, table, keys, values);
+                    }
+                });
+
+                if (!keys.isEmpty()) {
+                    this.write(fName, table, keys, values);
+                }
+            });
+        } catch (Exception ex) {
+            com.gmt2001.Console.err.printStackTrace(ex);
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a batch of values to the database and clears the lists
+     * <p>
+     * If the write fails, the values stay pending and are retried by the next flush
+     *
+     * @param fName a table name, without the {@code phantombot_} prefix
+     * @param table the pending values of the table
+     * @param keys the values of the {@code variable} column to update
+     * @param values the new values of the {@code value} column
+     */
+    private void write(String fName, Map<String, String> table, List<String> keys, List<String> values) {
+        try {
+            this.dataStore.writeBatchString(fName, "", keys.toArray(String[]::new), values.toArray(String[]::new));
+
+            for (int i = 0; i < keys.size(); i++) {
+                table.remove(keys.get(i), values.get(i));
+            }
+        } catch (Exception ex) {
+            com.gmt2001.Console.err.printStackTrace(ex);
+        } finally {
+            keys.clear();
+            values.clear();
+        }
+    }
+}
@@ -89,13 +89,25 @@ public final class EventLoopDetector {
      * @return the {@link EventLoopGroup}
      */
     public static EventLoopGroup createEventLoopGroup() {
+        return createEventLoopGroup(0);
+    }
+
+    /**
+     * If an operating system specific {@link EventLoopGroup} is available, returns a new instance of it
+     * <p>
+     * Otherwise, returns an instance of {@link NioEventLoopGroup}
+     *
+     * @param nThreads The number of threads; {@code 0} for the Netty default of twice the number of processors
+     * @return the {@link EventLoopGroup}
+     */
+    public static EventLoopGroup createEventLoopGroup(int nThreads) {
         if (ISEPOLLAVAILABLE) {
-            return new MultiThreadIoEventLoopGroup(EpollIoHandler.newFactory());
+            return new MultiThreadIoEventLoopGroup(nThreads, EpollIoHandler.newFactory());
         } else if (ISKQUEUEAVAILABLE) {
-            return new MultiThreadIoEventLoopGroup(KQueueIoHandler.newFactory());
+            return new MultiThreadIoEventLoopGroup(nThreads, KQueueIoHandler.newFactory());
         }
 
-        return new MultiThreadIoEventLoopGroup(NioIoHandler.newFactory());
+        return new MultiThreadIoEventLoopGroup(nThreads, NioIoHandler.newFactory());
     }
 
     /**
@@ -50,9 +50,11 @@ import com.gmt2001.httpwsserver.x509.SelfSignedX509CertificateGenerator;
 import com.gmt2001.util.concurrent.ExecutorService;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.util.IllegalReferenceCountException;
@@ -90,9 +92,13 @@ public final class HTTPWSServer {
         }
     }
     /**
-     * The server's {@link EventLoopGroup}
+     * The server's {@link EventLoopGroup} which accepts connections
      */
-    private final EventLoopGroup group = EventLoopDetector.createEventLoopGroup();
+    private final EventLoopGroup bossGroup;
+    /**
+     * The server's {@link EventLoopGroup} which handles accepted connections
+     */
+    private final EventLoopGroup group;
     /**
      * The server's listen {@link Channel}
      */
@@ -126,6 +132,19 @@ public final class HTTPWSServer {
      * Constructor
      */
     private HTTPWSServer() {
+        /**
+         * @botproperty httpwsbossthreads - The number of threads which accept new connections to the bots webserver. Default `1`
+         * @botpropertycatsort httpwsbossthreads 500 700 HTTP/WS
+         * @botpropertyrestart httpwsbossthreads
+         */
+        /**
+         * @botproperty httpwsworkerthreads - The number of threads which handle requests and websockets on the bots webserver. `0` for twice the number of processors. Default `0`
+         * @botpropertycatsort httpwsworkerthreads 510 700 HTTP/WS
+         * @botpropertyrestart httpwsworkerthreads
+         */
+        this.bossGroup = EventLoopDetector.createEventLoopGroup(Math.max(1, CaselessProperties.instance().getPropertyAsInt("httpwsbossthreads", 1)));
+        this.group = EventLoopDetector.createEventLoopGroup(Math.max(0, CaselessProperties.instance().getPropertyAsInt("httpwsworkerthreads", 0)));
+
         /**
          * @botproperty bindip - The IP address the bots webserver runs on. Default all
          * @botpropertycatsort bindip 200 700 HTTP/WS
@@ -195,12 +214,48 @@ public final class HTTPWSServer {
                 this.sslCtx = null;
             }
 
+            /**
+             * @botproperty httpwsbacklog - The maximum number of connections to the bots webserver which may wait to be accepted. Default `1024`
+             * @botpropertycatsort httpwsbacklog 520 700 HTTP/WS
+             * @botpropertyrestart httpwsbacklog
+             */
+            /**
+             * @botproperty httpwstcpnodelay - If `true`, small writes on the bots webserver are sent immediately instead of being coalesced by the OS (disables Nagle's algorithm). Default `true`
+             * @botpropertycatsort httpwstcpnodelay 530 700 HTTP/WS
+             * @botpropertyrestart httpwstcpnodelay
+             */
+            /**
+             * @botproperty httpwspooledbuffers - If `true`, the bots webserver uses pooled direct buffers for network I/O. Default `true`
+             * @botpropertycatsort httpwspooledbuffers 540 700 HTTP/WS
+             * @botpropertyrestart httpwspooledbuffers
+             */
+            /**
+             * @botproperty httpwswritebufferlowkb - When the data queued for a slow client falls below this many kilobytes, the bots webserver resumes streaming to it. Default `64`
+             * @botpropertycatsort httpwswritebufferlowkb 550 700 HTTP/WS
+             * @botpropertyrestart httpwswritebufferlowkb
+             */
+            /**
+             * @botproperty httpwswritebufferhighkb - When the data queued for a slow client exceeds this many kilobytes, the bots webserver pauses streaming to it. Default `256`
+             * @botpropertycatsort httpwswritebufferhighkb 560 700 HTTP/WS
+             * @botpropertyrestart httpwswritebufferhighkb
+             */
+            int writeBufferLow = Math.max(1, CaselessProperties.instance().getPropertyAsInt("httpwswritebufferlowkb", 64)) * 1024;
+            int writeBufferHigh = Math.max(writeBufferLow, CaselessProperties.instance().getPropertyAsInt("httpwswritebufferhighkb", 256) * 1024);
+
             ServerBootstrap b = new ServerBootstrap();
-            b.group(this.group)
+            b.group(this.bossGroup, this.group)
                     .channel(EventLoopDetector.getServerChannelClass())
-                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .option(ChannelOption.SO_BACKLOG, Math.max(1, CaselessProperties.instance().getPropertyAsInt("httpwsbacklog", 1024)))
+                    .childOption(ChannelOption.TCP_NODELAY, CaselessProperties.instance().getPropertyAsBoolean("httpwstcpnodelay", true))
+                    .childOption(ChannelOption.SO_KEEPALIVE, true)
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(writeBufferLow, writeBufferHigh))
                     .childHandler(new HTTPWSServerInitializer());
 
+            if (CaselessProperties.instance().getPropertyAsBoolean("httpwspooledbuffers", true)) {
+                b.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+            }
+
             if (ipOrHostname.isBlank()) {
                 this.ch = b.bind(port).sync().channel();
             } else {
@@ -222,6 +277,7 @@ public final class HTTPWSServer {
             }
         } catch (IOException | NoSuchAlgorithmException | CertificateException | KeyStoreException | UnrecoverableKeyException | InterruptedException ex) {
             com.gmt2001.Console.err.printStackTrace(ex);
+            this.bossGroup.shutdownGracefully();
             this.group.shutdownGracefully();
         }
     }
@@ -247,6 +303,15 @@ public final class HTTPWSServer {
         return this.sslEnabled || CaselessProperties.instance().getPropertyAsBoolean("proxybypasshttps", false);
     }
 
+    /**
+     * Returns the number of tasks waiting in the queues of the event loops of the server
+     *
+     * @return The total number of pending tasks; {@code -1} if the event loops do not report it
+     */
+    public int pendingTasks() {
+        return HttpWsMetrics.pendingTasks(this.group);
+    }
+
     public boolean isAutoSsl() {
         return this.autoSSL;
     }
@@ -558,6 +623,10 @@ public final class HTTPWSServer {
             this.ch2.close().awaitUninterruptibly(5, TimeUnit.SECONDS);
         }
 
+        if (this.bossGroup != null) {
+            this.bossGroup.shutdownGracefully(3, 5, TimeUnit.SECONDS);
+        }
+
         if (this.group != null) {
             this.group.shutdownGracefully(3, 5, TimeUnit.SECONDS);
         }
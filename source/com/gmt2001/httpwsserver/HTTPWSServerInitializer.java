@@ -19,11 +19,17 @@ package com.gmt2001.httpwsserver;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.DeflateFrameServerExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
 import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
@@ -41,12 +47,114 @@ class HTTPWSServerInitializer extends ChannelInitializer<SocketChannel> {
      * (64KB)
      */
     public static final int MAX_WS_FRAME_SIZE = 64*1024;
-    
+    /**
+     * The minimum length of an HTTP response with a known length which is compressed
+     */
+    private final int httpCompressMinBytes;
+    /**
+     * The minimum length of a WebSocket message which is compressed
+     */
+    private final int wsCompressMinBytes;
+    /**
+     * The compression level of WebSocket messages
+     */
+    private final int wsCompressLevel;
+    /**
+     * The window size which is requested from clients which support setting it, in bits
+     */
+    private final int wsClientWindowBits;
+    /**
+     * If the server accepts a client request to reset the compression context after each message
+     */
+    private final boolean wsAllowServerNoContext;
+    /**
+     * If the server asks clients to reset their compression context after each message
+     */
+    private final boolean wsPreferClientNoContext;
+    /**
+     * How long outbound messages of a WebSocket session which asked for batching are held, in milliseconds
+     */
+    private final long wsBatchMS;
+
     /**
      * Constructor
      */
     public HTTPWSServerInitializer() {
         super();
+        /**
+         * @botproperty httpcompressminbytes - HTTP responses smaller than this many bytes are sent without compression. Default `1024`
+         * @botpropertycatsort httpcompressminbytes 570 700 HTTP/WS
+         * @botpropertyrestart httpcompressminbytes
+         */
+        this.httpCompressMinBytes = Math.max(0, CaselessProperties.instance().getPropertyAsInt("httpcompressminbytes", 1024));
+        /**
+         * @botproperty wscompressminbytes - WebSocket messages smaller than this many bytes are sent without compression. Default `256`
+         * @botpropertycatsort wscompressminbytes 580 700 HTTP/WS
+         * @botpropertyrestart wscompressminbytes
+         */
+        this.wsCompressMinBytes = Math.max(0, CaselessProperties.instance().getPropertyAsInt("wscompressminbytes", 256));
+        /**
+         * @botproperty wscompresslevel - The compression level of WebSocket messages, from `1` (fastest) to `9` (smallest). Default `6`
+         * @botpropertycatsort wscompresslevel 590 700 HTTP/WS
+         * @botpropertyrestart wscompresslevel
+         */
+        this.wsCompressLevel = Math.max(1, Math.min(9, CaselessProperties.instance().getPropertyAsInt("wscompresslevel", 6)));
+        /**
+         * @botproperty wsclientwindowbits - The compression window size requested from WebSocket clients which support it, in bits, from `8` to `15`. Default `15`
+         * @botpropertycatsort wsclientwindowbits 600 700 HTTP/WS
+         * @botpropertyrestart wsclientwindowbits
+         */
+        this.wsClientWindowBits = Math.max(PerMessageDeflateServerExtensionHandshaker.MIN_WINDOW_SIZE,
+                Math.min(PerMessageDeflateServerExtensionHandshaker.MAX_WINDOW_SIZE, CaselessProperties.instance().getPropertyAsInt("wsclientwindowbits",
+                        PerMessageDeflateServerExtensionHandshaker.MAX_WINDOW_SIZE)));
+        /**
+         * @botproperty wsallowservernocontext - If `true`, WebSocket clients may ask the bot to compress each message without the context of the previous messages, which uses less memory but compresses worse. Default `false`
+         * @botpropertycatsort wsallowservernocontext 610 700 HTTP/WS
+         * @botpropertyrestart wsallowservernocontext
+         */
+        this.wsAllowServerNoContext = CaselessProperties.instance().getPropertyAsBoolean("wsallowservernocontext", false);
+        /**
+         * @botproperty wspreferclientnocontext - If `true`, WebSocket clients are asked to compress each message without the context of the previous messages. Default `false`
+         * @botpropertycatsort wspreferclientnocontext 620 700 HTTP/WS
+         * @botpropertyrestart wspreferclientnocontext
+         */
+        this.wsPreferClientNoContext = CaselessProperties.instance().getPropertyAsBoolean("wspreferclientnocontext", false);
+        /**
+         * @botproperty wsbatchms - Messages sent within this many milliseconds to a WebSocket client which supports batching are combined into one frame. `0` to disable. Default `5`
+         * @botpropertycatsort wsbatchms 630 700 HTTP/WS
+         * @botpropertyrestart wsbatchms
+         */
+        this.wsBatchMS = Math.max(0L, Math.min(1000L, CaselessProperties.instance().getPropertyAsLong("wsbatchms", 5L)));
+    }
+
+    /**
+     * Creates the handler which negotiates WebSocket compression
+     * <p>
+     * This is equivalent to {@link WebSocketServerCompressionHandler}, except that messages smaller than {@link #wsCompressMinBytes}
+     * are sent uncompressed, since the deflate overhead outweighs the savings on tiny frames, and that the compression level, window
+     * size, and context takeover are configurable
+     *
+     * @return The handler
+     */
+    private WebSocketServerExtensionHandler newWsCompressionHandler() {
+        WebSocketExtensionFilter skipSmall = frame -> !(frame instanceof ContinuationWebSocketFrame) && frame.isFinalFragment()
+                && frame.content().readableBytes() < this.wsCompressMinBytes;
+        WebSocketExtensionFilterProvider filters = new WebSocketExtensionFilterProvider() {
+            @Override
+            public WebSocketExtensionFilter encoderFilter() {
+                return skipSmall;
+            }
+
+            @Override
+            public WebSocketExtensionFilter decoderFilter() {
+                return WebSocketExtensionFilter.NEVER_SKIP;
+            }
+        };
+
+        return new WebSocketServerExtensionHandler(
+                new PerMessageDeflateServerExtensionHandshaker(this.wsCompressLevel, ZlibCodecFactory.isSupportingWindowSizeAndMemLevel(),
+                        this.wsClientWindowBits, this.wsAllowServerNoContext, this.wsPreferClientNoContext, filters, 4*MAX_WS_FRAME_SIZE),
+                new DeflateFrameServerExtensionHandshaker(this.wsCompressLevel, filters, 4*MAX_WS_FRAME_SIZE));
     }
 
     /**
@@ -66,6 +174,7 @@ class HTTPWSServerInitializer extends ChannelInitializer<SocketChannel> {
         }
 
         pipeline.addLast(new HttpServerCodec());
+        pipeline.addLast(new HttpWsMetricsHandler());
         pipeline.addLast(new HttpObjectAggregator(65536));
         /**
          * @botproperty httpwsserverdebug - If `true`, requests at the webserver are logged in `./logs/request`. default `false`
@@ -75,10 +184,14 @@ class HTTPWSServerInitializer extends ChannelInitializer<SocketChannel> {
             pipeline.addLast(new RequestLogger());
         }
         pipeline.addLast(new WebSocketFrameAggregator(MAX_WS_FRAME_SIZE));
-        pipeline.addLast(new WebSocketServerCompressionHandler(4*MAX_WS_FRAME_SIZE));
+        pipeline.addLast(this.newWsCompressionHandler());
         pipeline.addLast(new WebSocketServerProtocolHandler("/ws", null, true, 65536, false, true));
-        pipeline.addLast(new HttpContentCompressor());
+        if (this.wsBatchMS > 0L) {
+            pipeline.addLast(new WsBatchingHandler(this.wsBatchMS));
+        }
+        pipeline.addLast(new SelectiveHttpContentCompressor(this.httpCompressMinBytes));
         pipeline.addLast(new ChunkedWriteHandler());   
+        pipeline.addLast(new SetCookieHandler());
         pipeline.addLast("pagehandler", new HttpServerPageHandler());
         pipeline.addLast("wshandler", new WebSocketFrameHandler());
     }
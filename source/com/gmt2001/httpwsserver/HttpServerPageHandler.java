@@ -44,6 +44,7 @@ import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedFile;
+import io.netty.handler.stream.ChunkedInput;
 import io.netty.util.CharsetUtil;
 import java.io.File;
 import java.io.IOException;
@@ -151,10 +152,22 @@ public class HttpServerPageHandler extends SimpleChannelInboundHandler<FullHttpR
      * @return The {@link HttpRequestHandler} to use, or {@code null} if none were found
      */
     static HttpRequestHandler determineHttpRequestHandler(String uri) {
+        String bestMatch = determineHttpRequestHandlerPath(uri);
+
+        return bestMatch.isBlank() ? null : httpRequestHandlers.get(bestMatch);
+    }
+
+    /**
+     * Determines the registered path of the best {@link HttpRequestHandler} to use for a given URI
+     *
+     * @param uri The URI to check
+     * @return The path the {@link HttpRequestHandler} was registered with, or {@code ""} if none were found
+     */
+    static String determineHttpRequestHandlerPath(String uri) {
         String bestMatch = "";
 
         if (URLDecoder.decode(uri, Charset.forName("UTF-8")).contains("..")) {
-            return null;
+            return bestMatch;
         }
 
         for (String k : httpRequestHandlers.keySet()) {
@@ -163,7 +176,7 @@ public class HttpServerPageHandler extends SimpleChannelInboundHandler<FullHttpR
             }
         }
 
-        return bestMatch.isBlank() ? null : httpRequestHandlers.get(bestMatch);
+        return bestMatch;
     }
 
     /**
@@ -427,17 +440,19 @@ public class HttpServerPageHandler extends SimpleChannelInboundHandler<FullHttpR
         long rangeEnd = fileLength - 1;
         boolean isRange = false;
         
-        // Range requests
-        try {
-            long[] rangeBoundaries = parseRangeRequest(ctx, req, fileLength);
-            if (rangeBoundaries != null) {
-                rangeStart = rangeBoundaries[0];
-                rangeEnd = rangeBoundaries[1];
-                isRange = true;
+        // Range requests, unless a resumed download is for an older version of the file, which has to start over
+        if (ifRangeMatches(req, file)) {
+            try {
+                long[] rangeBoundaries = parseRangeRequest(ctx, req, fileLength);
+                if (rangeBoundaries != null) {
+                    rangeStart = rangeBoundaries[0];
+                    rangeEnd = rangeBoundaries[1];
+                    isRange = true;
+                }
+            } catch (Exception e) {
+                //Invalid range request client has been informed channel closed
+                return;
             }
-        } catch (Exception e) {
-            //Invalid range request client has been informed channel closed
-            return;
         }
 
         HttpResponseStatus status = isRange ? HttpResponseStatus.PARTIAL_CONTENT
@@ -518,6 +533,115 @@ public class HttpServerPageHandler extends SimpleChannelInboundHandler<FullHttpR
         if (!keepAlive) lastContentFuture.addListener(ChannelFutureListener.CLOSE);
     }
 
+    /**
+     * Sends a static file from the {@link StaticResourceCache}, using the precompressed variant which the client accepts
+     * <p>
+     * The response carries a strong {@code ETag} for the selected variant and asks the client to revalidate on every use, so an unchanged
+     * file is answered with {@link HttpResponseStatus#NOT_MODIFIED}. Files which are too large for the cache are sent with {@link #sendFile}
+     *
+     * @param ctx The {@link ChannelHandlerContext} of the session
+     * @param req The {@link FullHttpRequest} containing the request
+     * @param path The {@link Path} of the file to be served
+     * @throws IOException if the file cannot be opened or read
+     */
+    public static void sendCachedFile(ChannelHandlerContext ctx, FullHttpRequest req, Path path) throws IOException {
+        sendCachedFile(ctx, req, path, Collections.emptyMap());
+    }
+
+    /**
+     * Sends a static file from the {@link StaticResourceCache}, using the precompressed variant which the client accepts
+     * <p>
+     * The response carries a strong {@code ETag} for the selected variant and asks the client to revalidate on every use, so an unchanged
+     * file is answered with {@link HttpResponseStatus#NOT_MODIFIED}. Files which are too large for the cache, and range requests, are sent
+     * with {@link #sendFile}
+     *
+     * @param ctx The {@link ChannelHandlerContext} of the session
+     * @param req The {@link FullHttpRequest} containing the request
+     * @param path The {@link Path} of the file to be served
+     * @param headers Extra headers to include in the response
+     * @throws IOException if the file cannot be opened or read
+     */
+    public static void sendCachedFile(ChannelHandlerContext ctx, FullHttpRequest req, Path path, Map<CharSequence, Object> headers) throws IOException {
+        StaticResourceCache.Resource resource = req.headers().contains(HttpHeaderNames.RANGE) ? null : StaticResourceCache.instance().get(path);
+
+        if (resource == null) {
+            sendFile(ctx, req, path, headers);
+            return;
+        }
+
+        StaticResourceCache.Variant variant = resource.select(req.headers().get(HttpHeaderNames.ACCEPT_ENCODING));
+        boolean keepAlive = HttpUtil.isKeepAlive(req);
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, detectContentType(resource.fileName()));
+        response.headers().set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        response.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+        for (Map.Entry<CharSequence, Object> entry : headers.entrySet()) {
+            response.headers().set(entry.getKey(), entry.getValue());
+        }
+
+        boolean notModified = checkIfClientCacheMatches(req, response, variant.eTag(), resource.lastModified());
+        response.headers().remove(HttpHeaderNames.EXPIRES);
+        response.headers().set(HttpHeaderNames.CACHE_CONTROL, "private, no-cache, no-transform");
+
+        if (notModified) {
+            ctx.write(response);
+            ChannelFuture f = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+            if (!keepAlive) {
+                f.addListener(ChannelFutureListener.CLOSE);
+            }
+            return;
+        }
+
+        // An explicit encoding, including identity, keeps HttpContentCompressor from compressing the body again
+        response.headers().set(HttpHeaderNames.CONTENT_ENCODING, variant.encoding());
+        HttpUtil.setContentLength(response, variant.content().length);
+
+        if (req.method() == HttpMethod.HEAD) {
+            sendResponseForHEAD(ctx, req, response);
+            return;
+        }
+
+        FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(variant.content()),
+                response.headers(), EmptyHttpHeaders.INSTANCE);
+        sendHttpResponse(ctx, req, res);
+    }
+
+    /**
+     * Streams a response body from a {@link ChunkedInput}, using chunked transfer encoding
+     * <p>
+     * The body is pulled from {@code input} by {@link io.netty.handler.stream.ChunkedWriteHandler} only while the channel is writable
+     *
+     * @param ctx The {@link ChannelHandlerContext} of the session
+     * @param req The {@link FullHttpRequest} containing the request
+     * @param input The source of the response body
+     * @param contentType The value of the {@code Content-Type} header
+     */
+    public static void sendChunked(ChannelHandlerContext ctx, FullHttpRequest req, ChunkedInput<ByteBuf> input, String contentType) {
+        boolean keepAlive = HttpUtil.isKeepAlive(req);
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        response.headers().set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_STORE);
+        response.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
+
+        if (req.method() == HttpMethod.HEAD) {
+            try {
+                input.close();
+            } catch (Exception ex) {
+                com.gmt2001.Console.debug.printStackTrace(ex);
+            }
+            sendResponseForHEAD(ctx, req, response);
+            return;
+        }
+
+        HttpUtil.setTransferEncodingChunked(response, true);
+        ctx.write(response);
+        ChannelFuture lastContentFuture = ctx.writeAndFlush(new HttpChunkedInput(input));
+
+        if (!keepAlive) {
+            lastContentFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
     /**
      * Sends in-memory content using the same conditional caching headers as {@link #sendFile},
      * with a caller-supplied strong {@code ETag} instead of file size / last-modified.
@@ -530,13 +654,35 @@ public class HttpServerPageHandler extends SimpleChannelInboundHandler<FullHttpR
      * @return {@code true} when {@link HttpResponseStatus#NOT_MODIFIED} was sent
      */
     public static boolean sendCachedBytes(ChannelHandlerContext ctx, FullHttpRequest req, byte[] content, String fileNameOrType, String eTag) {
+        return sendCachedBytes(ctx, req, content, fileNameOrType, eTag, Collections.emptyMap());
+    }
+
+    /**
+     * Sends in-memory content using the same conditional caching headers as {@link #sendFile},
+     * with a caller-supplied strong {@code ETag} instead of file size / last-modified.
+     *
+     * @param ctx The {@link ChannelHandlerContext} of the session
+     * @param req The {@link FullHttpRequest} containing the request
+     * @param content Response body bytes
+     * @param fileNameOrType Filename or extension for MIME type detection
+     * @param eTag Strong ETag value (quoted), used for {@code ETag} / {@code If-None-Match}
+     * @param headers Extra headers to include in the response, which replace the caching headers of the same name
+     * @return {@code true} when {@link HttpResponseStatus#NOT_MODIFIED} was sent
+     */
+    public static boolean sendCachedBytes(ChannelHandlerContext ctx, FullHttpRequest req, byte[] content, String fileNameOrType, String eTag,
+            Map<CharSequence, Object> headers) {
         boolean keepAlive = HttpUtil.isKeepAlive(req);
         HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
         String contentType = detectContentType(fileNameOrType);
         response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
         response.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
 
-        if (checkIfClientCacheMatches(req, response, eTag, 0L)) {
+        boolean notModified = checkIfClientCacheMatches(req, response, eTag, 0L);
+        for (Map.Entry<CharSequence, Object> entry : headers.entrySet()) {
+            response.headers().set(entry.getKey(), entry.getValue());
+        }
+
+        if (notModified) {
             ctx.write(response);
             ChannelFuture f = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
             if (!keepAlive) {
@@ -553,6 +699,9 @@ public class HttpServerPageHandler extends SimpleChannelInboundHandler<FullHttpR
 
         FullHttpResponse res = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(content));
         copyCacheHeaders(response, res);
+        for (Map.Entry<CharSequence, Object> entry : headers.entrySet()) {
+            res.headers().set(entry.getKey(), entry.getValue());
+        }
         res.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
         res.headers().set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE);
         HttpUtil.setContentLength(res, content.length);
@@ -669,6 +818,35 @@ public class HttpServerPageHandler extends SimpleChannelInboundHandler<FullHttpR
         return checkIfClientCacheMatches(req, response, eTag, lastModified);
     }
 
+    /**
+     * Checks whether the {@code If-Range} header of a range request still refers to the current version of the file
+     *
+     * @param req The {@link FullHttpRequest} containing the request
+     * @param file The requested file
+     * @return {@code true} if there is no {@code If-Range} header, or it matches the {@code ETag} or {@code Last-Modified} that
+     * {@link #checkIfClientCacheMatches(FullHttpRequest, HttpResponse, File)} sends for the file
+     */
+    private static boolean ifRangeMatches(FullHttpRequest req, File file) {
+        String ifRange = req.headers().get(HttpHeaderNames.IF_RANGE);
+
+        if (ifRange == null || ifRange.isBlank()) {
+            return true;
+        }
+
+        ifRange = ifRange.trim();
+        long lastModified = file.lastModified();
+
+        if (ifRange.startsWith("W/")) {
+            // Weak validators never match for ranges
+            return false;
+        } else if (ifRange.startsWith("\"")) {
+            return ifRange.equals("\"" + file.length() + "-" + lastModified + "\"");
+        }
+
+        Date ifRangeDate = DateFormatter.parseHttpDate(ifRange);
+        return ifRangeDate != null && ifRangeDate.getTime() == (lastModified / 1000) * 1000;
+    }
+
     /**
      * @param eTag strong ETag for the representation (quoted)
      * @param lastModified {@code Last-Modified} source; {@code 0} skips {@code If-Modified-Since}
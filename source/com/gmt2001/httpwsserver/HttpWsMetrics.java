@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.httpwsserver;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONStringer;
+
+import com.gmt2001.util.LatencyHistogram;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+/**
+ * Collects request rates, latencies, payload sizes, and open connections of {@link HTTPWSServer}
+ * <p>
+ * HTTP requests are grouped by the path which their {@link HttpRequestHandler} was registered with, and WebSocket traffic by the path of
+ * the {@link WsFrameHandler}. The latency of an HTTP request is measured from when its headers are decoded until the last byte of the
+ * response has been written to the socket. The latency of a WebSocket frame is the time spent in {@link WsFrameHandler#handleFrame}.
+ * Byte counts are taken after compression, so they reflect what was sent over the network
+ *
+ * @author gmt2001
+ */
+public final class HttpWsMetrics {
+
+    private static final HttpWsMetrics INSTANCE = new HttpWsMetrics();
+    /**
+     * The route of requests which did not match any handler
+     */
+    static final String UNMATCHED = "(unmatched)";
+    private final Map<String, HttpStats> http = new ConcurrentHashMap<>();
+    private final Map<String, WsStats> ws = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final LongAdder connectionsTotal = new LongAdder();
+    private final long started = System.currentTimeMillis();
+
+    private static final class HttpStats {
+        private final LongAdder[] status = new LongAdder[6];
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private HttpStats() {
+            for (int i = 0; i < this.status.length; i++) {
+                this.status[i] = new LongAdder();
+            }
+        }
+    }
+
+    private static final class WsStats {
+        private final AtomicInteger open = new AtomicInteger();
+        private final LongAdder sessions = new LongAdder();
+        private final LongAdder framesIn = new LongAdder();
+        private final LongAdder framesOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of HttpWsMetrics
+     */
+    public static HttpWsMetrics instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private HttpWsMetrics() {
+    }
+
+    void connectionOpened() {
+        this.connections.incrementAndGet();
+        this.connectionsTotal.increment();
+    }
+
+    void connectionClosed() {
+        this.connections.decrementAndGet();
+    }
+
+    /**
+     * Records a completed HTTP request
+     *
+     * @param route The registered path of the handler
+     * @param status The response status code
+     * @param nanos The time from the request until the response was written, in nanoseconds
+     * @param bytesIn The size of the request body
+     * @param bytesOut The size of the response body
+     */
+    void recordHttp(String route, int status, long nanos, long bytesIn, long bytesOut) {
+        HttpStats stats = this.http.computeIfAbsent(route, k -> new HttpStats());
+        stats.status[Math.max(0, Math.min(5, status / 100))].increment();
+        stats.bytesIn.add(bytesIn);
+        stats.bytesOut.add(bytesOut);
+        stats.latency.record(nanos);
+    }
+
+    void wsOpened(String path) {
+        WsStats stats = this.ws(path);
+        stats.open.incrementAndGet();
+        stats.sessions.increment();
+    }
+
+    void wsClosed(String path) {
+        this.ws(path).open.decrementAndGet();
+    }
+
+    void wsFrameIn(String path, long bytes) {
+        WsStats stats = this.ws(path);
+        stats.framesIn.increment();
+        stats.bytesIn.add(bytes);
+    }
+
+    void wsFrameOut(String path, long bytes) {
+        WsStats stats = this.ws(path);
+        stats.framesOut.increment();
+        stats.bytesOut.add(bytes);
+    }
+
+    void wsHandled(String path, long nanos) {
+        this.ws(path).latency.record(nanos);
+    }
+
+    private WsStats ws(String path) {
+        return this.ws.computeIfAbsent(path, k -> new WsStats());
+    }
+
+    /**
+     * Returns the number of tasks waiting in the queues of the event loops of the server
+     *
+     * @param group The event loop group
+     * @return The total number of pending tasks; {@code -1} if the event loops do not report it
+     */
+    static int pendingTasks(EventLoopGroup group) {
+        int pending = 0;
+        boolean found = false;
+
+        for (EventExecutor executor : group) {
+            if (executor instanceof SingleThreadEventExecutor stee) {
+                pending += stee.pendingTasks();
+                found = true;
+            }
+        }
+
+        return found ? pending : -1;
+    }
+
+    /**
+     * Writes the metrics as a JSON object
+     *
+     * @param jsonObject The {@link JSONStringer} to write to
+     */
+    public void writeJson(JSONStringer jsonObject) {
+        jsonObject.object();
+        jsonObject.key("uptimeSeconds").value((System.currentTimeMillis() - this.started) / 1000L);
+        jsonObject.key("connections").object().key("open").value(this.connections.get()).key("total").value(this.connectionsTotal.sum()).endObject();
+        jsonObject.key("eventLoopPendingTasks").value(HTTPWSServer.instance().pendingTasks());
+        jsonObject.key("http").object();
+        for (Map.Entry<String, HttpStats> entry : new TreeMap<>(this.http).entrySet()) {
+            HttpStats stats = entry.getValue();
+            jsonObject.key(entry.getKey()).object();
+            jsonObject.key("requests").value(stats.latency.count());
+            jsonObject.key("status").object();
+            for (int i = 1; i < stats.status.length; i++) {
+                jsonObject.key(i + "xx").value(stats.status[i].sum());
+            }
+            jsonObject.endObject();
+            jsonObject.key("bytesIn").value(stats.bytesIn.sum());
+            jsonObject.key("bytesOut").value(stats.bytesOut.sum());
+            writeJson(jsonObject, stats.latency.snapshot());
+            jsonObject.endObject();
+        }
+        jsonObject.endObject();
+        jsonObject.key("ws").object();
+        for (Map.Entry<String, WsStats> entry : new TreeMap<>(this.ws).entrySet()) {
+            WsStats stats = entry.getValue();
+            jsonObject.key(entry.getKey()).object();
+            jsonObject.key("open").value(stats.open.get());
+            jsonObject.key("sessions").value(stats.sessions.sum());
+            jsonObject.key("framesIn").value(stats.framesIn.sum());
+            jsonObject.key("framesOut").value(stats.framesOut.sum());
+            jsonObject.key("bytesIn").value(stats.bytesIn.sum());
+            jsonObject.key("bytesOut").value(stats.bytesOut.sum());
+            writeJson(jsonObject, stats.latency.snapshot());
+            jsonObject.endObject();
+        }
+        jsonObject.endObject();
+        jsonObject.endObject();
+    }
+
+    private static void writeJson(JSONStringer jsonObject, LatencyHistogram.Snapshot snapshot) {
+        jsonObject.key("latency").object()
+            .key("count").value(snapshot.count())
+            .key("meanMillis").value(snapshot.meanMillis())
+            .key("p50Millis").value(snapshot.p50Millis())
+            .key("p90Millis").value(snapshot.p90Millis())
+            .key("p99Millis").value(snapshot.p99Millis())
+            .key("maxMillis").value(snapshot.maxMillis())
+            .endObject();
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format
+     *
+     * @param sb The {@link StringBuilder} to write to
+     */
+    public void writePrometheus(StringBuilder sb) {
+        gauge(sb, "phantombot_http_connections_open", "Open HTTP and WebSocket connections", this.connections.get());
+        counter(sb, "phantombot_http_connections_total", "Accepted HTTP and WebSocket connections", this.connectionsTotal.sum());
+        gauge(sb, "phantombot_http_eventloop_pending_tasks", "Tasks waiting in the event loops of the web server", HTTPWSServer.instance().pendingTasks());
+
+        Map<String, HttpStats> http = new TreeMap<>(this.http);
+        header(sb, "phantombot_http_requests_total", "counter", "HTTP requests by handler and status class");
+        http.forEach((route, stats) -> {
+            for (int i = 1; i < stats.status.length; i++) {
+                sb.append("phantombot_http_requests_total{route=\"").append(escape(route)).append("\",code=\"").append(i).append("xx\"} ")
+                    .append(stats.status[i].sum()).append('\n');
+            }
+        });
+        header(sb, "phantombot_http_request_bytes_total", "counter", "HTTP request body bytes by handler");
+        http.forEach((route, stats) -> sample(sb, "phantombot_http_request_bytes_total", "route", route, stats.bytesIn.sum()));
+        header(sb, "phantombot_http_response_bytes_total", "counter", "HTTP response body bytes by handler");
+        http.forEach((route, stats) -> sample(sb, "phantombot_http_response_bytes_total", "route", route, stats.bytesOut.sum()));
+        header(sb, "phantombot_http_request_duration_seconds", "summary", "Time from request until the response was written, by handler");
+        http.forEach((route, stats) -> summary(sb, "phantombot_http_request_duration_seconds", "route", route, stats.latency.snapshot()));
+
+        Map<String, WsStats> ws = new TreeMap<>(this.ws);
+        header(sb, "phantombot_ws_connections_open", "gauge", "Open WebSocket sessions by path");
+        ws.forEach((path, stats) -> sample(sb, "phantombot_ws_connections_open", "path", path, stats.open.get()));
+        header(sb, "phantombot_ws_sessions_total", "counter", "WebSocket sessions by path");
+        ws.forEach((path, stats) -> sample(sb, "phantombot_ws_sessions_total", "path", path, stats.sessions.sum()));
+        header(sb, "phantombot_ws_frames_received_total", "counter", "WebSocket frames received by path");
+        ws.forEach((path, stats) -> sample(sb, "phantombot_ws_frames_received_total", "path", path, stats.framesIn.sum()));
+        header(sb, "phantombot_ws_frames_sent_total", "counter", "WebSocket frames sent by path");
+        ws.forEach((path, stats) -> sample(sb, "phantombot_ws_frames_sent_total", "path", path, stats.framesOut.sum()));
+        header(sb, "phantombot_ws_received_bytes_total", "counter", "WebSocket payload bytes received by path");
+        ws.forEach((path, stats) -> sample(sb, "phantombot_ws_received_bytes_total", "path", path, stats.bytesIn.sum()));
+        header(sb, "phantombot_ws_sent_bytes_total", "counter", "WebSocket payload bytes sent by path");
+        ws.forEach((path, stats) -> sample(sb, "phantombot_ws_sent_bytes_total", "path", path, stats.bytesOut.sum()));
+        header(sb, "phantombot_ws_frame_duration_seconds", "summary", "Time spent handling a received WebSocket frame, by path");
+        ws.forEach((path, stats) -> summary(sb, "phantombot_ws_frame_duration_seconds", "path", path, stats.latency.snapshot()));
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, long value) {
+        header(sb, name, "gauge", help);
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        header(sb, name, "counter", help);
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String label, String labelValue, long value) {
+        sb.append(name).append('{').append(label).append("=\"").append(escape(labelValue)).append("\"} ").append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder sb, String name, String label, String labelValue, LatencyHistogram.Snapshot snapshot) {
+        String labels = label + "=\"" + escape(labelValue) + "\"";
+        sb.append(name).append('{').append(labels).append(",quantile=\"0.5\"} ").append(snapshot.p50Millis() / 1000.0).append('\n');
+        sb.append(name).append('{').append(labels).append(",quantile=\"0.9\"} ").append(snapshot.p90Millis() / 1000.0).append('\n');
+        sb.append(name).append('{').append(labels).append(",quantile=\"0.99\"} ").append(snapshot.p99Millis() / 1000.0).append('\n');
+        sb.append(name).append("_sum{").append(labels).append("} ").append(snapshot.sumMillis() / 1000.0).append('\n');
+        sb.append(name).append("_count{").append(labels).append("} ").append(snapshot.count()).append('\n');
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
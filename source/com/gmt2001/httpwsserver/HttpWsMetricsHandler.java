@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.httpwsserver;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * Feeds the traffic of one channel into {@link HttpWsMetrics}
+ * <p>
+ * This handler sits directly after the HTTP codec, so it sees requests before aggregation and responses after compression and chunking.
+ * After a WebSocket upgrade, the codec is replaced by the WebSocket codec, and this handler sees the frames instead
+ *
+ * @author gmt2001
+ */
+final class HttpWsMetricsHandler extends ChannelDuplexHandler {
+
+    /**
+     * The route of the request in flight; guarded by the event loop
+     */
+    private String route = null;
+    private long start = 0L;
+    private long bytesIn = 0L;
+    private long bytesOut = 0L;
+    private int status = 0;
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        HttpWsMetrics.instance().connectionOpened();
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        HttpWsMetrics.instance().connectionClosed();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest req) {
+            this.route = route(req);
+            this.start = System.nanoTime();
+            this.bytesIn = 0L;
+            this.bytesOut = 0L;
+            this.status = 0;
+        }
+
+        if (msg instanceof HttpContent content) {
+            this.bytesIn += content.content().readableBytes();
+        } else if (msg instanceof WebSocketFrame frame) {
+            String path = ctx.channel().attr(WebSocketFrameHandler.ATTR_URI).get();
+            if (path != null) {
+                HttpWsMetrics.instance().wsFrameIn(path, frame.content().readableBytes());
+            }
+        }
+
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof WebSocketFrame frame) {
+            String path = ctx.channel().attr(WebSocketFrameHandler.ATTR_URI).get();
+            if (path != null) {
+                HttpWsMetrics.instance().wsFrameOut(path, frame.content().readableBytes());
+            }
+        } else if (this.route != null) {
+            if (msg instanceof HttpResponse res) {
+                this.status = res.status().code();
+            }
+
+            if (msg instanceof HttpContent content) {
+                this.bytesOut += content.content().readableBytes();
+            } else if (msg instanceof FileRegion region) {
+                this.bytesOut += region.count();
+            }
+
+            if (msg instanceof LastHttpContent || this.status == 101) {
+                String route = this.route;
+                int status = this.status;
+                long start = this.start;
+                long bytesIn = this.bytesIn;
+                long bytesOut = this.bytesOut;
+                this.route = null;
+                promise = promise.unvoid();
+                promise.addListener(f -> HttpWsMetrics.instance().recordHttp(route, status, System.nanoTime() - start, bytesIn, bytesOut));
+            }
+        }
+
+        super.write(ctx, msg, promise);
+    }
+
+    /**
+     * Determines the metrics route of a request
+     *
+     * @param req The request
+     * @return The registered path of the handler, or {@code ws} for WebSocket upgrades
+     */
+    private static String route(HttpRequest req) {
+        if (req.headers().containsValue(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET, true)) {
+            return "ws";
+        }
+
+        try {
+            String route = HttpServerPageHandler.determineHttpRequestHandlerPath(new QueryStringDecoder(req.uri()).path());
+            return route.isBlank() ? HttpWsMetrics.UNMATCHED : route;
+        } catch (IllegalArgumentException ex) {
+            return HttpWsMetrics.UNMATCHED;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.httpwsserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.CompressionOptions;
+import io.netty.handler.codec.compression.StandardCompressionOptions;
+import io.netty.handler.codec.compression.Zstd;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+
+/**
+ * A {@link HttpContentCompressor} which only compresses text-like responses
+ * <p>
+ * Images, audio, video, and archives are already compressed, so compressing them again costs CPU without reducing their size, and forces
+ * chunked transfer encoding instead of a known length. Responses with a known length below the threshold are also sent as-is
+ *
+ * @author gmt2001
+ */
+final class SelectiveHttpContentCompressor extends HttpContentCompressor {
+
+    private final int contentSizeThreshold;
+
+    /**
+     * Constructor
+     *
+     * @param contentSizeThreshold The minimum length of a response with a {@code Content-Length} which is compressed, in bytes
+     */
+    SelectiveHttpContentCompressor(int contentSizeThreshold) {
+        super(contentSizeThreshold, compressionOptions());
+        this.contentSizeThreshold = contentSizeThreshold;
+    }
+
+    /**
+     * The standard compression options, skipping the codecs whose native library is not available
+     *
+     * @return The options
+     */
+    private static CompressionOptions[] compressionOptions() {
+        List<CompressionOptions> options = new ArrayList<>();
+        options.add(StandardCompressionOptions.gzip());
+        options.add(StandardCompressionOptions.deflate());
+
+        if (Brotli.isAvailable()) {
+            options.add(StandardCompressionOptions.brotli());
+        }
+
+        if (Zstd.isAvailable()) {
+            options.add(StandardCompressionOptions.zstd());
+        }
+
+        return options.toArray(CompressionOptions[]::new);
+    }
+
+    @Override
+    protected Result beginEncode(HttpResponse httpResponse, String acceptEncoding) throws Exception {
+        String contentType = httpResponse.headers().get(HttpHeaderNames.CONTENT_TYPE);
+
+        if (contentType != null && !StaticResourceCache.isCompressible(contentType)) {
+            return null;
+        }
+
+        long contentLength = HttpUtil.getContentLength(httpResponse, -1L);
+
+        if (contentLength >= 0L && contentLength < this.contentSizeThreshold) {
+            return null;
+        }
+
+        return super.beginEncode(httpResponse, acceptEncoding);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.httpwsserver;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.util.AttributeKey;
+
+/**
+ * Adds a {@code Set-Cookie} header, which was requested while handling a request, to the next response on the channel
+ * <p>
+ * This allows authentication handlers to set a cookie without having access to the response, which is created later by the page handler
+ *
+ * @author gmt2001
+ */
+public final class SetCookieHandler extends ChannelOutboundHandlerAdapter {
+
+    /**
+     * The value of the {@code Set-Cookie} header to add to the next response
+     */
+    public static final AttributeKey<String> ATTR_SET_COOKIE = AttributeKey.valueOf("setCookie");
+
+    /**
+     * Requests that a cookie is set on the next response of the channel
+     *
+     * @param ctx The {@link ChannelHandlerContext} of the session
+     * @param cookie The value of the {@code Set-Cookie} header
+     */
+    public static void setCookie(ChannelHandlerContext ctx, String cookie) {
+        ctx.channel().attr(ATTR_SET_COOKIE).set(cookie);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof HttpResponse res) {
+            String cookie = ctx.channel().attr(ATTR_SET_COOKIE).getAndSet(null);
+
+            if (cookie != null) {
+                res.headers().add(HttpHeaderNames.SET_COOKIE, cookie);
+            }
+        }
+
+        super.write(ctx, msg, promise);
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.httpwsserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import com.gmt2001.util.concurrent.ExecutorService;
+
+import io.netty.handler.codec.http.HttpHeaderValues;
+import tv.phantombot.CaselessProperties;
+
+/**
+ * Caches static web files in memory, along with their compressed variants
+ * <p>
+ * Entries are keyed by the absolute path of the file and validated against its modification time and size on every lookup. Text-like
+ * files are gzipped once when they are loaded, so {@code HttpContentCompressor} does not have to compress the same bytes for every
+ * client. There is no brotli encoder on the classpath, so a brotli variant is only available if a precompressed {@code .br} sibling of
+ * the file exists and is at least as new as the file
+ * <p>
+ * The cache is bounded by the total size of all variants, and evicts the least recently used entries first. The directories of cached
+ * files are watched, so entries are dropped as soon as their file changes instead of waiting for the next lookup
+ *
+ * @author gmt2001
+ */
+public final class StaticResourceCache {
+
+    private static final StaticResourceCache INSTANCE = new StaticResourceCache();
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Map<Path, Resource> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Path, WatchKey> paths = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    private WatchService watchService;
+    /**
+     * The total size of all cached variants; guarded by {@link #entries}
+     */
+    private long totalBytes = 0L;
+
+    /**
+     * A cached file
+     *
+     * @param fileName The file name, for content type detection
+     * @param lastModified The modification time of the file, in milliseconds since the epoch
+     * @param length The size of the file, in bytes
+     * @param identity The uncompressed content
+     * @param gzip The gzipped content; {@code null} if the content is not compressible
+     * @param brotli The brotli compressed content from a precompressed sibling; {@code null} if there is none
+     * @param eTag The strong ETag of the uncompressed content, without quotes
+     */
+    public record Resource(String fileName, long lastModified, long length, byte[] identity, byte[] gzip, byte[] brotli, String eTag) {
+
+        /**
+         * @return The total size of all variants, in bytes
+         */
+        public long bytes() {
+            return this.identity.length + (this.gzip == null ? 0L : this.gzip.length) + (this.brotli == null ? 0L : this.brotli.length);
+        }
+
+        /**
+         * Selects the smallest variant which the client accepts
+         *
+         * @param acceptEncoding The value of the {@code Accept-Encoding} header of the request
+         * @return The variant
+         */
+        public Variant select(String acceptEncoding) {
+            if (this.brotli != null && accepts(acceptEncoding, "br")) {
+                return new Variant(this.brotli, HttpHeaderValues.BR.toString(), "\"" + this.eTag + "-br\"");
+            }
+
+            if (this.gzip != null && accepts(acceptEncoding, "gzip")) {
+                return new Variant(this.gzip, HttpHeaderValues.GZIP.toString(), "\"" + this.eTag + "-gzip\"");
+            }
+
+            return new Variant(this.identity, HttpHeaderValues.IDENTITY.toString(), "\"" + this.eTag + "\"");
+        }
+    }
+
+    /**
+     * One encoding of a cached file
+     *
+     * @param content The encoded content
+     * @param encoding The value of the {@code Content-Encoding} header
+     * @param eTag The strong ETag of this encoding, with quotes
+     */
+    public record Variant(byte[] content, String encoding, String eTag) {
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of StaticResourceCache
+     */
+    public static StaticResourceCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private StaticResourceCache() {
+        /**
+         * @botproperty httpcachesizemb - The maximum amount of memory used to cache static web files, in megabytes. `0` to disable. Default `32`
+         * @botpropertycatsort httpcachesizemb 400 700 HTTP/WS
+         */
+        this.maxBytes = Math.max(0L, CaselessProperties.instance().getPropertyAsLong("httpcachesizemb", 32L)) * 1024L * 1024L;
+        this.maxEntryBytes = this.maxBytes / 8L;
+
+        try {
+            this.watchService = Paths.get(".").getFileSystem().newWatchService();
+            ExecutorService.scheduleWithFixedDelay(this::poll, 1, 1, TimeUnit.SECONDS);
+        } catch (IOException ex) {
+            com.gmt2001.Console.err.printStackTrace(ex);
+            this.watchService = null;
+        }
+    }
+
+    /**
+     * Returns a file from the cache, loading it if it is missing or has changed since it was cached
+     *
+     * @param path The path to the file
+     * @return The cached file; {@code null} if the file is too large to be cached, or the cache is disabled
+     * @throws IOException If the file can not be read
+     */
+    public Resource get(Path path) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+
+        synchronized (this.entries) {
+            Resource resource = this.entries.get(key);
+            if (resource != null && resource.lastModified() == lastModified && resource.length() == attributes.size()) {
+                return resource;
+            }
+        }
+
+        if (this.maxBytes == 0L || attributes.size() > this.maxEntryBytes) {
+            return null;
+        }
+
+        Resource resource = load(key, lastModified);
+        this.put(key, resource);
+        return resource;
+    }
+
+    /**
+     * Removes a file from the cache
+     *
+     * @param path The path to the file
+     */
+    public void invalidate(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+
+        synchronized (this.entries) {
+            Resource resource = this.entries.remove(key);
+            if (resource != null) {
+                this.totalBytes -= resource.bytes();
+            }
+        }
+    }
+
+    /**
+     * Removes all files from the cache
+     */
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+            this.totalBytes = 0L;
+        }
+    }
+
+    /**
+     * @return The number of cached files
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * @return The total size of all cached variants, in bytes
+     */
+    public long bytes() {
+        synchronized (this.entries) {
+            return this.totalBytes;
+        }
+    }
+
+    /**
+     * Adds a file to the cache, evicting the least recently used files until it fits
+     *
+     * @param key The absolute path to the file
+     * @param resource The file
+     */
+    private void put(Path key, Resource resource) {
+        synchronized (this.entries) {
+            Resource old = this.entries.put(key, resource);
+            if (old != null) {
+                this.totalBytes -= old.bytes();
+            }
+            this.totalBytes += resource.bytes();
+
+            Iterator<Map.Entry<Path, Resource>> it = this.entries.entrySet().iterator();
+            while (this.totalBytes > this.maxBytes && it.hasNext()) {
+                Map.Entry<Path, Resource> eldest = it.next();
+                if (eldest.getValue() != resource) {
+                    this.totalBytes -= eldest.getValue().bytes();
+                    it.remove();
+                }
+            }
+        }
+
+        this.watch(key.getParent());
+    }
+
+    /**
+     * Reads a file and prepares its variants
+     *
+     * @param key The absolute path to the file
+     * @param lastModified The modification time of the file
+     * @return The file
+     * @throws IOException If the file can not be read
+     */
+    private static Resource load(Path key, long lastModified) throws IOException {
+        String fileName = key.getFileName().toString();
+        byte[] identity = Files.readAllBytes(key);
+        byte[] gzip = null;
+        byte[] brotli = null;
+
+        if (isCompressible(HttpServerPageHandler.detectContentType(fileName))) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(Math.max(32, identity.length / 3));
+            try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+                gos.write(identity);
+            }
+
+            // Not worth the header overhead on tiny files
+            if (bos.size() < identity.length) {
+                gzip = bos.toByteArray();
+            }
+
+            Path br = key.resolveSibling(fileName + ".br");
+            if (Files.isRegularFile(br) && Files.getLastModifiedTime(br).toMillis() >= lastModified) {
+                brotli = Files.readAllBytes(br);
+            }
+        }
+
+        return new Resource(fileName, lastModified, identity.length, identity, gzip, brotli, digest(identity));
+    }
+
+    /**
+     * Indicates if a content type benefits from compression
+     *
+     * @param contentType The content type
+     * @return {@code true} if the content is text-like
+     */
+    public static boolean isCompressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.contains("application/json") || contentType.startsWith("application/javascript")
+                || contentType.contains("xml");
+    }
+
+    /**
+     * Indicates if an {@code Accept-Encoding} header allows an encoding
+     *
+     * @param acceptEncoding The header value
+     * @param encoding The encoding
+     * @return {@code true} if the encoding is listed without {@code q=0}
+     */
+    private static boolean accepts(String acceptEncoding, String encoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            if (parts[0].trim().equalsIgnoreCase(encoding)) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(param.substring(2)) > 0.0;
+                        } catch (NumberFormatException ex) {
+                            return false;
+                        }
+                    }
+                }
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Computes the ETag of some content
+     *
+     * @param content The content
+     * @return The first 128 bits of the SHA-256 of the content, in hex
+     */
+    private static String digest(byte[] content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            return Long.toHexString(content.length) + "-" + Integer.toHexString(java.util.Arrays.hashCode(content));
+        }
+    }
+
+    /**
+     * Starts watching a directory for changes to cached files
+     *
+     * @param dir The directory
+     */
+    private void watch(Path dir) {
+        if (this.watchService == null || dir == null || this.paths.containsKey(dir)) {
+            return;
+        }
+
+        try {
+            WatchKey key = dir.register(this.watchService, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_CREATE);
+            if (this.paths.putIfAbsent(dir, key) == null) {
+                this.keys.put(key, dir);
+            }
+        } catch (IOException | ClosedWatchServiceException ex) {
+            com.gmt2001.Console.debug.printStackTrace(ex);
+        }
+    }
+
+    /**
+     * Drains the pending events from the watch service, and drops the entries of files which have changed
+     */
+    private void poll() {
+        try {
+            WatchKey key;
+            while ((key = this.watchService.poll()) != null) {
+                Path dir = this.keys.get(key);
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (dir == null) {
+                        continue;
+                    }
+
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        this.invalidateDirectory(dir);
+                    } else {
+                        String name = ((Path) event.context()).getFileName().toString();
+                        this.invalidate(dir.resolve(name));
+                        if (name.endsWith(".br")) {
+                            this.invalidate(dir.resolve(name.substring(0, name.length() - 3)));
+                        }
+                    }
+                }
+
+                if (!key.reset() && dir != null) {
+                    this.keys.remove(key);
+                    this.paths.remove(dir, key);
+                    this.invalidateDirectory(dir);
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+        }
+    }
+
+    /**
+     * Removes all files in a directory from the cache
+     *
+     * @param dir The directory
+     */
+    private void invalidateDirectory(Path dir) {
+        synchronized (this.entries) {
+            Iterator<Map.Entry<Path, Resource>> it = this.entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Path, Resource> entry = it.next();
+                if (dir.equals(entry.getKey().getParent())) {
+                    this.totalBytes -= entry.getValue().bytes();
+                    it.remove();
+                }
+            }
+        }
+    }
+}
@@ -85,7 +85,12 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
         WsFrameHandler h = ctx.channel().attr(ATTR_FRAME_HANDLER).get();
 
         if (h.getAuthHandler().checkAuthorization(ctx, frame)) {
-            h.handleFrame(ctx, frame);
+            long start = System.nanoTime();
+            try {
+                h.handleFrame(ctx, frame);
+            } finally {
+                HttpWsMetrics.instance().wsHandled(ctx.channel().attr(ATTR_URI).get(), System.nanoTime() - start);
+            }
         }
     }
 
@@ -133,12 +138,15 @@ public class WebSocketFrameHandler extends SimpleChannelInboundHandler<WebSocket
                 ctx.channel().attr(ATTR_URI).set(ruri);
                 ctx.channel().attr(ATTR_FRAME_HANDLER).set(h);
                 ctx.channel().attr(ATTR_ALLOW_NON_SSL).set(allowNonSsl ? "true" : "false");
+                ctx.channel().attr(WsBatchingHandler.ATTR_BATCH).set(new QueryStringDecoder(hc.requestUri()).parameters().containsKey("batch"));
                 h.getAuthHandler().checkAuthorizationHeaders(ctx, hc.requestHeaders());
                 ctx.channel().attr(WsAuthenticationHandler.ATTR_AUTHENTICATED).setIfAbsent(Boolean.FALSE);
                 ctx.channel().closeFuture().addListener((ChannelFutureListener) (ChannelFuture f) -> {
                     WS_SESSIONS.remove(f.channel());
+                    HttpWsMetrics.instance().wsClosed(ruri);
                 });
                 WS_SESSIONS.add(ctx.channel());
+                HttpWsMetrics.instance().wsOpened(ruri);
             }
         }
     }
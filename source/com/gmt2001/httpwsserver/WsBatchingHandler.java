@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.httpwsserver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.AttributeKey;
+
+/**
+ * Coalesces JSON messages which are sent to a WebSocket client within a short window into a single frame
+ * <p>
+ * Only sessions which asked for it, by connecting with the {@code batch} query parameter, are batched. When more than one message is
+ * pending, they are sent as a JSON array of the messages; a single message is sent as-is. Only text frames which contain a JSON object
+ * are batched, so the client can tell a batch from a message. Any other frame sends the pending batch first, to keep the order
+ *
+ * @author gmt2001
+ */
+final class WsBatchingHandler extends ChannelOutboundHandlerAdapter {
+
+    /**
+     * Represents the {@code ATTR_BATCH} attribute, which stores if outbound messages to the client are batched
+     */
+    static final AttributeKey<Boolean> ATTR_BATCH = AttributeKey.valueOf("wsBatch");
+    /**
+     * The size of a batch which is sent without waiting for the rest of the window
+     */
+    private static final int MAX_BATCH_CHARS = 32 * 1024;
+    private final long windowMS;
+    private final List<String> messages = new ArrayList<>();
+    private final List<ChannelPromise> promises = new ArrayList<>();
+    private int chars = 0;
+    private ScheduledFuture<?> scheduled = null;
+
+    /**
+     * Constructor
+     *
+     * @param windowMS How long to wait for more messages after the first message of a batch, in milliseconds
+     */
+    WsBatchingHandler(long windowMS) {
+        this.windowMS = windowMS;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (msg instanceof TextWebSocketFrame frame && frame.isFinalFragment() && Boolean.TRUE.equals(ctx.channel().attr(ATTR_BATCH).get())) {
+            String text = frame.text();
+
+            if (text.startsWith("{")) {
+                frame.release();
+                this.messages.add(text);
+                this.promises.add(promise);
+                this.chars += text.length();
+
+                if (this.chars >= MAX_BATCH_CHARS) {
+                    this.writeBatch(ctx);
+                    ctx.flush();
+                } else if (this.scheduled == null) {
+                    this.scheduled = ctx.executor().schedule(() -> {
+                        this.scheduled = null;
+                        this.writeBatch(ctx);
+                        ctx.flush();
+                    }, this.windowMS, TimeUnit.MILLISECONDS);
+                }
+
+                return;
+            }
+        }
+
+        this.writeBatch(ctx);
+        super.write(ctx, msg, promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        this.writeBatch(ctx);
+        ctx.flush();
+        super.close(ctx, promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        this.cancel();
+        for (ChannelPromise promise : this.promises) {
+            promise.tryFailure(new IllegalStateException("WebSocket closed before the batch was sent"));
+        }
+        this.messages.clear();
+        this.promises.clear();
+        super.handlerRemoved(ctx);
+    }
+
+    private void cancel() {
+        if (this.scheduled != null) {
+            this.scheduled.cancel(false);
+            this.scheduled = null;
+        }
+    }
+
+    /**
+     * Writes the pending messages as one frame, without flushing
+     *
+     * @param ctx The {@link ChannelHandlerContext} of the session
+     */
+    private void writeBatch(ChannelHandlerContext ctx) {
+        this.cancel();
+
+        if (this.messages.isEmpty()) {
+            return;
+        }
+
+        String text;
+        if (this.messages.size() == 1) {
+            text = this.messages.get(0);
+        } else {
+            StringBuilder sb = new StringBuilder(this.chars + this.messages.size() + 1);
+            sb.append('[');
+            for (int i = 0; i < this.messages.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(this.messages.get(i));
+            }
+            text = sb.append(']').toString();
+        }
+
+        List<ChannelPromise> promises = new ArrayList<>(this.promises);
+        this.messages.clear();
+        this.promises.clear();
+        this.chars = 0;
+
+        ctx.write(new TextWebSocketFrame(text)).addListener(f -> {
+            for (ChannelPromise promise : promises) {
+                if (f.isSuccess()) {
+                    promise.trySuccess();
+                } else {
+                    promise.tryFailure(f.cause());
+                }
+            }
+        });
+    }
+}
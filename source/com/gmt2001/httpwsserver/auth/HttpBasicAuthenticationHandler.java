@@ -182,11 +182,14 @@ public class HttpBasicAuthenticationHandler implements HttpAuthenticationHandler
         String auth = getAuthorizationString(headers);
 
         if (auth != null) {
+            if (this.allowPaneluser && PanelUserHandler.checkLoginAndGetUser(ctx, headers, requestUri) != null) {
+                return true;
+            }
+
             String userpass = new String(Base64.getDecoder().decode(auth));
             if (!userpass.isBlank()) {
                 int colon = userpass.indexOf(':');
-                return (this.allowPaneluser && PanelUserHandler.checkLoginB64(auth, requestUri))
-                    || (userpass.substring(0, colon).equalsIgnoreCase(user) && userpass.substring(colon + 1).equals(pass));
+                return userpass.substring(0, colon).equalsIgnoreCase(user) && userpass.substring(colon + 1).equals(pass);
             }
         }
 
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.ratelimiters;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import tv.phantombot.CaselessProperties;
+
+/**
+ * A rate limiter which hands out a limited number of tokens during a window of time
+ *
+ * @author gmt2001
+ */
+public interface RateLimiter {
+
+    /**
+     * @return The maximum number of tokens available during the window
+     */
+    int limit();
+
+    /**
+     * @return The length of the window, in milliseconds
+     */
+    long windowMS();
+
+    /**
+     * @return {@code true} if there is a token available
+     */
+    boolean isTokenAvailable();
+
+    /**
+     * @return The current number of tokens available
+     */
+    int currentTokens();
+
+    /**
+     * @return An {@link Instant} indicating when the next token will become available
+     */
+    Instant nextReset();
+
+    /**
+     * Attempts to take a token
+     *
+     * @return {@code true} on success; {@code false} if no tokens are available
+     */
+    boolean takeToken();
+
+    /**
+     * Takes a token and then runs the specified command. If a token is not available, waits until one is
+     *
+     * @param command The command to run on success
+     */
+    void waitAndTakeToken(Runnable command);
+
+    /**
+     * Runs the specified command when a token is available, but does not take the token
+     *
+     * @param command The command to run on success
+     */
+    void waitAndRun(Runnable command);
+
+    /**
+     * Takes a token, waiting until one is available
+     *
+     * @return A future which is completed once the token has been taken
+     */
+    default CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        this.waitAndTakeToken(() -> future.complete(null));
+        return future;
+    }
+
+    /**
+     * Indicates if the bot has opted into the {@link RollingWindowRateLimiter}
+     *
+     * @return {@code true} if rolling window rate limiters should be used
+     */
+    static boolean useRollingWindow() {
+        /**
+         * @botproperty rollingratelimits - If `true`, chat, Helix, and the emote and donation API clients use a rolling window rate limiter, which counts requests over the last window instead of a fixed window that resets all at once. Requires a restart. Default `false`
+         * @botpropertycatsort rollingratelimits 170 50 Misc
+         */
+        return CaselessProperties.instance().getPropertyAsBoolean("rollingratelimits", false);
+    }
+
+    /**
+     * Creates a rate limiter for an API client which is only rate limited if the bot has opted into the {@link RollingWindowRateLimiter}
+     *
+     * @param window The length of the window
+     * @param limit The maximum number of tokens available during the window
+     * @return A {@link RollingWindowRateLimiter} if {@link #useRollingWindow()} is {@code true}; otherwise, a rate limiter which never runs out of tokens
+     */
+    static RateLimiter optional(Duration window, int limit) {
+        return useRollingWindow() ? new RollingWindowRateLimiter(window, limit) : Unlimited.INSTANCE;
+    }
+
+    /**
+     * A rate limiter which never runs out of tokens
+     */
+    final class Unlimited implements RateLimiter {
+        private static final Unlimited INSTANCE = new Unlimited();
+
+        private Unlimited() {
+        }
+
+        @Override
+        public int limit() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public long windowMS() {
+            return 0L;
+        }
+
+        @Override
+        public boolean isTokenAvailable() {
+            return true;
+        }
+
+        @Override
+        public int currentTokens() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        public Instant nextReset() {
+            return Instant.now();
+        }
+
+        @Override
+        public boolean takeToken() {
+            return true;
+        }
+
+        @Override
+        public void waitAndTakeToken(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void waitAndRun(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public CompletableFuture<Void> acquire() {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
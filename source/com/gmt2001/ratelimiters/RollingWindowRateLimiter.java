@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.ratelimiters;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.gmt2001.util.concurrent.ExecutorService;
+
+/**
+ * Handles rate limiting using a rolling window, implemented as a sliding log
+ * <p>
+ * The times at which the most recent tokens were taken are kept in a ring, one entry per token of the limit. A token is available once
+ * the token which was taken a full limit ago has left the window, so no more than the limit is ever used within any window, and tokens
+ * return one at a time as they leave the window instead of all at once when a fixed window resets. Taking a token only holds the
+ * monitor of the limiter for a constant time check, and never waits for a token to return
+ *
+ * @author gmt2001
+ */
+public class RollingWindowRateLimiter implements RateLimiter {
+
+    protected final long windowNanos;
+    protected final int limit;
+    /**
+     * The times at which the most recent tokens were taken, or are reserved for, as a {@link System#nanoTime()}; guarded by {@code this}
+     */
+    private final long[] log;
+    /**
+     * The number of tokens which have ever been taken; guarded by {@code this}
+     */
+    private long count = 0L;
+
+    /**
+     * Constructor
+     *
+     * @param window The length of the window
+     * @param limit The maximum number of tokens available during the window
+     */
+    public RollingWindowRateLimiter(Duration window, int limit) {
+        this(window.toMillis(), limit);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param windowMS The length of the window, in milliseconds
+     * @param limit The maximum number of tokens available during the window
+     */
+    public RollingWindowRateLimiter(long windowMS, int limit) {
+        this(windowMS, limit, limit);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param windowMS The length of the window, in milliseconds
+     * @param limit The maximum number of tokens available during the window
+     * @param capacity The largest value that {@link #limit()} can return
+     */
+    protected RollingWindowRateLimiter(long windowMS, int limit, int capacity) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, windowMS));
+        this.limit = Math.max(1, limit);
+        this.log = new long[Math.max(this.limit, capacity)];
+    }
+
+    /**
+     * @return The maximum number of tokens available during the window
+     */
+    @Override
+    public int limit() {
+        return this.limit;
+    }
+
+    /**
+     * @return The length of the window, in milliseconds
+     */
+    @Override
+    public long windowMS() {
+        return TimeUnit.NANOSECONDS.toMillis(this.windowNanos);
+    }
+
+    /**
+     * @return The limit which is currently in effect, bounded by the size of the log
+     */
+    private int activeLimit() {
+        return Math.max(1, Math.min(this.limit(), this.log.length));
+    }
+
+    /**
+     * Returns an entry of the log
+     *
+     * @param n The number of the token, counted from the first token ever taken
+     * @return The time at which the token was taken
+     */
+    private long entry(long n) {
+        return this.log[(int) (n % this.log.length)];
+    }
+
+    /**
+     * Returns the later of two {@link System#nanoTime()} values
+     */
+    private static long latest(long a, long b) {
+        return a - b > 0L ? a : b;
+    }
+
+    /**
+     * The earliest time at which the next token may be used; must be called while holding the monitor
+     *
+     * @param now The current {@link System#nanoTime()}
+     * @return The time, as a {@link System#nanoTime()}
+     */
+    private long nextSlot(long now) {
+        long next = now;
+        int limit = this.activeLimit();
+
+        if (this.count >= limit) {
+            next = latest(next, this.entry(this.count - limit) + this.windowNanos);
+        }
+
+        if (this.count > 0L) {
+            // Reservations may be in the future; keep the log in order
+            next = latest(next, this.entry(this.count - 1L));
+        }
+
+        return next;
+    }
+
+    /**
+     * Appends a token to the log; must be called while holding the monitor
+     *
+     * @param time The time at which the token is used, as a {@link System#nanoTime()}
+     */
+    private void record(long time) {
+        this.log[(int) (this.count % this.log.length)] = time;
+        this.count++;
+    }
+
+    /**
+     * The time until the next token is available
+     *
+     * @return The time to wait, in nanoseconds; {@code 0} if a token is available now
+     */
+    private synchronized long waitNanos() {
+        long now = System.nanoTime();
+        return Math.max(0L, this.nextSlot(now) - now);
+    }
+
+    /**
+     * @return {@code true} if there is a token available
+     */
+    @Override
+    public boolean isTokenAvailable() {
+        return this.waitNanos() == 0L;
+    }
+
+    /**
+     * @return The current number of tokens available
+     */
+    @Override
+    public synchronized int currentTokens() {
+        long now = System.nanoTime();
+        int limit = this.activeLimit();
+        int used = 0;
+
+        for (long n = this.count - 1L; n >= 0L && n >= this.count - limit; n--) {
+            if (this.entry(n) + this.windowNanos - now <= 0L) {
+                break;
+            }
+            used++;
+        }
+
+        return limit - used;
+    }
+
+    /**
+     * @return An {@link Instant} indicating when the next token will become available
+     */
+    @Override
+    public Instant nextReset() {
+        return Instant.now().plusNanos(this.waitNanos());
+    }
+
+    /**
+     * Attempts to take a token
+     *
+     * @return {@code true} on success; {@code false} if no tokens are available
+     */
+    @Override
+    public boolean takeToken() {
+        return this.tryAcquire(1);
+    }
+
+    /**
+     * Attempts to take the specified number of tokens at once
+     *
+     * @param tokens The number of tokens to take
+     * @return {@code true} on success; {@code false} if not enough tokens are available, in which case none are taken
+     */
+    public synchronized boolean tryAcquire(int tokens) {
+        tokens = Math.max(1, tokens);
+        int limit = this.activeLimit();
+
+        if (tokens > limit) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+
+        // The newest of the tokens which must have left the window for all of the requested tokens to be available
+        long n = this.count + tokens - 1L - limit;
+        if ((n >= 0L && this.entry(n) + this.windowNanos - now > 0L) || (this.count > 0L && this.entry(this.count - 1L) - now > 0L)) {
+            return false;
+        }
+
+        for (int i = 0; i < tokens; i++) {
+            this.record(now);
+        }
+
+        return true;
+    }
+
+    /**
+     * Reserves the next token, even if it is not available yet
+     * <p>
+     * The reservation can not be cancelled. The caller must wait for the returned time before using the token
+     *
+     * @return The time until the reserved token may be used, in nanoseconds; {@code 0} if it may be used now
+     */
+    public synchronized long reserve() {
+        long now = System.nanoTime();
+        long next = this.nextSlot(now);
+        this.record(next);
+        return Math.max(0L, next - now);
+    }
+
+    /**
+     * Takes a token, waiting until one is available
+     * <p>
+     * The token is reserved immediately, so the future is completed by a single timer at the reserved time
+     *
+     * @return A future which is completed once the token may be used
+     */
+    @Override
+    public CompletableFuture<Void> acquire() {
+        long delay = this.reserve();
+
+        if (delay == 0L) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        ExecutorService.schedule(() -> {
+            future.complete(null);
+        }, delay, TimeUnit.NANOSECONDS);
+        return future;
+    }
+
+    /**
+     * Takes a token and then runs the specified command. If a token is not available, it is reserved and the command runs at the
+     * reserved time
+     *
+     * @param command The command to run on success
+     */
+    @Override
+    public void waitAndTakeToken(Runnable command) {
+        long delay = this.reserve();
+
+        if (delay == 0L) {
+            command.run();
+        } else {
+            ExecutorService.schedule(command, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Runs the specified command when a token is available, but does not take the token. If a token is not available, waits until the
+     * next token returns, then tries again
+     *
+     * @param command The command to run on success
+     */
+    @Override
+    public void waitAndRun(Runnable command) {
+        long delay = this.waitNanos();
+
+        if (delay == 0L) {
+            command.run();
+        } else {
+            ExecutorService.schedule(() -> {
+                this.waitAndRun(command);
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.ratelimiters;
+
+import java.time.Duration;
+
+/**
+ * Handles rate limiting using a rolling window, where the limit can switch between two values
+ *
+ * @author gmt2001
+ */
+public class RollingWindowSwitchingRateLimiter extends RollingWindowRateLimiter implements SwitchingRateLimiter {
+
+    private final int mainLimit;
+    private final int alternateLimit;
+    private volatile boolean usingMain = true;
+
+    /**
+     * Constructor
+     *
+     * @param window The length of the window
+     * @param mainLimit The normal maximum number of tokens available during the window
+     * @param alternateLimit The alternate maximum number of tokens available during the window
+     * @param isMain {@code true} to select mainLimit; {@code false} to select alternateLimit
+     */
+    public RollingWindowSwitchingRateLimiter(Duration window, int mainLimit, int alternateLimit, boolean isMain) {
+        this(window.toMillis(), mainLimit, alternateLimit, isMain);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param windowMS The length of the window, in milliseconds
+     * @param mainLimit The normal maximum number of tokens available during the window
+     * @param alternateLimit The alternate maximum number of tokens available during the window
+     * @param isMain {@code true} to select mainLimit; {@code false} to select alternateLimit
+     */
+    public RollingWindowSwitchingRateLimiter(long windowMS, int mainLimit, int alternateLimit, boolean isMain) {
+        super(windowMS, mainLimit, Math.max(mainLimit, alternateLimit));
+        this.mainLimit = Math.max(1, mainLimit);
+        this.alternateLimit = Math.max(1, alternateLimit);
+        this.usingMain = isMain;
+    }
+
+    /**
+     * Switches which limit is active
+     * <p>
+     * Tokens which were already taken stay in the log, and count against the new limit until they leave the window
+     *
+     * @param isMain {@code true} to select mainLimit; {@code false} to select alternateLimit
+     */
+    @Override
+    public void switchLimit(boolean isMain) {
+        this.usingMain = isMain;
+    }
+
+    /**
+     * @return {@code true} if currently using mainLimit; {@code false} if currently using alternateLimit
+     */
+    @Override
+    public boolean isMainLimit() {
+        return this.usingMain;
+    }
+
+    /**
+     * @return The maximum number of tokens available during the window, based on the currently selected limit
+     */
+    @Override
+    public int limit() {
+        return this.isMainLimit() ? this.mainLimit() : this.alternateLimit();
+    }
+
+    @Override
+    public int mainLimit() {
+        return this.mainLimit;
+    }
+
+    @Override
+    public int alternateLimit() {
+        return this.alternateLimit;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.ratelimiters;
+
+import java.time.Duration;
+
+/**
+ * A rate limiter where the limit can switch between two values
+ *
+ * @author gmt2001
+ */
+public interface SwitchingRateLimiter extends RateLimiter {
+
+    /**
+     * Switches which limit is active
+     *
+     * @param isMain {@code true} to select mainLimit; {@code false} to select alternateLimit
+     */
+    void switchLimit(boolean isMain);
+
+    /**
+     * @return {@code true} if currently using mainLimit; {@code false} if currently using alternateLimit
+     */
+    boolean isMainLimit();
+
+    /**
+     * @return The mainLimit
+     */
+    int mainLimit();
+
+    /**
+     * @return The alternateLimit
+     */
+    int alternateLimit();
+
+    /**
+     * Creates a switching rate limiter, using a {@link RollingWindowSwitchingRateLimiter} if {@link RateLimiter#useRollingWindow()} is {@code true}
+     *
+     * @param window The length of the window
+     * @param mainLimit The normal maximum number of tokens available during the window
+     * @param alternateLimit The alternate maximum number of tokens available during the window
+     * @param isMain {@code true} to select mainLimit; {@code false} to select alternateLimit
+     * @return The rate limiter
+     */
+    static SwitchingRateLimiter create(Duration window, int mainLimit, int alternateLimit, boolean isMain) {
+        return RateLimiter.useRollingWindow() ? new RollingWindowSwitchingRateLimiter(window, mainLimit, alternateLimit, isMain)
+            : new WindowedSwitchingRateLimiter(window, mainLimit, alternateLimit, isMain);
+    }
+}
@@ -28,7 +28,7 @@ import com.gmt2001.util.concurrent.ExecutorService;
  *
  * @author gmt2001
  */
-public class WindowedRateLimiter {
+public class WindowedRateLimiter implements RateLimiter {
 
     protected final long windowMS;
     protected final int limit;
@@ -23,7 +23,7 @@ import java.time.Duration;
  *
  * @author gmt2001
  */
-public class WindowedSwitchingRateLimiter extends WindowedRateLimiter {
+public class WindowedSwitchingRateLimiter extends WindowedRateLimiter implements SwitchingRateLimiter {
 
     private final int mainLimit;
     private final int alternateLimit;
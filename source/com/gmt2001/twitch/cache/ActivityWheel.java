@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.twitch.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks the viewers who have been active within a sliding window, using a ring of time buckets
+ * <p>
+ * Each viewer is in at most one bucket, which is selected by the time of their last activity. Buckets which fall out of the window are
+ * cleared when the wheel advances, so counting and listing the active viewers only visits viewers who are actually active
+ *
+ * @author gmt2001
+ */
+final class ActivityWheel {
+    private final long bucketMillis;
+    private final long windowMillis;
+    private final List<Set<Viewer>> buckets;
+    /**
+     * The absolute slot number currently held by each bucket
+     */
+    private final long[] slots;
+    /**
+     * The absolute slot number of each viewer in the wheel
+     */
+    private final Map<Viewer, Long> index = new HashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param window The duration of the activity window
+     * @param resolution The duration of each bucket
+     */
+    ActivityWheel(Duration window, Duration resolution) {
+        this.bucketMillis = Math.max(1L, resolution.toMillis());
+        this.windowMillis = window.toMillis();
+        int size = (int) ((this.windowMillis + this.bucketMillis - 1) / this.bucketMillis) + 1;
+        this.buckets = new ArrayList<>(size);
+        this.slots = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            this.buckets.add(new HashSet<>());
+            this.slots[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Returns the absolute slot number of a timestamp
+     *
+     * @param millis The timestamp, in epoch milliseconds
+     * @return The slot number
+     */
+    private long slot(long millis) {
+        return Math.floorDiv(millis, this.bucketMillis);
+    }
+
+    /**
+     * Returns the bucket for an absolute slot number, clearing it first if it still holds an expired slot
+     *
+     * @param slot The absolute slot number
+     * @return The bucket
+     */
+    private Set<Viewer> bucket(long slot) {
+        int i = (int) Math.floorMod(slot, (long) this.slots.length);
+
+        if (this.slots[i] != slot) {
+            Set<Viewer> expired = this.buckets.get(i);
+            for (Viewer viewer : expired) {
+                this.index.remove(viewer);
+            }
+            expired.clear();
+            this.slots[i] = slot;
+        }
+
+        return this.buckets.get(i);
+    }
+
+    /**
+     * Places a viewer in the bucket for their last activity, removing them from any previous bucket
+     * <p>
+     * Viewers whose last activity is outside of the window are only removed
+     *
+     * @param viewer The viewer
+     * @param lastActive The last activity of the viewer, in epoch milliseconds
+     */
+    synchronized void touch(Viewer viewer, long lastActive) {
+        this.removeInternal(viewer);
+
+        if (lastActive == Viewer.NEVER || lastActive <= System.currentTimeMillis() - this.windowMillis) {
+            return;
+        }
+
+        long slot = this.slot(lastActive);
+        this.bucket(slot).add(viewer);
+        this.index.put(viewer, slot);
+    }
+
+    /**
+     * Removes a viewer from the wheel
+     *
+     * @param viewer The viewer
+     */
+    synchronized void remove(Viewer viewer) {
+        this.removeInternal(viewer);
+    }
+
+    /**
+     * Removes a viewer from the wheel
+     *
+     * @param viewer The viewer
+     */
+    private void removeInternal(Viewer viewer) {
+        Long slot = this.index.remove(viewer);
+
+        if (slot != null) {
+            int i = (int) Math.floorMod(slot, (long) this.slots.length);
+
+            if (this.slots[i] == slot) {
+                this.buckets.get(i).remove(viewer);
+            }
+        }
+    }
+
+    /**
+     * Counts the viewers who were active within the window
+     *
+     * @return The number of active viewers
+     */
+    synchronized int count() {
+        final long after = System.currentTimeMillis() - this.windowMillis;
+        final long oldest = this.slot(after);
+        int count = 0;
+
+        for (int i = 0; i < this.slots.length; i++) {
+            long slot = this.slots[i];
+
+            if (slot > oldest) {
+                count += this.buckets.get(i).size();
+            } else if (slot == oldest) {
+                // The oldest bucket is only partially inside the window
+                for (Viewer viewer : this.buckets.get(i)) {
+                    if (viewer.lastActiveMillis() > after) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the viewers who were active within the window
+     *
+     * @return The active viewers
+     */
+    synchronized List<Viewer> snapshot() {
+        final long after = System.currentTimeMillis() - this.windowMillis;
+        final long oldest = this.slot(after);
+        List<Viewer> viewers = new ArrayList<>();
+
+        for (int i = 0; i < this.slots.length; i++) {
+            long slot = this.slots[i];
+
+            if (slot > oldest) {
+                viewers.addAll(this.buckets.get(i));
+            } else if (slot == oldest) {
+                for (Viewer viewer : this.buckets.get(i)) {
+                    if (viewer.lastActiveMillis() > after) {
+                        viewers.add(viewer);
+                    }
+                }
+            }
+        }
+
+        return viewers;
+    }
+}
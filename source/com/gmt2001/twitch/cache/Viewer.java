@@ -22,25 +22,37 @@ import java.util.Objects;
 
 /**
  * Contains information about a specific viewer in a {@link ViewerCache}
+ * <p>
+ * To keep the footprint small when there are many viewers, the boolean attributes are packed into a single bit field and
+ * the timestamps are stored as epoch milliseconds. {@link Instant} objects are only created when requested
  *
  * @author gmt2001
  */
 public final class Viewer {
+    private static final int ADMIN = 1;
+    private static final int BOT = 1 << 1;
+    private static final int BROADCASTER = 1 << 2;
+    private static final int IN_CHAT = 1 << 3;
+    private static final int MODERATOR = 1 << 4;
+    private static final int STAFF = 1 << 5;
+    private static final int SUBSCRIBER = 1 << 6;
+    private static final int TURBO = 1 << 7;
+    private static final int VIP = 1 << 8;
+    private static final int HAS_ATTRIBUTES = 1 << 9;
+    /**
+     * The value of {@link #lastActiveMillis()} if the user was never active
+     */
+    public static final long NEVER = Long.MIN_VALUE;
     private final String id;
     private String login = "";
     private String name = "";
-    private Instant lastSeen = Instant.now();
-    private Instant lastActive = Instant.MIN;
-    private boolean admin = false;
-    private boolean bot = false;
-    private boolean broadcaster = false;
-    private boolean inChat = false;
-    private boolean moderator = false;
-    private boolean staff = false;
-    private boolean subscriber = false;
-    private boolean turbo = false;
-    private boolean vip = false;
-    private boolean hasAttributes = false;
+    private volatile long lastSeen = System.currentTimeMillis();
+    private volatile long lastActive = NEVER;
+    private volatile int flags = 0;
+    /**
+     * The cache which holds this viewer, which is notified of changes to the in-chat and activity state
+     */
+    private ViewerCache cache = null;
 
     /**
      * Constructor
@@ -51,6 +63,50 @@ public final class Viewer {
         this.id = id;
     }
 
+    /**
+     * Attaches this viewer to the cache which holds it
+     * <p>
+     * The cache is immediately notified of the current in-chat and activity state
+     *
+     * @param cache The cache; {@code null} to detach
+     */
+    synchronized void attach(ViewerCache cache) {
+        this.cache = cache;
+
+        if (cache != null) {
+            cache.onChatterChanged(this, this.flag(IN_CHAT), this.lastActive);
+        }
+    }
+
+    /**
+     * Sets or clears a flag
+     *
+     * @param flag The flag
+     * @param value {@code true} to set the flag
+     * @return {@code true} if the flag was changed
+     */
+    private synchronized boolean flag(int flag, boolean value) {
+        int old = this.flags;
+
+        if (value) {
+            this.flags |= flag;
+        } else {
+            this.flags &= ~flag;
+        }
+
+        return old != this.flags;
+    }
+
+    /**
+     * Indicates if a flag is set
+     *
+     * @param flag The flag
+     * @return {@code true} if the flag is set
+     */
+    private boolean flag(int flag) {
+        return (this.flags & flag) != 0;
+    }
+
     /**
      * The Twitch user id
      *
@@ -69,6 +125,10 @@ public final class Viewer {
     public synchronized Viewer login(String login) {
         if (login != null && !login.isBlank()) {
             this.login = login;
+
+            if (this.name.equals(login)) {
+                this.name = login;
+            }
         }
 
         return this;
@@ -91,7 +151,8 @@ public final class Viewer {
      */
     public synchronized Viewer name(String name) {
         if (name != null && !name.isBlank()) {
-            this.name = name;
+            // Most display names match the login, so share the instance
+            this.name = name.equals(this.login) ? this.login : name;
         }
 
         return this;
@@ -112,7 +173,11 @@ public final class Viewer {
      * @return {@code this}
      */
     public synchronized Viewer active() {
-        this.lastActive = Instant.now();
+        this.lastActive = System.currentTimeMillis();
+
+        if (this.cache != null && this.flag(IN_CHAT)) {
+            this.cache.onChatterChanged(this, true, this.lastActive);
+        }
 
         return this;
     }
@@ -123,6 +188,16 @@ public final class Viewer {
      * @return The last time this user was active in chat; {@link Instant#MIN} if the user was never active
      */
     public Instant lastActive() {
+        long lastActive = this.lastActive;
+        return lastActive == NEVER ? Instant.MIN : Instant.ofEpochMilli(lastActive);
+    }
+
+    /**
+     * The last time this user was active in chat
+     *
+     * @return The last time this user was active in chat, in epoch milliseconds; {@link #NEVER} if the user was never active
+     */
+    public long lastActiveMillis() {
         return this.lastActive;
     }
 
@@ -133,8 +208,8 @@ public final class Viewer {
      *
      * @return {@code this}
      */
-    public synchronized Viewer seen() {
-        this.lastSeen = Instant.now();
+    public Viewer seen() {
+        this.lastSeen = System.currentTimeMillis();
 
         return this;
     }
@@ -147,6 +222,17 @@ public final class Viewer {
      * @return The last time this user was seen
      */
     public Instant lastSeen() {
+        return Instant.ofEpochMilli(this.lastSeen);
+    }
+
+    /**
+     * The last time this user was seen
+     * <p>
+     * This is used for garbage collection
+     *
+     * @return The last time this user was seen, in epoch milliseconds
+     */
+    public long lastSeenMillis() {
         return this.lastSeen;
     }
 
@@ -154,7 +240,7 @@ public final class Viewer {
      * Marks that the attributes have been set on this viewer
      */
     public Viewer attributes() {
-        this.hasAttributes = true;
+        this.flag(HAS_ATTRIBUTES, true);
 
         return this;
     }
@@ -167,7 +253,7 @@ public final class Viewer {
      * @return {@code true} if the user has had their attributes set
      */
     public boolean hasAttributes() {
-        return this.hasAttributes;
+        return this.flag(HAS_ATTRIBUTES);
     }
 
     /**
@@ -176,8 +262,8 @@ public final class Viewer {
      * @param admin {@code true} if the user is a Twitch admin
      * @return {@code this}
      */
-    public synchronized Viewer admin(boolean admin) {
-        this.admin = admin;
+    public Viewer admin(boolean admin) {
+        this.flag(ADMIN, admin);
 
         return this;
     }
@@ -188,7 +274,7 @@ public final class Viewer {
      * @return {@code true} if the user is a Twitch admin
      */
     public boolean admin() {
-        return this.admin;
+        return this.flag(ADMIN);
     }
 
     /**
@@ -197,8 +283,8 @@ public final class Viewer {
      * @param bot {@code true} if the user is the bot
      * @return {@code this}
      */
-    public synchronized Viewer bot(boolean bot) {
-        this.bot = bot;
+    public Viewer bot(boolean bot) {
+        this.flag(BOT, bot);
 
         return this;
     }
@@ -209,7 +295,7 @@ public final class Viewer {
      * @return {@code true} if the user is the bot
      */
     public boolean bot() {
-        return this.bot;
+        return this.flag(BOT);
     }
 
     /**
@@ -218,8 +304,8 @@ public final class Viewer {
      * @param broadcaster {@code true} if the user is the broadcaster
      * @return {@code this}
      */
-    public synchronized Viewer broadcaster(boolean broadcaster) {
-        this.broadcaster = broadcaster;
+    public Viewer broadcaster(boolean broadcaster) {
+        this.flag(BROADCASTER, broadcaster);
 
         return this;
     }
@@ -230,7 +316,7 @@ public final class Viewer {
      * @return {@code true} if the user is the broadcaster
      */
     public boolean broadcaster() {
-        return this.broadcaster;
+        return this.flag(BROADCASTER);
     }
 
     /**
@@ -240,7 +326,9 @@ public final class Viewer {
      * @return {@code this}
      */
     public synchronized Viewer inChat(boolean inChat) {
-        this.inChat = inChat;
+        if (this.flag(IN_CHAT, inChat) && this.cache != null) {
+            this.cache.onChatterChanged(this, inChat, this.lastActive);
+        }
 
         return this;
     }
@@ -251,7 +339,7 @@ public final class Viewer {
      * @return {@code true} if the user is in chat
      */
     public boolean inChat() {
-        return this.inChat;
+        return this.flag(IN_CHAT);
     }
 
     /**
@@ -260,8 +348,8 @@ public final class Viewer {
      * @param moderator {@code true} if the user is a moderator
      * @return {@code this}
      */
-    public synchronized Viewer moderator(boolean moderator) {
-        this.moderator = moderator;
+    public Viewer moderator(boolean moderator) {
+        this.flag(MODERATOR, moderator);
 
         return this;
     }
@@ -272,7 +360,7 @@ public final class Viewer {
      * @return {@code true} if the user is a moderator
      */
     public boolean moderator() {
-        return this.moderator;
+        return this.flag(MODERATOR);
     }
 
     /**
@@ -281,8 +369,8 @@ public final class Viewer {
      * @param staff {@code true} if the user is a Twitch staff member
      * @return {@code this}
      */
-    public synchronized Viewer staff(boolean staff) {
-        this.staff = staff;
+    public Viewer staff(boolean staff) {
+        this.flag(STAFF, staff);
 
         return this;
     }
@@ -293,7 +381,7 @@ public final class Viewer {
      * @return {@code true} if the user is a Twitch staff member
      */
     public boolean staff() {
-        return this.staff;
+        return this.flag(STAFF);
     }
 
     /**
@@ -302,8 +390,8 @@ public final class Viewer {
      * @param subscriber {@code true} if the user is a subscriber of the channel
      * @return {@code this}
      */
-    public synchronized Viewer subscriber(boolean subscriber) {
-        this.subscriber = subscriber;
+    public Viewer subscriber(boolean subscriber) {
+        this.flag(SUBSCRIBER, subscriber);
 
         return this;
     }
@@ -314,7 +402,7 @@ public final class Viewer {
      * @return {@code true} if the user is a subscriber of the channel
      */
     public boolean subscriber() {
-        return this.subscriber;
+        return this.flag(SUBSCRIBER);
     }
 
     /**
@@ -323,8 +411,8 @@ public final class Viewer {
      * @param turbo {@code true} if the user is a Twitch turbo member
      * @return {@code this}
      */
-    public synchronized Viewer turbo(boolean turbo) {
-        this.turbo = turbo;
+    public Viewer turbo(boolean turbo) {
+        this.flag(TURBO, turbo);
 
         return this;
     }
@@ -335,7 +423,7 @@ public final class Viewer {
      * @return {@code true} if the user is a Twitch turbo member
      */
     public boolean turbo() {
-        return this.turbo;
+        return this.flag(TURBO);
     }
 
     /**
@@ -344,8 +432,8 @@ public final class Viewer {
      * @param vip {@code true} if the user is a VIP
      * @return {@code this}
      */
-    public synchronized Viewer vip(boolean vip) {
-        this.vip = vip;
+    public Viewer vip(boolean vip) {
+        this.flag(VIP, vip);
 
         return this;
     }
@@ -356,7 +444,34 @@ public final class Viewer {
      * @return {@code true} if the user is a VIP
      */
     public boolean vip() {
-        return this.vip;
+        return this.flag(VIP);
+    }
+
+    /**
+     * Estimates the number of bytes of heap used by this object, assuming compressed references
+     *
+     * @return The estimated number of bytes used
+     */
+    long estimatedSize() {
+        // Object header, 3 references, 2 longs, and 1 int; then the strings which are not shared
+        long size = 48L + estimatedSize(this.id) + estimatedSize(this.login);
+
+        if (this.name != this.login) {
+            size += estimatedSize(this.name);
+        }
+
+        return size;
+    }
+
+    /**
+     * Estimates the number of bytes of heap used by a compact Latin-1 string, assuming compressed references
+     *
+     * @param s The string
+     * @return The estimated number of bytes used
+     */
+    private static long estimatedSize(String s) {
+        // String object, plus the byte array header and contents aligned to 8 bytes
+        return s == null ? 0L : 24L + ((16L + s.length() + 7L) & ~7L);
     }
 
     @Override
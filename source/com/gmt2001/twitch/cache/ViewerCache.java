@@ -18,14 +18,17 @@ package com.gmt2001.twitch.cache;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -48,6 +51,9 @@ import tv.phantombot.twitch.api.TwitchValidate;
 
 /**
  * Maintains a list of viewers, Twitch viewer permissions, and username lookups
+ * <p>
+ * The viewers who are in chat, and the viewers who are in chat and recently active, are tracked incrementally as each
+ * {@link Viewer} changes state, so {@link #chatters()} and {@link #activeChatters()} do not need to scan the entire cache
  *
  * @author gmt2001
  */
@@ -55,13 +61,32 @@ public final class ViewerCache implements Listener {
     private static final ViewerCache INSTANCE = new ViewerCache();
     private static final Duration ACTIVE_TIMEOUT = Duration.ofMinutes(5);
     private static final Duration WARN_INTERVAL = Duration.ofMinutes(15);
+    private static final Duration GC_TIMEOUT = Duration.ofMinutes(15);
+    private static final Duration ACTIVE_RESOLUTION = Duration.ofSeconds(15);
+    /**
+     * Estimated heap used by each entry of a {@link ConcurrentHashMap}, assuming compressed references
+     */
+    private static final long MAP_ENTRY_SIZE = 32L;
     private boolean registered = false;
     private boolean chattersUpdated = false;
     private final ConcurrentMap<String, Viewer> viewers = new ConcurrentHashMap<>();
+    private final Set<Viewer> inChat = ConcurrentHashMap.newKeySet();
+    private final ActivityWheel active = new ActivityWheel(ACTIVE_TIMEOUT, ACTIVE_RESOLUTION);
+    private final AtomicLong chattersVersion = new AtomicLong();
+    private volatile ChattersSnapshot chattersSnapshot = null;
     private Viewer bot;
     private Viewer broadcaster;
     private Instant nextWarn = null;
 
+    /**
+     * An immutable copy of the chatters list
+     *
+     * @param version The value of {@link #chattersVersion} when the copy was started
+     * @param chatters The chatters
+     */
+    private record ChattersSnapshot(long version, List<Viewer> chatters) {
+    }
+
     /**
      * Singleton method
      *
@@ -158,20 +183,60 @@ public final class ViewerCache implements Listener {
      * Garbage Collects viewers that have not been seen in a while
      */
     private void doGC() {
-        final Instant expiresBefore = Instant.now().minus(15, ChronoUnit.MINUTES);
-        this.viewers.forEach((k, v) -> {
-            if (v.lastSeen().isBefore(expiresBefore) && !v.bot() && !v.broadcaster()) {
-                this.viewers.remove(k);
+        final long expiresBefore = System.currentTimeMillis() - GC_TIMEOUT.toMillis();
+        this.viewers.values().removeIf(v -> {
+            if (v.lastSeenMillis() < expiresBefore && !v.bot() && !v.broadcaster()) {
+                this.detach(v);
+                return true;
             }
+
+            return false;
         });
     }
 
+    /**
+     * Updates the chatter tracking when a viewer held by the cache changes state
+     * <p>
+     * Called by {@link Viewer} while holding its own lock
+     *
+     * @param viewer The viewer
+     * @param inChat {@code true} if the viewer is in chat
+     * @param lastActive The last activity of the viewer, in epoch milliseconds
+     */
+    void onChatterChanged(Viewer viewer, boolean inChat, long lastActive) {
+        if (inChat) {
+            if (this.inChat.add(viewer)) {
+                this.chattersVersion.incrementAndGet();
+                this.chattersUpdated(true);
+            }
+
+            this.active.touch(viewer, lastActive);
+        } else {
+            if (this.inChat.remove(viewer)) {
+                this.chattersVersion.incrementAndGet();
+                this.chattersUpdated(true);
+            }
+
+            this.active.remove(viewer);
+        }
+    }
+
+    /**
+     * Detaches a viewer which is being removed from the cache and stops tracking it as a chatter
+     *
+     * @param viewer The viewer
+     */
+    private void detach(Viewer viewer) {
+        viewer.attach(null);
+        this.onChatterChanged(viewer, false, Viewer.NEVER);
+    }
+
     /**
      * Sends IrcChannelUsersUpdateEvent if a change has occurred
      */
     private void sendUpdate() {
         if (this.chattersUpdated(false)) {
-            EventBus.instance().postAsync(new IrcChannelUsersUpdateEvent(this.viewers.entrySet().stream().filter(kv -> kv.getValue().inChat()).map(kv -> kv.getValue()).collect(Collectors.toList())));
+            EventBus.instance().postAsync(new IrcChannelUsersUpdateEvent(this.chatters()));
         }
     }
 
@@ -237,15 +302,18 @@ public final class ViewerCache implements Listener {
             } while(cursor != null && !cursor.isBlank());
             emitter.success(newChatters);
         }).doOnSuccess(newChattersList -> {
-            final Instant after = Instant.now().minus(ACTIVE_TIMEOUT);
-            final List<String> found = new ArrayList<>();
-            final long count = this.viewers.entrySet().stream().filter(kv -> kv.getValue().inChat()).count();
-            this.viewers.entrySet().stream().filter(kv -> kv.getValue().inChat()).forEach(kv -> {
-                if (newChattersList.stream().filter(jso -> jso.getString("user_id").equals(kv.getValue().id())).findAny().isPresent()) {
-                    kv.getValue().seen();
-                    found.add(kv.getValue().id());
-                } else if (kv.getValue().lastActive().isBefore(after)) {
-                    kv.getValue().inChat(false);
+            final long after = System.currentTimeMillis() - ACTIVE_TIMEOUT.toMillis();
+            final Set<String> newIds = new HashSet<>(newChattersList.size() * 2);
+            final Set<String> found = new HashSet<>();
+            newChattersList.forEach(jso -> newIds.add(jso.getString("user_id")));
+            this.viewers.values().forEach(viewer -> {
+                if (viewer.inChat()) {
+                    if (newIds.contains(viewer.id())) {
+                        viewer.seen();
+                        found.add(viewer.id());
+                    } else if (viewer.lastActiveMillis() < after) {
+                        viewer.inChat(false);
+                    }
                 }
             });
             newChattersList.stream().forEach(jso -> {
@@ -425,7 +493,9 @@ public final class ViewerCache implements Listener {
 
         Viewer cacheViewer = this.viewers.putIfAbsent(viewer.id(), viewer);
 
-        if (cacheViewer != null) {
+        if (cacheViewer == null) {
+            viewer.attach(this);
+        } else {
             cacheViewer.seen();
 
             if (!cacheViewer.login().equals(viewer.login())) {
@@ -452,7 +522,13 @@ public final class ViewerCache implements Listener {
      */
     public Viewer get(String id) {
         return this.viewers.computeIfAbsent(id, k -> {
-            return this.lookup(id, null);
+            Viewer viewer = this.lookup(id, null);
+
+            if (viewer != null) {
+                viewer.attach(this);
+            }
+
+            return viewer;
         });
     }
 
@@ -463,7 +539,7 @@ public final class ViewerCache implements Listener {
      * @return An {@link Optional} containing the {@link Viewer} object for the user; an empty Optional if not in the cache
      */
     private Optional<Viewer> getByLoginInternal(String login) {
-        return this.viewers.entrySet().stream().filter(kv -> kv.getValue().login().equals(login)).map(kv -> kv.getValue()).findFirst();
+        return this.viewers.values().stream().filter(v -> v.login().equals(login)).findFirst();
     }
 
     /**
@@ -514,7 +590,11 @@ public final class ViewerCache implements Listener {
      * @param id The user id to remove
      */
     public void remove(String id) {
-        this.viewers.remove(id);
+        Viewer viewer = this.viewers.remove(id);
+
+        if (viewer != null) {
+            this.detach(viewer);
+        }
     }
 
     /**
@@ -558,21 +638,106 @@ public final class ViewerCache implements Listener {
 
     /**
      * Returns a list of {@link Viewer} objects representing users recently seen in chat
+     * <p>
+     * The returned list is an immutable snapshot which is shared between callers until the chatters change
      *
      * @return A {@link List} of {@link Viewer} objects
      */
     public List<Viewer> chatters() {
-        return this.viewers.entrySet().stream().filter(kv -> kv.getValue().inChat()).map(kv -> kv.getValue()).collect(Collectors.toList());
+        ChattersSnapshot snapshot = this.chattersSnapshot;
+        long version = this.chattersVersion.get();
+
+        if (snapshot == null || snapshot.version() != version) {
+            snapshot = new ChattersSnapshot(version, List.copyOf(this.inChat));
+            this.chattersSnapshot = snapshot;
+        }
+
+        return snapshot.chatters();
+    }
+
+    /**
+     * Returns the number of users recently seen in chat
+     *
+     * @return The number of chatters
+     */
+    public int chattersCount() {
+        return this.inChat.size();
+    }
+
+    /**
+     * Performs an action for the lower-case login of each user recently seen in chat
+     * <p>
+     * This walks the live chatters set without building a list, and is intended for payout loops
+     *
+     * @param action The action to perform
+     */
+    public void forEachChatterLogin(Consumer<String> action) {
+        for (Viewer viewer : this.inChat) {
+            String login = viewer.login();
+
+            if (login != null && !login.isBlank()) {
+                action.accept(login.toLowerCase());
+            }
+        }
+    }
+
+    /**
+     * Performs an action for the lower-case login of each user recently seen in chat, who has sent a message in the past 5 minutes
+     *
+     * @param action The action to perform
+     */
+    public void forEachActiveChatterLogin(Consumer<String> action) {
+        for (Viewer viewer : this.active.snapshot()) {
+            String login = viewer.login();
+
+            if (login != null && !login.isBlank()) {
+                action.accept(login.toLowerCase());
+            }
+        }
     }
 
     /**
      * Returns a list of {@link Viewer} objects representing users recently seen in chat, who have sent a message in the past 5 minutes
      *
-     * @return A {@link List} of {@link Viewer} objects
+     * @return An immutable {@link List} of {@link Viewer} objects
      */
     public List<Viewer> activeChatters() {
-        Instant after = Instant.now().minus(ACTIVE_TIMEOUT);
-        return this.viewers.entrySet().stream().filter(kv -> kv.getValue().inChat() && kv.getValue().lastActive().isAfter(after)).map(kv -> kv.getValue()).collect(Collectors.toList());
+        return Collections.unmodifiableList(this.active.snapshot());
+    }
+
+    /**
+     * Returns the number of users recently seen in chat, who have sent a message in the past 5 minutes
+     *
+     * @return The number of active chatters
+     */
+    public int activeChattersCount() {
+        return this.active.count();
+    }
+
+    /**
+     * Returns the number of viewers in the cache
+     *
+     * @return The number of viewers in the cache
+     */
+    public int size() {
+        return this.viewers.size();
+    }
+
+    /**
+     * Estimates the number of bytes of heap used by the cache, assuming compressed references
+     * <p>
+     * This walks the entire cache, so it should not be called frequently
+     *
+     * @return The estimated number of bytes used
+     */
+    public long estimatedMemoryUsage() {
+        long size = 0L;
+
+        for (Viewer viewer : this.viewers.values()) {
+            size += MAP_ENTRY_SIZE + viewer.estimatedSize();
+        }
+
+        return size;
     }
 
     /**
@@ -29,7 +29,6 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.SubmissionPublisher;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -72,7 +71,7 @@ import tv.phantombot.twitch.api.TwitchValidate;
  *
  * @author gmt2001
  */
-public final class EventSub extends SubmissionPublisher<EventSubInternalEvent> implements WsClientFrameHandler, Listener {
+public final class EventSub implements WsClientFrameHandler, Listener {
 
     /**
      * Constructor. Schedules a task to remove handled messages from the anti-duplicate map when they expire. Loads the subscription types. Starts the WebSocket connection
@@ -116,10 +115,11 @@ public final class EventSub extends SubmissionPublisher<EventSubInternalEvent> i
         }, 100, TimeUnit.MILLISECONDS);
     }
 
-    private static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(2);
+    private static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(1);
     private String session_id = null;
-    private final ConcurrentMap<String, ZonedDateTime> handledMessages = new ConcurrentHashMap<>();
+    private final EventSubDeduplicator handledMessages = new EventSubDeduplicator();
     private final ConcurrentMap<String, EventSubSubscription> subscriptions = new ConcurrentHashMap<>();
+    private final EventSubRouter router = new EventSubRouter();
     private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
     private WSClient client = null;
     private WSClient oldClient = null;
@@ -139,6 +139,24 @@ public final class EventSub extends SubmissionPublisher<EventSubInternalEvent> i
         return EventSub.INSTANCE;
     }
 
+    /**
+     * The router which delivers incoming messages to the subscription type handlers
+     *
+     * @return
+     */
+    public EventSubRouter router() {
+        return this.router;
+    }
+
+    /**
+     * The store of recently handled message ids, used to drop duplicate messages
+     *
+     * @return
+     */
+    public EventSubDeduplicator deduplicator() {
+        return this.handledMessages;
+    }
+
     /**
      * The default moderator user id
      * 
@@ -374,7 +392,7 @@ public final class EventSub extends SubmissionPublisher<EventSubInternalEvent> i
      * @return
      */
     boolean isDuplicate(String messageId, ZonedDateTime timestamp) {
-        return this.handledMessages.putIfAbsent(messageId, timestamp) != null;
+        return this.handledMessages.isDuplicate(messageId);
     }
 
     /**
@@ -421,12 +439,7 @@ public final class EventSub extends SubmissionPublisher<EventSubInternalEvent> i
      * Removes expired message ids from the duplicate list
      */
     private void cleanupDuplicates() {
-        ZonedDateTime expires = ZonedDateTime.now();
-        this.handledMessages.forEach((id, ts) -> {
-            if (ts.isBefore(expires)) {
-                this.handledMessages.remove(id);
-            }
-        });
+        this.handledMessages.expire();
     }
 
     /**
@@ -571,10 +584,12 @@ public final class EventSub extends SubmissionPublisher<EventSubInternalEvent> i
                                                     this.rwl.writeLock().unlock();
                                                 }
 
-                                                debug("handleMessage welcome " + (this.reconnecting ? " (reconnecting) " : ""));
-                                                this.refreshSubscriptions();
-
-                                                EventBus.instance().postAsync(new EventSubWelcomeEvent(this.reconnecting));
+                                                final boolean wasReconnecting = this.reconnecting;
+                                                debug("handleMessage welcome " + (wasReconnecting ? " (reconnecting) " : ""));
+                                                this.router.lifecycle(() -> {
+                                                    this.refreshSubscriptions();
+                                                    EventBus.instance().postAsync(new EventSubWelcomeEvent(wasReconnecting));
+                                                });
 
                                                 if (this.reconnecting) {
                                                     this.reconnecting = false;
@@ -624,7 +639,7 @@ public final class EventSub extends SubmissionPublisher<EventSubInternalEvent> i
                                         debug("handleMessage revoked");
                                         EventSubInternalRevocationEvent event = new EventSubInternalRevocationEvent(metadata, payload);
                                         this.updateSubscription(event.subscription());
-                                        this.submit(event);
+                                        this.router.route(event);
                                         break;
                                     case "notification":
                                         handled = true;
@@ -635,7 +650,7 @@ public final class EventSub extends SubmissionPublisher<EventSubInternalEvent> i
                                         } finally {
                                             this.rwl.writeLock().unlock();
                                         }
-                                        this.submit(new EventSubInternalNotificationEvent(metadata, payload));
+                                        this.router.route(new EventSubInternalNotificationEvent(metadata, payload));
                                         break;
                                 }
                             }
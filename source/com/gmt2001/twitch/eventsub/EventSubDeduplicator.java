@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.twitch.eventsub;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers recently handled EventSub message ids, to detect messages which are delivered more than once
+ * <p>
+ * Ids are stored in a ring of buckets by the time they were received. Each bucket covers one minute, and the ring covers the
+ * 10 minute window in which Twitch may redeliver a message. When the ring advances, the oldest bucket is cleared in one step, so
+ * memory is bounded by the message rate over the window rather than growing until a full scan removes old entries
+ * <p>
+ * Message ids in UUID format are stored as {@link UUID} objects, which are about a third of the size of the equivalent {@link String}
+ *
+ * @author gmt2001
+ */
+public final class EventSubDeduplicator {
+    private static final Duration WINDOW = Duration.ofMinutes(10);
+    private static final Duration RESOLUTION = Duration.ofMinutes(1);
+    private static final int UUID_LENGTH = 36;
+    private final long bucketMillis = RESOLUTION.toMillis();
+    private final List<Set<Object>> buckets;
+    /**
+     * The absolute slot number currently held by each bucket
+     */
+    private final long[] slots;
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    /**
+     * Duplicate detection statistics
+     *
+     * @param checked The number of message ids checked
+     * @param duplicates The number of message ids which were duplicates
+     * @param size The number of message ids currently remembered
+     */
+    public record Stats(long checked, long duplicates, int size) {
+        /**
+         * The fraction of checked message ids which were duplicates
+         *
+         * @return The duplicate rate, from {@code 0.0} to {@code 1.0}
+         */
+        public double duplicateRate() {
+            return this.checked == 0L ? 0.0 : (double) this.duplicates / this.checked;
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    EventSubDeduplicator() {
+        int size = (int) (WINDOW.toMillis() / this.bucketMillis) + 1;
+        this.buckets = new ArrayList<>(size);
+        this.slots = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            this.buckets.add(new HashSet<>());
+            this.slots[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Converts a message id into its compact form
+     *
+     * @param messageId The message id
+     * @return A {@link UUID} if the message id is in UUID format; otherwise, the message id
+     */
+    private static Object compact(String messageId) {
+        if (messageId.length() == UUID_LENGTH) {
+            try {
+                return UUID.fromString(messageId);
+            } catch (IllegalArgumentException ex) {
+            }
+        }
+
+        return messageId;
+    }
+
+    /**
+     * Returns the index of the bucket holding an absolute slot number
+     *
+     * @param slot The absolute slot number
+     * @return The bucket index
+     */
+    private int index(long slot) {
+        return (int) Math.floorMod(slot, (long) this.slots.length);
+    }
+
+    /**
+     * Checks if the message id has been seen within the window, and remembers it if not
+     *
+     * @param messageId The message id to check
+     * @return {@code true} if the message id is a duplicate
+     */
+    synchronized boolean isDuplicate(String messageId) {
+        this.checked.increment();
+        final Object key = compact(messageId);
+        final long slot = Math.floorDiv(System.currentTimeMillis(), this.bucketMillis);
+        final long oldest = slot - this.slots.length + 1;
+
+        for (int i = 0; i < this.slots.length; i++) {
+            if (this.slots[i] >= oldest && this.buckets.get(i).contains(key)) {
+                this.duplicates.increment();
+                return true;
+            }
+        }
+
+        int i = this.index(slot);
+        if (this.slots[i] != slot) {
+            this.buckets.get(i).clear();
+            this.slots[i] = slot;
+        }
+
+        this.buckets.get(i).add(key);
+        return false;
+    }
+
+    /**
+     * Releases buckets which have fallen out of the window, so memory is returned even when no new messages arrive
+     */
+    synchronized void expire() {
+        final long oldest = Math.floorDiv(System.currentTimeMillis(), this.bucketMillis) - this.slots.length + 1;
+
+        for (int i = 0; i < this.slots.length; i++) {
+            if (this.slots[i] != Long.MIN_VALUE && this.slots[i] < oldest) {
+                this.buckets.set(i, new HashSet<>());
+                this.slots[i] = Long.MIN_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Returns the duplicate detection statistics
+     *
+     * @return The statistics
+     */
+    public synchronized Stats stats() {
+        int size = 0;
+
+        for (Set<Object> bucket : this.buckets) {
+            size += bucket.size();
+        }
+
+        return new Stats(this.checked.sum(), this.duplicates.sum(), size);
+    }
+}
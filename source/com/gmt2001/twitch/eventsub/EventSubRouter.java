@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.twitch.eventsub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.gmt2001.util.concurrent.ExecutorService;
+
+/**
+ * Routes incoming EventSub messages to the {@link EventSubSubscriptionType} handlers which consume them
+ * <p>
+ * Notifications are only delivered to the handlers registered for the {@code subscription.type} of the notification. Each type has
+ * its own lane, so a slow handler only delays notifications of its own type. Lifecycle messages, such as revocations and the session
+ * welcome, are processed in a separate lane so they are never queued behind notifications
+ *
+ * @author gmt2001
+ */
+public final class EventSubRouter {
+    /**
+     * The maximum number of tasks processed by a lane before it yields the executor thread
+     */
+    private static final int DRAIN_LIMIT = 64;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final List<EventSubSubscriptionType> handlers = new CopyOnWriteArrayList<>();
+    private final Lane lifecycle = new Lane("lifecycle");
+    private final LongAdder unrouted = new LongAdder();
+
+    /**
+     * Delivery statistics for a lane
+     *
+     * @param name The lane name; the subscription type for notification lanes
+     * @param handlers The number of handlers registered to the lane
+     * @param delivered The number of messages processed by the lane
+     * @param backlog The number of messages waiting to be processed by the lane
+     * @param averageLatencyMicros The average time between a message being queued and being fully processed, in microseconds
+     * @param maxLatencyMicros The longest time between a message being queued and being fully processed, in microseconds
+     */
+    public record LaneStats(String name, int handlers, long delivered, int backlog, long averageLatencyMicros, long maxLatencyMicros) {
+    }
+
+    /**
+     * A serial queue of tasks, with delivery counters
+     */
+    private static final class Lane {
+        private final String name;
+        private final List<EventSubSubscriptionType> handlers = new CopyOnWriteArrayList<>();
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger backlog = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder totalLatency = new LongAdder();
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        private Lane(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Queues a task for execution after all previously queued tasks of this lane
+         *
+         * @param task The task
+         */
+        private void enqueue(Runnable task) {
+            final long queued = System.nanoTime();
+            this.queue.add(() -> {
+                try {
+                    task.run();
+                } finally {
+                    long latency = System.nanoTime() - queued;
+                    this.delivered.increment();
+                    this.totalLatency.add(latency);
+                    this.maxLatency.accumulateAndGet(latency, Math::max);
+                }
+            });
+            this.backlog.incrementAndGet();
+            this.schedule();
+        }
+
+        /**
+         * Starts draining the queue on the executor, if it is not already being drained
+         */
+        private void schedule() {
+            if (this.draining.compareAndSet(false, true)) {
+                ExecutorService.execute(this::drain);
+            }
+        }
+
+        /**
+         * Processes queued tasks in order
+         */
+        private void drain() {
+            try {
+                Runnable task;
+                int count = 0;
+                while (count < DRAIN_LIMIT && (task = this.queue.poll()) != null) {
+                    this.backlog.decrementAndGet();
+                    count++;
+                    try {
+                        task.run();
+                    } catch (Exception ex) {
+                        com.gmt2001.Console.err.printStackTrace(ex);
+                    }
+                }
+            } finally {
+                this.draining.set(false);
+            }
+
+            if (!this.queue.isEmpty()) {
+                this.schedule();
+            }
+        }
+
+        private LaneStats stats() {
+            long delivered = this.delivered.sum();
+            return new LaneStats(this.name, this.handlers.size(), delivered, this.backlog.get(),
+                delivered == 0L ? 0L : TimeUnit.NANOSECONDS.toMicros(this.totalLatency.sum() / delivered),
+                TimeUnit.NANOSECONDS.toMicros(this.maxLatency.get()));
+        }
+    }
+
+    /**
+     * Constructor
+     */
+    EventSubRouter() {
+    }
+
+    /**
+     * Registers a handler
+     * <p>
+     * The handler receives notifications for the type returned by {@link EventSubSubscriptionType#routingType()}, and all revocations
+     *
+     * @param handler The handler
+     */
+    synchronized void register(EventSubSubscriptionType handler) {
+        if (this.isRegistered(handler)) {
+            return;
+        }
+
+        this.handlers.add(handler);
+        this.lifecycle.handlers.add(handler);
+
+        String type = handler.routingType();
+        if (type != null) {
+            this.lanes.computeIfAbsent(type, Lane::new).handlers.add(handler);
+        }
+    }
+
+    /**
+     * Indicates if the specified handler is registered
+     *
+     * @param handler The handler
+     * @return {@code true} if registered
+     */
+    boolean isRegistered(EventSubSubscriptionType handler) {
+        return this.handlers.stream().anyMatch(h -> h == handler);
+    }
+
+    /**
+     * Queues a notification for delivery to the handlers of its subscription type
+     *
+     * @param event The notification
+     */
+    void route(EventSubInternalNotificationEvent event) {
+        Lane lane = this.lanes.get(event.subscription().type());
+
+        if (lane == null) {
+            this.unrouted.increment();
+            EventSub.debug("EventSubRouter no handler for " + event.subscription().type());
+            return;
+        }
+
+        lane.enqueue(() -> {
+            for (EventSubSubscriptionType handler : lane.handlers) {
+                handler.deliver(event);
+            }
+        });
+    }
+
+    /**
+     * Queues a revocation for delivery to all handlers, in the lifecycle lane
+     *
+     * @param event The revocation
+     */
+    void route(EventSubInternalRevocationEvent event) {
+        this.lifecycle.enqueue(() -> {
+            for (EventSubSubscriptionType handler : this.lifecycle.handlers) {
+                handler.deliver(event);
+            }
+        });
+    }
+
+    /**
+     * Queues a task in the lifecycle lane, after any previously queued lifecycle messages
+     *
+     * @param task The task
+     */
+    void lifecycle(Runnable task) {
+        this.lifecycle.enqueue(task);
+    }
+
+    /**
+     * Returns the delivery statistics of the lifecycle lane followed by each notification lane
+     *
+     * @return The statistics
+     */
+    public List<LaneStats> stats() {
+        List<LaneStats> stats = new ArrayList<>();
+        stats.add(this.lifecycle.stats());
+        this.lanes.values().stream().map(Lane::stats).sorted((a, b) -> a.name().compareTo(b.name())).forEachOrdered(stats::add);
+        return stats;
+    }
+
+    /**
+     * Returns the number of notifications which were dropped because no handler was registered for their type
+     *
+     * @return The number of unrouted notifications
+     */
+    public long unrouted() {
+        return this.unrouted.sum();
+    }
+}
@@ -16,10 +16,11 @@
  */
 package com.gmt2001.twitch.eventsub;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Flow;
 import java.util.stream.Collectors;
 
 import reactor.core.publisher.Mono;
@@ -29,12 +30,11 @@ import reactor.core.publisher.Mono;
  *
  * @author gmt2001
  */
-public abstract class EventSubSubscriptionType implements Flow.Subscriber<EventSubInternalEvent>  {
+public abstract class EventSubSubscriptionType {
 
     protected EventSubSubscription subscription;
     protected String messageId;
     protected ZonedDateTime messageTimestamp;
-    protected Flow.Subscription flowsubscription = null;
 
     protected EventSubSubscriptionType() {
     }
@@ -45,20 +45,39 @@ public abstract class EventSubSubscriptionType implements Flow.Subscriber<EventS
         this.messageTimestamp = messageTimestamp;
     }
 
+    /**
+     * Registers this object with the {@link EventSubRouter} to receive notifications for {@link #routingType()}, and revocations
+     */
     protected final void subscribe() {
-        if (!EventSub.instance().isSubscribed(this)) {
-            EventSub.instance().subscribe(this);
-        }
+        EventSub.instance().router().register(this);
     }
 
-    @Override
-    public final void onSubscribe(Flow.Subscription subscription) {
-        this.flowsubscription = subscription;
-        this.flowsubscription.request(1);
+    /**
+     * The {@code subscription.type} of the notifications handled by this class, used by {@link EventSubRouter} to route notifications
+     * <p>
+     * By default, this is the value of the {@code public static final String TYPE} field of the implementing class
+     *
+     * @return The subscription type; {@code null} to not receive any notifications
+     */
+    protected String routingType() {
+        try {
+            Field field = this.getClass().getField("TYPE");
+
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                return (String) field.get(null);
+            }
+        } catch (NoSuchFieldException | IllegalAccessException ex) {
+        }
+
+        return null;
     }
 
-    @Override
-    public final void onNext(EventSubInternalEvent item) {
+    /**
+     * Called by {@link EventSubRouter} to deliver an incoming message
+     *
+     * @param item The message
+     */
+    final void deliver(EventSubInternalEvent item) {
         try {
             this.onEventSubInternalEvent(item);
 
@@ -76,18 +95,6 @@ public abstract class EventSubSubscriptionType implements Flow.Subscriber<EventS
         } catch (Exception ex) {
             com.gmt2001.Console.err.printStackTrace(ex);
         }
-
-        this.flowsubscription.request(1);
-    }
-
-    @Override
-    public final void onError(Throwable throwable) {
-        com.gmt2001.Console.err.printStackTrace(throwable);
-    }
-
-    @Override
-    public final void onComplete() {
-        this.flowsubscription = null;
     }
 
     protected void onEventSubInternalEvent(EventSubInternalEvent e) {
@@ -16,7 +16,7 @@
  */
 package com.gmt2001.twitch.tmi;
 
-import com.gmt2001.ratelimiters.WindowedSwitchingRateLimiter;
+import com.gmt2001.ratelimiters.SwitchingRateLimiter;
 import com.gmt2001.twitch.cache.ViewerCache;
 import com.gmt2001.twitch.tmi.TMIMessage.TMIMessageType;
 import com.gmt2001.twitch.tmi.processors.AbstractTMIProcessor;
@@ -62,9 +62,9 @@ public final class TwitchMessageInterface extends SubmissionPublisher<TMIMessage
      */
     private static final String TMI_URI = "wss://irc-ws.chat.twitch.tv:443";
     /**
-     * A {@link WindowedSwitchingRateLimiter} to handle the PRIVMSG rate limit
+     * A {@link SwitchingRateLimiter} to handle the PRIVMSG rate limit
      */
-    private final WindowedSwitchingRateLimiter rateLimiter = new WindowedSwitchingRateLimiter(30000L, 100, 20, false);
+    private final SwitchingRateLimiter rateLimiter = SwitchingRateLimiter.create(Duration.ofSeconds(30), 100, 20, false);
     /**
      * A {@link WSPinger} to handle pinging to detect connection failure
      */
@@ -140,11 +140,11 @@ public final class TwitchMessageInterface extends SubmissionPublisher<TMIMessage
     }
 
     /**
-     * Returns the {@link WindowedSwitchingRateLimiter} used to prevent PRIVMSG spam
+     * Returns the {@link SwitchingRateLimiter} used to prevent PRIVMSG spam
      *
      * @return The rate limiter
      */
-    public WindowedSwitchingRateLimiter rateLimiter() {
+    public SwitchingRateLimiter rateLimiter() {
         return this.rateLimiter;
     }
 
@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An in-memory search index over the game list written by {@link GamesListUpdater}
+ * <p>
+ * The list is loaded once into an array sorted by its case-folded names, and reloaded when the file changes. Prefix matches are found
+ * with a binary search. If there are fewer prefix matches than the limit, the remaining results are filled with substring matches,
+ * ranking matches at the start of a word before matches inside a word. The results of recent searches are memoized per load of the list
+ *
+ * @author gmt2001
+ */
+public final class GamesListIndex {
+
+    private static final GamesListIndex INSTANCE = new GamesListIndex();
+    private static final Path GAMES_LIST = Paths.get("./web/panel/js/utils/gamesList.txt");
+    /**
+     * The maximum number of memoized searches
+     */
+    private static final int MEMO_ENTRIES = 256;
+    private volatile Snapshot snapshot = null;
+
+    /**
+     * One load of the game list
+     *
+     * @param lastModified The modification time of the file when it was loaded
+     * @param size The size of the file when it was loaded
+     * @param names The game names, sorted by {@code folded}
+     * @param folded The case-folded game names, sorted
+     * @param memo The results of recent searches of this load
+     */
+    private record Snapshot(long lastModified, long size, String[] names, String[] folded, Map<String, List<String>> memo) {
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of GamesListIndex
+     */
+    public static GamesListIndex instance() {
+        return INSTANCE;
+    }
+
+    private GamesListIndex() {
+    }
+
+    /**
+     * Drops the loaded list, so that the next search reloads it
+     */
+    public void invalidate() {
+        this.snapshot = null;
+    }
+
+    /**
+     * Searches the game list
+     *
+     * @param query The text to search for, case-insensitive
+     * @param limit The maximum number of results
+     * @return The matching game names, prefix matches first
+     * @throws IOException If the game list can not be read
+     */
+    public List<String> search(String query, int limit) throws IOException {
+        Snapshot current = this.snapshot();
+        String folded = fold(query);
+        String key = limit + ":" + folded;
+
+        synchronized (current.memo()) {
+            List<String> results = current.memo().get(key);
+            if (results != null) {
+                return results;
+            }
+        }
+
+        List<String> results = Collections.unmodifiableList(search(current, folded, limit));
+
+        synchronized (current.memo()) {
+            current.memo().put(key, results);
+        }
+
+        return results;
+    }
+
+    /**
+     * The number of games in the list
+     *
+     * @return The number of games
+     * @throws IOException If the game list can not be read
+     */
+    public int size() throws IOException {
+        return this.snapshot().names().length;
+    }
+
+    private static List<String> search(Snapshot current, String query, int limit) {
+        List<String> results = new ArrayList<>(Math.min(limit, 64));
+        String[] folded = current.folded();
+
+        if (query.isEmpty() || limit <= 0) {
+            return results;
+        }
+
+        // The exact match, if any, sorts first among the prefix matches
+        int start = Arrays.binarySearch(folded, query);
+        if (start < 0) {
+            start = -start - 1;
+        }
+
+        for (int i = start; i < folded.length && results.size() < limit && folded[i].startsWith(query); i++) {
+            results.add(current.names()[i]);
+        }
+
+        if (results.size() >= limit) {
+            return results;
+        }
+
+        int remaining = limit - results.size();
+        List<String> wordStart = new ArrayList<>();
+        List<String> inner = new ArrayList<>();
+
+        for (int i = 0; i < folded.length && wordStart.size() < remaining; i++) {
+            int idx = folded[i].indexOf(query, 1);
+
+            if (idx > 0 && !folded[i].startsWith(query)) {
+                if (!Character.isLetterOrDigit(folded[i].charAt(idx - 1))) {
+                    wordStart.add(current.names()[i]);
+                } else if (inner.size() < remaining) {
+                    inner.add(current.names()[i]);
+                }
+            }
+        }
+
+        for (String name : wordStart) {
+            if (results.size() >= limit) {
+                break;
+            }
+            results.add(name);
+        }
+
+        for (String name : inner) {
+            if (results.size() >= limit) {
+                break;
+            }
+            results.add(name);
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the loaded list, reloading it if the file has changed
+     *
+     * @return The loaded list
+     * @throws IOException If the game list can not be read
+     */
+    private Snapshot snapshot() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(GAMES_LIST, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            return new Snapshot(0L, 0L, new String[0], new String[0], new LinkedHashMap<>());
+        }
+
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Snapshot current = this.snapshot;
+
+        if (current != null && current.lastModified() == lastModified && current.size() == attributes.size()) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = this.snapshot;
+            if (current != null && current.lastModified() == lastModified && current.size() == attributes.size()) {
+                return current;
+            }
+
+            current = load(lastModified, attributes.size());
+            this.snapshot = current;
+            return current;
+        }
+    }
+
+    private static Snapshot load(long lastModified, long size) throws IOException {
+        List<String[]> games = new ArrayList<>();
+
+        for (String line : Files.readAllLines(GAMES_LIST, StandardCharsets.UTF_8)) {
+            String name = line.replace("\r", "").trim();
+            if (!name.isEmpty()) {
+                games.add(new String[]{name, fold(name)});
+            }
+        }
+
+        games.sort(Comparator.comparing((String[] g) -> g[1]));
+        String[] names = new String[games.size()];
+        String[] folded = new String[games.size()];
+
+        for (int i = 0; i < games.size(); i++) {
+            names[i] = games.get(i)[0];
+            folded[i] = games.get(i)[1];
+        }
+
+        return new Snapshot(lastModified, size, names, folded, new LinkedHashMap<>(MEMO_ENTRIES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                return this.size() > MEMO_ENTRIES;
+            }
+        });
+    }
+
+    private static String fold(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
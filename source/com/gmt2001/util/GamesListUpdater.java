@@ -208,6 +208,7 @@ public final class GamesListUpdater {
                     debug("Writing gamesList.txt version " + myVersion + "...");
                 }
                 Files.write(Paths.get("./web/panel/js/utils/gamesList.txt"), data);
+                GamesListIndex.instance().invalidate();
                 debug("Saved " + data.size() + " entries");
             } catch (IOException ex) {
                 com.gmt2001.Console.err.printStackTrace(ex);
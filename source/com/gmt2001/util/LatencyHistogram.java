@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.gmt2001.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies with a bounded relative error
+ * <p>
+ * Values are recorded in microseconds into log-linear buckets, in the style of HdrHistogram: each power of 2 is split into
+ * {@value #SUB_BUCKETS} equal buckets, so a percentile is reported within about 6% of the recorded value, using a fixed amount of memory
+ * regardless of the number of values. Values below {@value #SUB_BUCKETS} microseconds are exact
+ *
+ * @author gmt2001
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * The highest power of 2 which is tracked; about 12 days in microseconds
+     */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * A point-in-time summary of a histogram
+     *
+     * @param count The number of recorded values
+     * @param sumMillis The sum of all recorded values, in milliseconds
+     * @param meanMillis The mean value, in milliseconds
+     * @param p50Millis The median, in milliseconds
+     * @param p90Millis The 90th percentile, in milliseconds
+     * @param p99Millis The 99th percentile, in milliseconds
+     * @param maxMillis The largest recorded value, in milliseconds
+     */
+    public record Snapshot(long count, double sumMillis, double meanMillis, double p50Millis, double p90Millis, double p99Millis,
+            double maxMillis) {
+    }
+
+    /**
+     * Records a value
+     *
+     * @param nanos The value, in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0L, TimeUnit.NANOSECONDS.toMicros(nanos));
+        this.counts.incrementAndGet(index(micros));
+        this.count.increment();
+        this.sum.add(micros);
+        this.max.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded values
+     *
+     * @return The number of values
+     */
+    public long count() {
+        return this.count.sum();
+    }
+
+    /**
+     * Returns the value at a percentile
+     *
+     * @param percentile The percentile, from {@code 0.0} to {@code 100.0}
+     * @return The upper bound of the bucket which contains the percentile, capped at the largest recorded value, in milliseconds
+     */
+    public double percentile(double percentile) {
+        long total = 0L;
+        long[] snapshot = new long[BUCKETS];
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = this.counts.get(i);
+            total += snapshot[i];
+        }
+
+        if (total == 0L) {
+            return 0.0;
+        }
+
+        long target = Math.max(1L, (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+        long seen = 0L;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= target) {
+                return Math.min(upperBound(i), this.max.get()) / 1000.0;
+            }
+        }
+
+        return this.max.get() / 1000.0;
+    }
+
+    /**
+     * Returns a summary of the histogram
+     *
+     * @return The summary
+     */
+    public Snapshot snapshot() {
+        long count = this.count.sum();
+        long sum = this.sum.sum();
+        return new Snapshot(count, sum / 1000.0, count == 0L ? 0.0 : sum / 1000.0 / count, this.percentile(50.0), this.percentile(90.0),
+            this.percentile(99.0), this.max.get() / 1000.0);
+    }
+
+    /**
+     * Returns the bucket of a value
+     *
+     * @param micros The value, in microseconds
+     * @return The bucket index
+     */
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int exponent = Math.min(MAX_EXPONENT, 63 - Long.numberOfLeadingZeros(micros));
+        int sub = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return Math.min(BUCKETS - 1, SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * Returns the largest value which falls into a bucket
+     *
+     * @param index The bucket index
+     * @return The upper bound, in microseconds
+     */
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1L;
+    }
+}
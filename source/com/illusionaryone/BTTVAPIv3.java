@@ -16,10 +16,13 @@
  */
 package com.illusionaryone;
 
+import java.time.Duration;
+
 import com.gmt2001.HttpRequest;
 import com.gmt2001.httpclient.HttpClient;
 import com.gmt2001.httpclient.HttpClientResponse;
 import com.gmt2001.httpclient.URIUtil;
+import com.gmt2001.ratelimiters.RateLimiter;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -28,6 +31,7 @@ public class BTTVAPIv3 {
 
     private static BTTVAPIv3 instance;
     private static final String BASE_URL = "https://api.betterttv.net/3/cached/";
+    private static final RateLimiter RATELIMITER = RateLimiter.optional(Duration.ofMinutes(1), 30);
 
     public static BTTVAPIv3 instance() {
         if (instance == null) {
@@ -44,6 +48,11 @@ public class BTTVAPIv3 {
     private static JSONObject readJsonFromUrl(String urlAddress, boolean isJSONArray) throws JSONException {
         JSONObject jsonResult = new JSONObject("{}");
 
+        if (!RATELIMITER.takeToken()) {
+            HttpRequest.generateJSONObject(jsonResult, false, "GET", "", urlAddress, 429, "RateLimited", "Rate limited until " + RATELIMITER.nextReset());
+            return jsonResult;
+        }
+
         try {
             HttpClientResponse resp = HttpClient.get(URIUtil.create(urlAddress));
             String jsonText = resp.responseBody();
@@ -18,10 +18,13 @@
  */
 package com.illusionaryone;
 
+import java.time.Duration;
+
 import com.gmt2001.HttpRequest;
 import com.gmt2001.httpclient.HttpClient;
 import com.gmt2001.httpclient.HttpClientResponse;
 import com.gmt2001.httpclient.URIUtil;
+import com.gmt2001.ratelimiters.RateLimiter;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -35,6 +38,7 @@ public class FrankerZAPIv1 {
 
     private static FrankerZAPIv1 instance;
     private static final String APIURL = "https://api.frankerfacez.com/v1";
+    private static final RateLimiter RATELIMITER = RateLimiter.optional(Duration.ofMinutes(1), 30);
 
     public static synchronized FrankerZAPIv1 instance() {
         if (instance == null) {
@@ -51,6 +55,11 @@ public class FrankerZAPIv1 {
     private static JSONObject readJsonFromUrl(String urlAddress) throws JSONException {
         JSONObject jsonResult = new JSONObject("{}");
 
+        if (!RATELIMITER.takeToken()) {
+            HttpRequest.generateJSONObject(jsonResult, false, "GET", "", urlAddress, 429, "RateLimited", "Rate limited until " + RATELIMITER.nextReset());
+            return jsonResult;
+        }
+
         try {
             HttpClientResponse resp = HttpClient.get(URIUtil.create(urlAddress));
             String jsonText = resp.responseBody();
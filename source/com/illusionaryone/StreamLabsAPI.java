@@ -19,6 +19,7 @@
 package com.illusionaryone;
 
 import java.net.URISyntaxException;
+import java.time.Duration;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -28,6 +29,7 @@ import com.gmt2001.HttpRequest;
 import com.gmt2001.httpclient.HttpClient;
 import com.gmt2001.httpclient.HttpClientResponse;
 import com.gmt2001.httpclient.URIUtil;
+import com.gmt2001.ratelimiters.RateLimiter;
 
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -45,6 +47,7 @@ public class StreamLabsAPI {
 
     private static StreamLabsAPI instance;
     private static final String APIURL = "https://streamlabs.com/api/v2.0";
+    private static final RateLimiter RATELIMITER = RateLimiter.optional(Duration.ofMinutes(1), 60);
     private String sCurrencyCode = "";
 
     public static synchronized StreamLabsAPI instance() {
@@ -71,6 +74,11 @@ public class StreamLabsAPI {
 
     private static JSONObject readJsonFromUrl(String endpoint, String body, HttpMethod method) throws JSONException, URISyntaxException {
         JSONObject jsonResult = new JSONObject("{}");
+
+        if (!RATELIMITER.takeToken()) {
+            HttpRequest.generateJSONObject(jsonResult, false, method.name(), "", endpoint, 429, "RateLimited", "Rate limited until " + RATELIMITER.nextReset());
+            return jsonResult;
+        }
         HttpHeaders headers = HttpClient.createHeaders(method, true);
 
         headers.set(HttpHeaderNames.AUTHORIZATION, "Bearer " + getAccessToken());
@@ -26,12 +26,19 @@ import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import tv.phantombot.PhantomBot;
 
 /**
@@ -39,15 +46,19 @@ import tv.phantombot.PhantomBot;
  */
 public class YouTubeAPIv3 {
 
-    private static YouTubeAPIv3 instance;
-    private String apikey = "";
-
-    public static synchronized YouTubeAPIv3 instance() {
-        if (instance == null) {
-            instance = new YouTubeAPIv3();
-        }
+    private static final YouTubeAPIv3 INSTANCE = new YouTubeAPIv3();
+    /**
+     * The maximum number of ids accepted by one call to the {@code videos.list} endpoint
+     */
+    public static final int MAX_BATCH_SIZE = 50;
+    /**
+     * The maximum number of concurrent calls to the {@code videos.list} endpoint made by a batch lookup
+     */
+    private static final int BATCH_CONCURRENCY = 4;
+    private volatile String apikey = "";
 
-        return instance;
+    public static YouTubeAPIv3 instance() {
+        return INSTANCE;
     }
 
     private YouTubeAPIv3() {
@@ -174,95 +185,171 @@ public class YouTubeAPIv3 {
         return new String[]{"", "", ""};
     }
 
-    public int[] GetVideoLength(String id) throws JSONException {
-        return this.GetVideoLength(id, false);
+    /**
+     * @deprecated Failed lookups are retried by the batched lookup; use {@link #GetVideoLength(String)}
+     */
+    @Deprecated(since = "3.15.3.0", forRemoval = true)
+    public int[] GetVideoLength(String id, boolean isRetry) throws JSONException {
+        return this.GetVideoLength(id);
     }
 
-    public int[] GetVideoLength(String id, boolean isRetry) throws JSONException {
+    public int[] GetVideoLength(String id) throws JSONException {
         com.gmt2001.Console.debug.println("Query = [" + id + "]");
 
-        JSONObject j = GetData("https://www.googleapis.com/youtube/v3/videos?id=" + id + "&key=" + apikey + "&part=contentDetails");
-        if (j.getBoolean("_success")) {
-            if (j.getInt("_http") == 200) {
-                updateQuota(3L);
-                JSONArray a = j.getJSONArray("items");
-                if (a.length() > 0) {
-                    JSONObject i = a.getJSONObject(0);
+        YouTubeVideoRecord video = this.GetVideo(id);
+        if (video == null) {
+            com.gmt2001.Console.debug.println("Videos API Fail: Length == 0");
+            return new int[]{0, 0, 0, 0};
+        }
 
-                    JSONObject cd = i.getJSONObject("contentDetails");
+        if (video.live()) {
+            com.gmt2001.Console.debug.println("Videos API: Live Stream Detected");
+            return new int[]{0, 123, 456, 7899};
+        }
 
-                    com.gmt2001.Console.debug.println(cd.getString("duration"));
-                    Duration d = Duration.parse(cd.getString("duration"));
+        Duration d = Duration.ofSeconds(video.duration());
+        com.gmt2001.Console.debug.println("Videos API Success " + (int) d.toSeconds() + "TS " + (int) d.toHours() + "D " + d.toMinutesPart() + "M " + d.toSecondsPart() + "S");
 
-                    if (cd.getString("duration").equalsIgnoreCase("PT0S")) {
-                        com.gmt2001.Console.debug.println("Videos API: Live Stream Detected");
-                        return new int[]{0, 123, 456, 7899};
-                    }
+        return new int[]{(int) d.toSeconds(), (int) d.toHours(), d.toMinutesPart(), d.toSecondsPart()};
+    }
 
-                    com.gmt2001.Console.debug.println("Videos API Success " + (int) d.toSeconds() + "TS " + (int) d.toHours() + "D " + d.toMinutesPart() + "M " + d.toSecondsPart() + "S");
+    /**
+     * @deprecated Failed lookups are retried by the batched lookup; use {@link #GetVideoInfo(String)}
+     */
+    @Deprecated(since = "3.15.3.0", forRemoval = true)
+    public int[] GetVideoInfo(String id, boolean isRetry) throws JSONException {
+        return this.GetVideoInfo(id);
+    }
 
-                    return new int[]{(int) d.toSeconds(), (int) d.toHours(), d.toMinutesPart(), d.toSecondsPart()};
-                } else {
-                    com.gmt2001.Console.debug.println("Videos API Fail: Length == 0");
-                    return new int[]{0, 0, 0, 0};
-                }
-            } else if (j.getInt("_http") == 403 && !isRetry) {
-                com.gmt2001.Console.out.println("Detected 403, trying again in 5 seconds...");
-                Mono.delay(Duration.ofSeconds(5)).block();
-                return this.GetVideoLength(id, true);
-            } else {
-                com.gmt2001.Console.debug.println("Videos API Fail: HTTP Code " + j.getInt("_http"));
-                return new int[]{0, 0, 0, 0};
-            }
+    public int[] GetVideoInfo(String id) throws JSONException {
+        YouTubeVideoRecord video = this.GetVideo(id);
+        if (video == null) {
+            return new int[]{0, 0};
         }
-        com.gmt2001.Console.debug.println("Videos API Fatal Error");
 
-        return new int[]{0, 0, 0, 0};
+        return new int[]{video.creativeCommons() ? 1 : 0, video.embeddable() ? 1 : 0};
     }
 
-    public int[] GetVideoInfo(String id) throws JSONException {
-        return this.GetVideoInfo(id, false);
+    /**
+     * Returns the metadata of a video, from the cache if possible
+     *
+     * @param id The video id
+     * @return The metadata; {@code null} if the video was not found
+     */
+    public YouTubeVideoRecord GetVideo(String id) {
+        return this.GetVideosAsync(List.of(id)).next().block();
     }
 
-    public int[] GetVideoInfo(String id, boolean isRetry) throws JSONException {
-        int licenseRetval = 0;
-        int embedRetval = 0;
+    /**
+     * Returns the metadata of videos, from the cache if possible
+     * <p>
+     * The returned {@link Iterable} produces the results as they are resolved, in the order of {@code ids}, blocking while waiting for
+     * the next result. Videos which were not found are skipped
+     *
+     * @param ids The video ids
+     * @return The metadata
+     */
+    public Iterable<YouTubeVideoRecord> GetVideos(List<String> ids) {
+        return this.GetVideosAsync(ids).toIterable();
+    }
 
-        JSONObject jsonObject = GetData("https://www.googleapis.com/youtube/v3/videos?id=" + id + "&key=" + apikey + "&part=status");
+    /**
+     * Returns the metadata of videos, from the cache if possible
+     * <p>
+     * The ids are split into batches of up to {@link #MAX_BATCH_SIZE}. Only the ids of each batch which are not in the cache are
+     * requested, with one call to the {@code videos.list} endpoint, and up to {@link #BATCH_CONCURRENCY} batches are requested at the
+     * same time. Results are emitted in the order of {@code ids}. Videos which were not found are skipped
+     *
+     * @param ids The video ids
+     * @return The metadata
+     */
+    public Flux<YouTubeVideoRecord> GetVideosAsync(List<String> ids) {
+        return Flux.fromIterable(ids).buffer(MAX_BATCH_SIZE)
+            .flatMapSequential(batch -> Mono.fromCallable(() -> this.resolveVideos(batch)).subscribeOn(Schedulers.boundedElastic()),
+                BATCH_CONCURRENCY)
+            .flatMapIterable(videos -> videos);
+    }
 
-        if (jsonObject.getBoolean("_success")) {
-            if (jsonObject.getInt("_http") == 200) {
-                updateQuota(3L);
-                JSONArray items = jsonObject.getJSONArray("items");
-                if (items.length() > 0) {
-                    JSONObject item = items.getJSONObject(0);
-                    JSONObject status = item.getJSONObject("status");
+    /**
+     * Resolves a batch of video ids from the cache, and looks up the rest on the API
+     *
+     * @param ids Up to {@link #MAX_BATCH_SIZE} video ids
+     * @return The metadata of the videos which were found, in the order of {@code ids}
+     */
+    private List<YouTubeVideoRecord> resolveVideos(List<String> ids) {
+        Map<String, YouTubeVideoRecord> found = new HashMap<>(YouTubeVideoCache.instance().getAll(ids));
+        List<String> misses = ids.stream().filter(id -> !found.containsKey(id)).distinct().collect(Collectors.toList());
+
+        if (!misses.isEmpty()) {
+            List<YouTubeVideoRecord> fetched = this.fetchVideos(misses, false);
+            YouTubeVideoCache.instance().putAll(fetched);
+            fetched.forEach(video -> found.put(video.id(), video));
+        }
 
-                    String license = status.getString("license");
-                    boolean embeddable = status.getBoolean("embeddable");
+        List<YouTubeVideoRecord> videos = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            YouTubeVideoRecord video = found.get(id);
+            if (video != null) {
+                videos.add(video);
+            }
+        }
 
-                    licenseRetval = license.equals("creativeCommon") ? 1 : 0;
-                    embedRetval = embeddable == true ? 1 : 0;
+        return videos;
+    }
 
-                    com.gmt2001.Console.debug.println("Videos API Success");
-                } else {
-                    com.gmt2001.Console.debug.println("Videos API Fail: Length == 0");
+    /**
+     * Looks up a batch of videos on the {@code videos.list} endpoint
+     *
+     * @param ids Up to {@link #MAX_BATCH_SIZE} video ids
+     * @param isRetry {@code true} if this is a retry after a 403
+     * @return The metadata of the videos which were found
+     */
+    private List<YouTubeVideoRecord> fetchVideos(List<String> ids, boolean isRetry) throws JSONException {
+        List<YouTubeVideoRecord> videos = new ArrayList<>();
+        String idList = ids.stream().map(id -> URLEncoder.encode(id, Charset.forName("UTF-8"))).collect(Collectors.joining(","));
+
+        JSONObject j = GetData("https://www.googleapis.com/youtube/v3/videos?id=" + idList + "&key=" + apikey
+            + "&part=snippet,contentDetails,status&maxResults=" + MAX_BATCH_SIZE);
+        if (j.getBoolean("_success")) {
+            if (j.getInt("_http") == 200) {
+                updateQuota(3L);
+                long now = System.currentTimeMillis();
+                JSONArray a = j.getJSONArray("items");
+                for (int i = 0; i < a.length(); i++) {
+                    try {
+                        JSONObject item = a.getJSONObject(i);
+                        JSONObject sn = item.getJSONObject("snippet");
+                        JSONObject cd = item.getJSONObject("contentDetails");
+                        JSONObject status = item.getJSONObject("status");
+
+                        String duration = cd.optString("duration", "PT0S");
+                        boolean live = duration.equalsIgnoreCase("PT0S") || duration.equalsIgnoreCase("P0D")
+                            || !sn.optString("liveBroadcastContent", "none").equalsIgnoreCase("none");
+
+                        videos.add(new YouTubeVideoRecord(item.getString("id"), sn.optString("title", ""),
+                            live ? 0 : (int) Duration.parse(duration).toSeconds(), live,
+                            status.optString("license", "").equals("creativeCommon"), status.optBoolean("embeddable", false), now));
+                    } catch (Exception ex) {
+                        com.gmt2001.Console.err.printStackTrace(ex);
+                    }
                 }
-            } else if (jsonObject.getInt("_http") == 403 && !isRetry) {
+
+                com.gmt2001.Console.debug.println("Videos API Success: " + videos.size() + " of " + ids.size() + " found");
+            } else if (j.getInt("_http") == 403 && !isRetry) {
                 com.gmt2001.Console.out.println("Detected 403, trying again in 5 seconds...");
                 Mono.delay(Duration.ofSeconds(5)).block();
-                return this.GetVideoInfo(id, true);
+                return this.fetchVideos(ids, true);
             } else {
-                com.gmt2001.Console.debug.println("Videos API Fail: HTTP Code " + jsonObject.getInt("_http"));
+                com.gmt2001.Console.debug.println("Videos API Fail: HTTP Code " + j.getInt("_http"));
             }
         } else {
             com.gmt2001.Console.debug.println("Videos API Fatal Error");
         }
 
-        return new int[]{licenseRetval, embedRetval};
+        return videos;
     }
 
-    private void updateQuota(long quota) {
+    private synchronized void updateQuota(long quota) {
         long storedQuota = getDBLong("quotaPoints", 0L);
         String storedDate = getDBString("quotaDate", "01-01-2000");
 
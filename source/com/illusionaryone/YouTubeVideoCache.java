@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.illusionaryone;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.gmt2001.datastore2.Datastore2;
+import com.gmt2001.util.concurrent.ExecutorService;
+
+import tv.phantombot.CaselessProperties;
+
+/**
+ * Caches the metadata of YouTube videos, so each video only needs to be looked up on the API once
+ * <p>
+ * Recently used entries are held in memory, bounded by a least-recently-used policy. All entries are persisted in
+ * {@link YouTubeVideoTable}, which is pruned to a maximum number of rows by last use. Entries older than the time-to-live are
+ * treated as missing, so that changes to a video, such as the embeddable flag, are eventually picked up
+ *
+ * @author gmt2001
+ */
+public final class YouTubeVideoCache {
+    private static final YouTubeVideoCache INSTANCE = new YouTubeVideoCache();
+    /**
+     * The maximum number of entries held in memory
+     */
+    private static final int MEMORY_ENTRIES = 1000;
+    /**
+     * The minimum time between updates of the last used timestamp of an entry in the database
+     */
+    private static final long TOUCH_INTERVAL = Duration.ofHours(1).toMillis();
+    private final Map<String, YouTubeVideoRecord> memory = new LinkedHashMap<>(MEMORY_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, YouTubeVideoRecord> eldest) {
+            return this.size() > MEMORY_ENTRIES;
+        }
+    };
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of YouTubeVideoCache
+     */
+    public static YouTubeVideoCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private YouTubeVideoCache() {
+        ExecutorService.scheduleAtFixedRate(this::prune, 5, 60, TimeUnit.MINUTES);
+    }
+
+    /**
+     * The time-to-live of an entry
+     *
+     * @return The time-to-live, in milliseconds
+     */
+    private static long ttl() {
+        /**
+         * @botproperty youtubecachettl - The number of hours that the metadata of a YouTube video is cached before it is looked up again. Default `168`
+         * @botpropertycatsort youtubecachettl 20 230 YouTube
+         */
+        return Duration.ofHours(Math.max(1L, CaselessProperties.instance().getPropertyAsLong("youtubecachettl", 168L))).toMillis();
+    }
+
+    /**
+     * The maximum number of rows in the database table
+     *
+     * @return The maximum number of rows
+     */
+    private static int maxRows() {
+        /**
+         * @botproperty youtubecachesize - The maximum number of YouTube videos whose metadata is kept in the database cache. Default `10000`
+         * @botpropertycatsort youtubecachesize 30 230 YouTube
+         */
+        return Math.max(MEMORY_ENTRIES, CaselessProperties.instance().getPropertyAsInt("youtubecachesize", 10000));
+    }
+
+    /**
+     * Returns the cached metadata of the specified videos
+     * <p>
+     * Expired entries are not returned
+     *
+     * @param ids The video ids
+     * @return A map of video id to metadata, containing only the videos which were found
+     */
+    public Map<String, YouTubeVideoRecord> getAll(Collection<String> ids) {
+        final long now = System.currentTimeMillis();
+        final long expires = now - ttl();
+        final Map<String, YouTubeVideoRecord> found = new HashMap<>();
+        final List<String> misses = new ArrayList<>();
+
+        synchronized (this.memory) {
+            for (String id : ids) {
+                YouTubeVideoRecord record = this.memory.get(id);
+                if (record != null && record.fetched() >= expires) {
+                    found.put(id, record);
+                } else {
+                    misses.add(id);
+                }
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            try {
+                Datastore2.instance().dslContext().selectFrom(YouTubeVideoTable.instance())
+                    .where(YouTubeVideoTable.instance().ID.in(misses)).and(YouTubeVideoTable.instance().FETCHED.ge(expires))
+                    .fetch().forEach(record -> found.put(record.id(), record));
+            } catch (Exception ex) {
+                com.gmt2001.Console.err.printStackTrace(ex);
+            }
+        }
+
+        final List<YouTubeVideoRecord> touched = new ArrayList<>();
+
+        synchronized (this.memory) {
+            for (YouTubeVideoRecord record : found.values()) {
+                this.memory.put(record.id(), record);
+                if (now - record.lastUsed() >= TOUCH_INTERVAL) {
+                    record.lastUsed(now);
+                    touched.add(record);
+                }
+            }
+        }
+
+        if (!touched.isEmpty()) {
+            ExecutorService.execute(() -> this.store(touched));
+        }
+
+        return found;
+    }
+
+    /**
+     * Adds or replaces the metadata of videos
+     *
+     * @param records The metadata
+     */
+    public void putAll(Collection<YouTubeVideoRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        synchronized (this.memory) {
+            for (YouTubeVideoRecord record : records) {
+                this.memory.put(record.id(), record);
+            }
+        }
+
+        this.store(records);
+    }
+
+    /**
+     * Writes records to the database
+     *
+     * @param records The records
+     */
+    private void store(Collection<YouTubeVideoRecord> records) {
+        try {
+            Datastore2.instance().dslContext().batchMerge(records).execute();
+        } catch (Exception ex) {
+            com.gmt2001.Console.err.printStackTrace(ex);
+        }
+    }
+
+    /**
+     * Removes expired rows, and the least recently used rows above the maximum size, from the database
+     */
+    private void prune() {
+        try {
+            Datastore2.instance().dslContext().deleteFrom(YouTubeVideoTable.instance())
+                .where(YouTubeVideoTable.instance().FETCHED.lt(System.currentTimeMillis() - ttl())).execute();
+
+            Long cutoff = Datastore2.instance().dslContext().select(YouTubeVideoTable.instance().LASTUSED).from(YouTubeVideoTable.instance())
+                .orderBy(YouTubeVideoTable.instance().LASTUSED.desc()).limit(1).offset(maxRows()).fetchOne(YouTubeVideoTable.instance().LASTUSED);
+
+            if (cutoff != null) {
+                Datastore2.instance().dslContext().deleteFrom(YouTubeVideoTable.instance())
+                    .where(YouTubeVideoTable.instance().LASTUSED.le(cutoff)).execute();
+            }
+        } catch (Exception ex) {
+            com.gmt2001.Console.err.printStackTrace(ex);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.illusionaryone;
+
+import com.gmt2001.datastore2.record.Record8;
+
+/**
+ * A record in {@link YouTubeVideoTable} holding the metadata of a YouTube video
+ *
+ * @author gmt2001
+ */
+public final class YouTubeVideoRecord extends Record8<YouTubeVideoRecord, String, String, Integer, Boolean, Boolean, Boolean, Long, Long> {
+    /**
+     * Version of this record implementation
+     */
+    public static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor
+     */
+    public YouTubeVideoRecord() {
+        super(YouTubeVideoTable.instance(), () -> YouTubeVideoTable.instance().ID, () -> YouTubeVideoTable.instance().TITLE,
+            () -> YouTubeVideoTable.instance().DURATION, () -> YouTubeVideoTable.instance().LIVE,
+            () -> YouTubeVideoTable.instance().CREATIVECOMMONS, () -> YouTubeVideoTable.instance().EMBEDDABLE,
+            () -> YouTubeVideoTable.instance().FETCHED, () -> YouTubeVideoTable.instance().LASTUSED);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param id the video id
+     * @param title the video title
+     * @param duration the video duration, in seconds
+     * @param live {@code true} if the video is a live stream
+     * @param creativeCommons {@code true} if the video is licensed as Creative Commons
+     * @param embeddable {@code true} if the video can be embedded
+     * @param fetched the timestamp of when the metadata was retrieved
+     */
+    public YouTubeVideoRecord(String id, String title, int duration, boolean live, boolean creativeCommons, boolean embeddable, long fetched) {
+        this();
+        this.values(id, title, duration, live, creativeCommons, embeddable, fetched, fetched);
+        this.resetChangedOnNotNull();
+    }
+
+    /**
+     * The video id
+     *
+     * @return the video id
+     */
+    public String id() {
+        return this.value1();
+    }
+
+    /**
+     * The video title
+     *
+     * @return the video title
+     */
+    public String title() {
+        return this.value2();
+    }
+
+    /**
+     * The video duration
+     *
+     * @return the duration, in seconds; {@code 0} for a live stream
+     */
+    public int duration() {
+        return this.value3();
+    }
+
+    /**
+     * Indicates if the video is a live stream
+     *
+     * @return {@code true} if the video is a live stream
+     */
+    public boolean live() {
+        return this.value4();
+    }
+
+    /**
+     * Indicates if the video is licensed as Creative Commons
+     *
+     * @return {@code true} if the video is licensed as Creative Commons
+     */
+    public boolean creativeCommons() {
+        return this.value5();
+    }
+
+    /**
+     * Indicates if the video can be embedded in the player
+     *
+     * @return {@code true} if the video can be embedded
+     */
+    public boolean embeddable() {
+        return this.value6();
+    }
+
+    /**
+     * The timestamp of when the metadata was retrieved from YouTube
+     *
+     * @return the timestamp, in milliseconds since the epoch
+     */
+    public long fetched() {
+        return this.value7();
+    }
+
+    /**
+     * The timestamp of when the metadata was last used
+     *
+     * @return the timestamp, in milliseconds since the epoch
+     */
+    public long lastUsed() {
+        return this.value8();
+    }
+
+    /**
+     * Sets the timestamp of when the metadata was last used
+     *
+     * @param lastUsed the timestamp, in milliseconds since the epoch
+     */
+    public void lastUsed(long lastUsed) {
+        this.value8(lastUsed);
+    }
+}
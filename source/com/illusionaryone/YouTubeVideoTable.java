@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.illusionaryone;
+
+import java.util.Optional;
+
+import org.jooq.Table;
+import org.jooq.TableField;
+import org.jooq.UniqueKey;
+import org.jooq.impl.DSL;
+import org.jooq.impl.Internal;
+import org.jooq.impl.SQLDataType;
+import org.jooq.impl.TableImpl;
+
+import com.gmt2001.datastore2.Datastore2;
+import com.gmt2001.datastore2.meta.TableVersion;
+import com.gmt2001.datastore2.meta.TableVersionRecord;
+
+/**
+ * Stores the metadata of YouTube videos retrieved from the {@code videos.list} endpoint
+ *
+ * @author gmt2001
+ */
+public final class YouTubeVideoTable extends TableImpl<YouTubeVideoRecord> {
+
+    /**
+     * Instance
+     */
+    private static final YouTubeVideoTable INSTANCE = new YouTubeVideoTable();
+
+    /**
+     * Table name in the database
+     */
+    private static final String TABLENAME = Datastore2.PREFIX + "YouTubeVideo";
+
+    /**
+     * Provides an instance of {@link YouTubeVideoTable}
+     *
+     * @return an instance of {@link YouTubeVideoTable}
+     */
+    public static YouTubeVideoTable instance() {
+        return INSTANCE;
+    }
+
+    static {
+        checkAndCreateTable();
+    }
+
+    /**
+     * The class holding records for this table
+     */
+    @Override
+    public Class<YouTubeVideoRecord> getRecordType() {
+        return YouTubeVideoRecord.class;
+    }
+
+    /**
+     * The video id
+     */
+    public final TableField<YouTubeVideoRecord, String> ID = createField(DSL.name("id"), SQLDataType.VARCHAR(16).nullable(false), this, "");
+
+    /**
+     * The video title
+     */
+    public final TableField<YouTubeVideoRecord, String> TITLE = createField(DSL.name("title"), SQLDataType.VARCHAR(255).nullable(false), this, "");
+
+    /**
+     * The video duration, in seconds
+     */
+    public final TableField<YouTubeVideoRecord, Integer> DURATION = createField(DSL.name("duration"), SQLDataType.INTEGER.nullable(false).defaultValue(0), this, "");
+
+    /**
+     * If the video is a live stream
+     */
+    public final TableField<YouTubeVideoRecord, Boolean> LIVE = createField(DSL.name("live"), SQLDataType.BOOLEAN.nullable(false).defaultValue(false), this, "");
+
+    /**
+     * If the video is licensed as Creative Commons
+     */
+    public final TableField<YouTubeVideoRecord, Boolean> CREATIVECOMMONS = createField(DSL.name("creativeCommons"), SQLDataType.BOOLEAN.nullable(false).defaultValue(false), this, "");
+
+    /**
+     * If the video can be embedded
+     */
+    public final TableField<YouTubeVideoRecord, Boolean> EMBEDDABLE = createField(DSL.name("embeddable"), SQLDataType.BOOLEAN.nullable(false).defaultValue(false), this, "");
+
+    /**
+     * Timestamp of when the metadata was retrieved from YouTube
+     */
+    public final TableField<YouTubeVideoRecord, Long> FETCHED = createField(DSL.name("fetched"), SQLDataType.BIGINT.nullable(false), this, "");
+
+    /**
+     * Timestamp of when the metadata was last used
+     */
+    public final TableField<YouTubeVideoRecord, Long> LASTUSED = createField(DSL.name("lastUsed"), SQLDataType.BIGINT.nullable(false), this, "");
+
+    /**
+     * Constructor
+     */
+    private YouTubeVideoTable() {
+        super(DSL.name(TABLENAME));
+    }
+
+    /**
+     * The primary key constraint
+     *
+     * @return the key
+     */
+    @Override
+    public UniqueKey<YouTubeVideoRecord> getPrimaryKey() {
+        return Internal.createUniqueKey(this, DSL.name(TABLENAME + "_PK"), this.ID);
+    }
+
+    /**
+     * Checks if the database table for {@link YouTubeVideoTable} exists, and creates it if it is missing
+     */
+    private static void checkAndCreateTable() {
+        Optional<Table<?>> table = Datastore2.instance().findTable(TABLENAME);
+
+        TableVersionRecord tvrecord = Datastore2.instance().dslContext().fetchOne(TableVersion.instance(), TableVersion.instance().TABLE.eq(TABLENAME));
+
+        long version = tvrecord == null ? 0L : tvrecord.version();
+
+        if (!table.isPresent() || version < YouTubeVideoRecord.serialVersionUID) {
+            try {
+                Datastore2.instance().dslContext().createTableIfNotExists(TABLENAME)
+                    .column(YouTubeVideoTable.instance().ID)
+                    .column(YouTubeVideoTable.instance().TITLE)
+                    .column(YouTubeVideoTable.instance().DURATION)
+                    .column(YouTubeVideoTable.instance().LIVE)
+                    .column(YouTubeVideoTable.instance().CREATIVECOMMONS)
+                    .column(YouTubeVideoTable.instance().EMBEDDABLE)
+                    .column(YouTubeVideoTable.instance().FETCHED)
+                    .column(YouTubeVideoTable.instance().LASTUSED)
+                    .primaryKey(YouTubeVideoTable.instance().ID).execute();
+
+                Datastore2.instance().invalidateTableCache();
+            } catch (Exception ex) {
+                com.gmt2001.Console.err.printStackTrace(ex);
+            }
+
+            try {
+                TableVersionRecord record = new TableVersionRecord();
+                record.values(YouTubeVideoTable.instance(), YouTubeVideoRecord.serialVersionUID);
+                record.merge();
+            } catch (Exception ex) {
+                com.gmt2001.Console.err.printStackTrace(ex);
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.scaniatv;
 
 import java.net.URISyntaxException;
+import java.time.Duration;
 
 import org.json.JSONObject;
 
@@ -24,6 +25,7 @@ import com.gmt2001.HttpRequest;
 import com.gmt2001.httpclient.HttpClient;
 import com.gmt2001.httpclient.HttpClientResponse;
 import com.gmt2001.httpclient.URIUtil;
+import com.gmt2001.ratelimiters.RateLimiter;
 
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -37,6 +39,7 @@ public class StreamElementsAPIv2 {
 
     private static final StreamElementsAPIv2 instance = new StreamElementsAPIv2();
     private static final String URL = "https://api.streamelements.com/kappa/v2";
+    private static final RateLimiter RATELIMITER = RateLimiter.optional(Duration.ofMinutes(1), 60);
 
     /*
      * Returns the current instance.
@@ -57,6 +60,11 @@ public class StreamElementsAPIv2 {
     @SuppressWarnings("UseSpecificCatch")
     private static JSONObject readJsonFromUrl(String endpoint) throws URISyntaxException {
         JSONObject jsonResult = new JSONObject("{}");
+
+        if (!RATELIMITER.takeToken()) {
+            HttpRequest.generateJSONObject(jsonResult, false, "GET", "", endpoint, 429, "RateLimited", "Rate limited until " + RATELIMITER.nextReset());
+            return jsonResult;
+        }
         HttpHeaders headers = HttpClient.createHeaders(HttpMethod.GET, true);
         headers.add(HttpHeaderNames.AUTHORIZATION, "Bearer " + getJWT());
         HttpClientResponse response = HttpClient.get(URIUtil.create(URL + endpoint), headers);
@@ -21,6 +21,7 @@
 package com.scaniatv;
 
 import java.net.URISyntaxException;
+import java.time.Duration;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -29,6 +30,7 @@ import com.gmt2001.HttpRequest;
 import com.gmt2001.httpclient.HttpClient;
 import com.gmt2001.httpclient.HttpClientResponse;
 import com.gmt2001.httpclient.URIUtil;
+import com.gmt2001.ratelimiters.RateLimiter;
 
 import tv.phantombot.CaselessProperties;
 
@@ -36,6 +38,7 @@ public class TipeeeStreamAPIv1 {
 
     private static TipeeeStreamAPIv1 instance;
     private static final String URL = "https://api.tipeeestream.com/v1.0/events.json";
+    private static final RateLimiter RATELIMITER = RateLimiter.optional(Duration.ofMinutes(1), 60);
 
     /*
      * Returns the current instance.
@@ -59,6 +62,11 @@ public class TipeeeStreamAPIv1 {
      */
     private static JSONObject readJsonFromUrl(String endpoint) throws JSONException, URISyntaxException {
         JSONObject jsonResult = new JSONObject("{}");
+
+        if (!RATELIMITER.takeToken()) {
+            HttpRequest.generateJSONObject(jsonResult, false, "GET", "", endpoint, 429, "RateLimited", "Rate limited until " + RATELIMITER.nextReset());
+            return jsonResult;
+        }
         HttpClientResponse response = HttpClient.get(URIUtil.create(endpoint));
 
         if (response.hasJson()) {
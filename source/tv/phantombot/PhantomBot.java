@@ -68,6 +68,7 @@ import tv.phantombot.CaselessProperties.Transaction;
 import tv.phantombot.cache.DonationsCache;
 import tv.phantombot.cache.EmotesCache;
 import tv.phantombot.cache.FollowersCache;
+import tv.phantombot.cache.PermissionCache;
 import tv.phantombot.cache.StreamElementsCache;
 import tv.phantombot.cache.TipeeeStreamCache;
 import tv.phantombot.cache.TwitchCache;
@@ -89,6 +90,7 @@ import tv.phantombot.httpserver.HTTPNoAuthHandler;
 import tv.phantombot.httpserver.HTTPOAuthHandler;
 import tv.phantombot.httpserver.HTTPPanelAndYTHandler;
 import tv.phantombot.httpserver.HttpSetupHandler;
+import tv.phantombot.panel.PanelUser.PanelSession;
 import tv.phantombot.panel.WsAlertsPollsHandler;
 import tv.phantombot.panel.WsPanelHandler;
 import tv.phantombot.panel.WsPanelRemoteLoginHandler;
@@ -126,6 +128,7 @@ public final class PhantomBot implements Listener {
     private HTTPAuthenticatedHandler httpAuthenticatedHandler;
     private HTTPPanelAndYTHandler httpPanelHandler;
     private HttpSetupHandler httpSetupHandler;
+    private String panelLogin = null;
 
     /* PhantomBot Information */
     private static PhantomBot instance;
@@ -742,6 +745,13 @@ public final class PhantomBot implements Listener {
             com.gmt2001.Console.out.println("The default URL is http://localhost:" + CaselessProperties.instance().getPropertyAsInt("baseport", 25000) + "/setup/");
             com.gmt2001.Console.out.println("");
         }
+
+        String login = CaselessProperties.instance().getProperty("paneluser", "panel") + ":" + CaselessProperties.instance().getProperty("panelpassword", "panel");
+        if (this.panelLogin != null && !this.panelLogin.equals(login)) {
+            com.gmt2001.Console.debug.println("Revoke panel sessions");
+            PanelSession.instance().revokeAll();
+        }
+        this.panelLogin = login;
     }
 
     private String getPanelOAuth() {
@@ -971,6 +981,7 @@ public final class PhantomBot implements Listener {
         this.twitchCache = TwitchCache.instance();
         RhinoRuntime.ExposePropertyToScripts("twitchcache", this.twitchCache);
         RhinoRuntime.ExposePropertyToScripts("viewer", ViewerCache.instance());
+        RhinoRuntime.ExposePropertyToScripts("permissionCache", PermissionCache.instance());
 
         /* And finally try to load init, that will then load the scripts */
         try {
@@ -1109,6 +1120,8 @@ public final class PhantomBot implements Listener {
 
         com.gmt2001.Console.out.print("\r\n");
         this.print("Closing the database...");
+        com.gmt2001.Console.debug.println("Flush DB touches");
+        DataStore.instance().flushTouches();
         com.gmt2001.Console.debug.println("Close DB");
         Datastore2.instance().dispose();
 
@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package tv.phantombot.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.gmt2001.datastore.DataStore;
+import com.gmt2001.twitch.eventsub.subscriptions.channel.ChannelModerate;
+import com.gmt2001.twitch.eventsub.subscriptions.channel.data.UserData;
+import com.gmt2001.util.concurrent.ExecutorService;
+
+import net.engio.mbassy.listener.Handler;
+import tv.phantombot.event.EventBus;
+import tv.phantombot.event.Listener;
+import tv.phantombot.event.eventsub.channel.EventSubChannelModerateEvent;
+import tv.phantombot.event.irc.channel.IrcChannelUserModeEvent;
+import tv.phantombot.event.jvm.PropertiesReloadedEvent;
+import tv.phantombot.event.twitch.TwitchUserLoginChangedEvent;
+import tv.phantombot.event.twitch.subscriber.TwitchMassSubscriptionGiftedEvent;
+import tv.phantombot.event.twitch.subscriber.TwitchSubscriberEvent;
+import tv.phantombot.event.twitch.subscriber.TwitchSubscriptionGiftEvent;
+import tv.phantombot.event.webpanel.websocket.WebPanelSocketUpdateEvent;
+
+/**
+ * Caches the resolved permission group id of users, as computed by {@code ./core/permissions.js}
+ * <p>
+ * Entries are keyed by the lower-case user login, which is the key used by the {@code group} table and all script callers.
+ * The cached value is the group id resolved without IRC tags, since tags can only raise the permission of a single message
+ * <p>
+ * Entries are invalidated when the user's row in the {@code group} table is written, when a mode or VIP change is received from
+ * IRC or EventSub, when a subscription notification is received, and when the panel sends an update to the permissions script.
+ * All entries also expire after a short time as a safety net for changes which are not observable, such as manual database edits
+ *
+ * @author gmt2001
+ */
+public final class PermissionCache implements Listener {
+    private static final PermissionCache INSTANCE = new PermissionCache();
+    private static final Duration EXPIRE = Duration.ofMinutes(5);
+    /**
+     * The value returned by {@link #get(String)} when there is no cached value
+     */
+    public static final int UNKNOWN = -1;
+    private final ConcurrentMap<String, Entry> tiers = new ConcurrentHashMap<>();
+    /**
+     * Incremented by every invalidation, so that a value which was resolved before an invalidation is not stored after it
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private boolean registered = false;
+
+    /**
+     * A cached group id
+     *
+     * @param tier the group id
+     * @param expires the {@link System#nanoTime()} after which the entry is no longer valid
+     */
+    private record Entry(int tier, long expires) {
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of PermissionCache
+     */
+    public static PermissionCache instance() {
+        if (!INSTANCE.registered) {
+            INSTANCE.register();
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private PermissionCache() {
+        ExecutorService.scheduleAtFixedRate(this::doGC, 5, 5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * EventBus and DataStore registration
+     */
+    private synchronized void register() {
+        if (!this.registered) {
+            EventBus.instance().register(this);
+            DataStore.instance().addWriteListener("group", this::onGroupWrite);
+            this.registered = true;
+        }
+    }
+
+    /**
+     * Removes expired entries
+     */
+    private void doGC() {
+        final long now = System.nanoTime();
+        this.tiers.entrySet().removeIf(kv -> kv.getValue().expires() - now < 0);
+    }
+
+    /**
+     * Returns the cached group id of the specified user
+     *
+     * @param login The user login
+     * @return The cached group id; {@link #UNKNOWN} if not cached or expired
+     */
+    public int get(String login) {
+        Entry entry = this.tiers.get(login.toLowerCase());
+
+        if (entry == null || entry.expires() - System.nanoTime() < 0) {
+            return UNKNOWN;
+        }
+
+        return entry.tier();
+    }
+
+    /**
+     * Returns the current invalidation generation, which must be read before resolving a group id that is passed to
+     * {@link #put(String, int, long)}
+     *
+     * @return The generation
+     */
+    public long generation() {
+        return this.generation.get();
+    }
+
+    /**
+     * Stores the resolved group id of the specified user
+     * <p>
+     * The value is not stored if any entry was invalidated since {@code generation} was read, since it may have been resolved from
+     * data which was changed in the meantime
+     *
+     * @param login The user login
+     * @param tier The resolved group id
+     * @param generation The value of {@link #generation()} from before the group id was resolved
+     * @return {@code tier}
+     */
+    public int put(String login, int tier, long generation) {
+        if (this.generation.get() != generation) {
+            return tier;
+        }
+
+        String key = login.toLowerCase();
+        Entry entry = new Entry(tier, System.nanoTime() + EXPIRE.toNanos());
+        this.tiers.put(key, entry);
+
+        // An invalidation which raced with the put above may have already removed the key, so remove the new entry again
+        if (this.generation.get() != generation) {
+            this.tiers.remove(key, entry);
+        }
+
+        return tier;
+    }
+
+    /**
+     * Removes the cached group id of the specified user
+     *
+     * @param login The user login
+     */
+    public void invalidate(String login) {
+        if (login != null) {
+            this.generation.incrementAndGet();
+            this.tiers.remove(login.toLowerCase());
+        }
+    }
+
+    /**
+     * Removes all cached group ids
+     */
+    public void invalidateAll() {
+        this.generation.incrementAndGet();
+        this.tiers.clear();
+    }
+
+    /**
+     * Returns the number of cached entries
+     *
+     * @return The number of cached entries
+     */
+    public int size() {
+        return this.tiers.size();
+    }
+
+    /**
+     * Estimates the number of bytes of heap used by the cache, assuming compressed references
+     *
+     * @return The estimated number of bytes used
+     */
+    public long estimatedMemoryUsage() {
+        long size = 0L;
+
+        for (String login : this.tiers.keySet()) {
+            // Map entry, Entry record, and the login string
+            size += 32L + 24L + 24L + ((16L + login.length() + 7L) & ~7L);
+        }
+
+        return size;
+    }
+
+    /**
+     * Handles a write to the {@code group} table
+     *
+     * @param key The changed key; {@code null} if the table or a section was changed
+     */
+    private void onGroupWrite(String key) {
+        if (key == null) {
+            this.invalidateAll();
+        } else {
+            this.invalidate(key);
+        }
+    }
+
+    /**
+     * Invalidates a user whose operator or VIP mode has changed in IRC
+     *
+     * @param event The event to process
+     */
+    @Handler
+    public void onIrcChannelUserModeEvent(IrcChannelUserModeEvent event) {
+        this.invalidate(event.getUser());
+    }
+
+    /**
+     * Invalidates a user who has gained or lost moderator or VIP via EventSub
+     *
+     * @param event The event to process
+     */
+    @Handler
+    public void onEventSubChannelModerateEvent(EventSubChannelModerateEvent event) {
+        ChannelModerate e = event.event();
+        UserData user = switch (e.action()) {
+            case "vip" -> e.vip();
+            case "unvip" -> e.unvip();
+            case "mod" -> e.mod();
+            case "unmod" -> e.unmod();
+            default -> null;
+        };
+
+        if (user != null) {
+            this.invalidate(user.userLogin());
+        }
+    }
+
+    /**
+     * Invalidates a user who has subscribed
+     *
+     * @param event The event to process
+     */
+    @Handler
+    public void onTwitchSubscriberEvent(TwitchSubscriberEvent event) {
+        this.invalidate(event.getSubscriber());
+    }
+
+    /**
+     * Invalidates a user who has received a gifted subscription
+     *
+     * @param event The event to process
+     */
+    @Handler
+    public void onTwitchSubscriptionGiftEvent(TwitchSubscriptionGiftEvent event) {
+        this.invalidate(event.getRecipient());
+    }
+
+    /**
+     * Invalidates all users when a mass gift is received, since the recipients are not known yet
+     *
+     * @param event The event to process
+     */
+    @Handler
+    public void onTwitchMassSubscriptionGiftedEvent(TwitchMassSubscriptionGiftedEvent event) {
+        this.invalidateAll();
+    }
+
+    /**
+     * Invalidates a user who has changed their login
+     *
+     * @param event The event to process
+     */
+    @Handler
+    public void onTwitchUserLoginChangedEvent(TwitchUserLoginChangedEvent event) {
+        this.invalidate(event.oldLogin());
+        this.invalidate(event.newLogin());
+    }
+
+    /**
+     * Invalidates all users when the panel sends an update to the permissions script
+     *
+     * @param event The event to process
+     */
+    @Handler
+    public void onWebPanelSocketUpdateEvent(WebPanelSocketUpdateEvent event) {
+        if (event.getScript() != null && event.getScript().endsWith("permissions.js")) {
+            this.invalidateAll();
+        }
+    }
+
+    /**
+     * Invalidates all users when the properties are reloaded, since the owner may have changed
+     *
+     * @param event The event to process
+     */
+    @Handler
+    public void onPropertiesReloadedEvent(PropertiesReloadedEvent event) {
+        this.invalidateAll();
+    }
+}
@@ -44,12 +44,17 @@ import org.json.JSONObject;
 
 import com.gmt2001.HttpRequest;
 import com.gmt2001.HttpResponse;
+import com.gmt2001.JSTimers;
 import com.gmt2001.datastore.DataStore;
 import com.gmt2001.datastore2.Datastore2;
 import com.gmt2001.datastore2.H2Store2;
 import com.gmt2001.datastore2.MariaDBStore2;
 import com.gmt2001.datastore2.MySQLStore2;
 import com.gmt2001.datastore2.SQLiteStore2;
+import com.gmt2001.twitch.cache.ViewerCache;
+import com.gmt2001.twitch.eventsub.EventSub;
+import com.gmt2001.twitch.eventsub.EventSubDeduplicator;
+import com.gmt2001.twitch.eventsub.EventSubRouter;
 import com.gmt2001.twitch.tmi.TwitchMessageInterface;
 import com.gmt2001.util.Reflect;
 
@@ -57,7 +62,9 @@ import net.engio.mbassy.listener.Handler;
 import tv.phantombot.CaselessProperties;
 import tv.phantombot.CaselessProperties.Transaction;
 import tv.phantombot.PhantomBot;
+import tv.phantombot.cache.PermissionCache;
 import tv.phantombot.discord.DiscordAPI;
+import tv.phantombot.discord.util.DiscordSendQueue;
 import tv.phantombot.event.EventBus;
 import tv.phantombot.event.Listener;
 import tv.phantombot.event.console.ConsoleInputEvent;
@@ -74,8 +81,10 @@ import tv.phantombot.event.twitch.subscriber.TwitchPrimeSubscriberEvent;
 import tv.phantombot.event.twitch.subscriber.TwitchReSubscriberEvent;
 import tv.phantombot.event.twitch.subscriber.TwitchSubscriberEvent;
 import tv.phantombot.event.twitch.subscriber.TwitchSubscriptionGiftEvent;
+import tv.phantombot.panel.PanelUser.PanelSession;
 import tv.phantombot.panel.PanelUser.PanelUserHandler;
 import tv.phantombot.script.RhinoRuntime;
+import tv.phantombot.twitch.irc.chat.utils.MessageQueue;
 
 public final class ConsoleEventHandler implements Listener {
 
@@ -957,6 +966,99 @@ public final class ConsoleEventHandler implements Listener {
             return;
         }
 
+        /**
+         * @consolecommand cachememory - Prints the number of entries and estimated heap usage of the viewer and permission caches
+         */
+        if (message.equalsIgnoreCase("cachememory")) {
+            ViewerCache viewerCache = ViewerCache.instance();
+            PermissionCache permissionCache = PermissionCache.instance();
+            com.gmt2001.Console.out.println("ViewerCache: " + viewerCache.size() + " viewers (" + viewerCache.chattersCount() + " in chat), ~"
+                + (viewerCache.estimatedMemoryUsage() / 1024L) + " KiB");
+            com.gmt2001.Console.out.println("PermissionCache: " + permissionCache.size() + " users, ~"
+                + (permissionCache.estimatedMemoryUsage() / 1024L) + " KiB");
+            return;
+        }
+
+        /**
+         * @consolecommand eventsubstats - Prints the delivery counters of each EventSub routing lane, and the duplicate message counters
+         */
+        if (message.equalsIgnoreCase("eventsubstats")) {
+            EventSubRouter router = EventSub.instance().router();
+            for (EventSubRouter.LaneStats stats : router.stats()) {
+                com.gmt2001.Console.out.println(stats.name() + ": " + stats.handlers() + " handlers, " + stats.delivered() + " delivered, "
+                    + stats.backlog() + " queued, avg " + stats.averageLatencyMicros() + "us, max " + stats.maxLatencyMicros() + "us");
+            }
+            com.gmt2001.Console.out.println("Unrouted notifications: " + router.unrouted());
+            EventSubDeduplicator.Stats dedup = EventSub.instance().deduplicator().stats();
+            com.gmt2001.Console.out.println("Duplicates: " + dedup.duplicates() + " of " + dedup.checked() + " messages ("
+                + String.format("%.2f", dedup.duplicateRate() * 100.0) + "%), " + dedup.size() + " ids remembered");
+            return;
+        }
+
+        /**
+         * @consolecommand discordqueuestats - Prints the counters of the non-blocking Discord send queue
+         */
+        if (message.equalsIgnoreCase("discordqueuestats")) {
+            DiscordSendQueue.Stats stats = DiscordSendQueue.instance().stats();
+            com.gmt2001.Console.out.println("Discord send queue: " + stats.channels() + " channels, " + stats.queued() + " queued, " + stats.sent()
+                + " sent, " + stats.failed() + " failed, " + stats.coalesced() + " coalesced, avg " + stats.averageLatencyMillis() + "ms, max "
+                + stats.maxLatencyMillis() + "ms");
+            return;
+        }
+
+        /**
+         * @consolecommand jstimerstats - Prints the execution time and drift of the script timers, by timer name
+         */
+        if (message.equalsIgnoreCase("jstimerstats")) {
+            com.gmt2001.Console.out.println("Script timers: " + JSTimers.instance().size() + " active");
+            for (JSTimers.TimerReport report : JSTimers.instance().report()) {
+                com.gmt2001.Console.out.println(String.format("  %s%s: %d runs, exec avg %.2fms max %.2fms, drift avg %.2fms max %.2fms", report.name(),
+                    report.interval() ? " [interval]" : "", report.runs(), report.averageExecutionMillis(), report.maxExecutionMillis(),
+                    report.averageDriftMillis(), report.maxDriftMillis()));
+            }
+            return;
+        }
+
+        /**
+         * @consolecommand chatqueuestats - Prints the depth and wait times of the outbound chat queue, by priority
+         */
+        if (message.equalsIgnoreCase("chatqueuestats")) {
+            if (PhantomBot.instance().getSession() == null) {
+                com.gmt2001.Console.out.println("Chat is not connected");
+                return;
+            }
+
+            for (MessageQueue.QueueStats stats : PhantomBot.instance().getSession().stats()) {
+                com.gmt2001.Console.out.println("Chat queue " + stats.priority() + ": " + stats.depth() + " queued, " + stats.sent() + " sent, "
+                    + stats.packed() + " packed, " + stats.expired() + " expired, " + stats.dropped() + " dropped, avg wait " + stats.averageWaitMillis() + "ms, max wait "
+                    + stats.maxWaitMillis() + "ms");
+            }
+            return;
+        }
+
+        /**
+         * @consolecommand panelauthstats - Prints the number and latency of panel logins checked by session token and by password
+         */
+        if (message.equalsIgnoreCase("panelauthstats")) {
+            PanelSession.Stats stats = PanelSession.instance().stats();
+            com.gmt2001.Console.out.println("Panel sessions: " + (PanelSession.isEnabled() ? "enabled, " + PanelSession.ttl().toMinutes() + " minute lifetime" : "disabled")
+                + ", " + stats.issued() + " issued, " + stats.revoked() + " revoked, " + stats.cachedUsers() + " cached users");
+            com.gmt2001.Console.out.println(String.format("  Session: %d accepted, %d rejected, avg %.3fms max %.3fms", stats.sessionHits(),
+                stats.sessionMisses(), stats.averageSessionMillis(), stats.maxSessionMillis()));
+            com.gmt2001.Console.out.println(String.format("  Password: %d accepted, %d rejected, avg %.3fms max %.3fms", stats.passwordLogins(),
+                stats.failedLogins(), stats.averagePasswordMillis(), stats.maxPasswordMillis()));
+            return;
+        }
+
+        /**
+         * @consolecommand revokepanelsessions - Ends all panel login sessions, so every user must be checked by password again
+         */
+        if (message.equalsIgnoreCase("revokepanelsessions")) {
+            PanelSession.instance().revokeAll();
+            com.gmt2001.Console.out.println("All panel sessions have been revoked");
+            return;
+        }
+
         if (message.equalsIgnoreCase("paneluser")) {
             if (argument == null || argument.length < 1 || argument[0].isBlank() || argument[1].isBlank()) {
                 com.gmt2001.Console.out.println("Invalid paneluser command");
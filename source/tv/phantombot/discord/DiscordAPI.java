@@ -30,6 +30,7 @@ import discord4j.core.event.domain.VoiceStateUpdateEvent;
 import discord4j.core.event.domain.guild.GuildCreateEvent;
 import discord4j.core.event.domain.guild.MemberJoinEvent;
 import discord4j.core.event.domain.guild.MemberLeaveEvent;
+import discord4j.core.event.domain.guild.MemberUpdateEvent;
 import discord4j.core.event.domain.lifecycle.DisconnectEvent;
 import discord4j.core.event.domain.lifecycle.ReadyEvent;
 import discord4j.core.event.domain.message.MessageCreateEvent;
@@ -72,6 +73,7 @@ import reactor.core.publisher.Sinks;
 import reactor.util.concurrent.Queues;
 import tv.phantombot.CaselessProperties;
 import tv.phantombot.PhantomBot;
+import tv.phantombot.discord.util.DiscordGuildCache;
 import tv.phantombot.discord.util.DiscordUtil;
 import tv.phantombot.event.EventBus;
 import tv.phantombot.event.discord.channel.DiscordChannelCommandEvent;
@@ -292,6 +294,7 @@ public class DiscordAPI extends DiscordUtil {
                 dispatcher.on(MessageCreateEvent.class).doOnNext(event -> DiscordEventListener.onDiscordMessageEvent(event)).onErrorContinue((e, o) -> com.gmt2001.Console.err.printStackTrace(e)).retry().doFinally((s) -> com.gmt2001.Console.debug.println("MessageCreateEvent disconnected due to " + s.name())).then()).and(
                 dispatcher.on(MemberJoinEvent.class).doOnNext(event -> DiscordEventListener.onDiscordUserJoinEvent(event)).onErrorContinue((e, o) -> com.gmt2001.Console.err.printStackTrace(e)).retry().doFinally((s) -> com.gmt2001.Console.debug.println("MemberJoinEvent disconnected due to " + s.name())).then()).and(
                 dispatcher.on(MemberLeaveEvent.class).doOnNext(event -> DiscordEventListener.onDiscordUserLeaveEvent(event)).onErrorContinue((e, o) -> com.gmt2001.Console.err.printStackTrace(e)).retry().doFinally((s) -> com.gmt2001.Console.debug.println("MemberLeaveEvent disconnected due to " + s.name())).then()).and(
+                dispatcher.on(MemberUpdateEvent.class).doOnNext(event -> DiscordEventListener.onDiscordMemberUpdateEvent(event)).onErrorContinue((e, o) -> com.gmt2001.Console.err.printStackTrace(e)).retry().doFinally((s) -> com.gmt2001.Console.debug.println("MemberUpdateEvent disconnected due to " + s.name())).then()).and(
                 dispatcher.on(RoleCreateEvent.class).doOnNext(event -> DiscordEventListener.onDiscordRoleCreateEvent(event)).onErrorContinue((e, o) -> com.gmt2001.Console.err.printStackTrace(e)).retry().doFinally((s) -> com.gmt2001.Console.debug.println("RoleCreateEvent disconnected due to " + s.name())).then()).and(
                 dispatcher.on(RoleUpdateEvent.class).doOnNext(event -> DiscordEventListener.onDiscordRoleUpdateEvent(event)).onErrorContinue((e, o) -> com.gmt2001.Console.err.printStackTrace(e)).retry().doFinally((s) -> com.gmt2001.Console.debug.println("RoleUpdateEvent disconnected due to " + s.name())).then()).and(
                 dispatcher.on(RoleDeleteEvent.class).doOnNext(event -> DiscordEventListener.onDiscordRoleDeleteEvent(event)).onErrorContinue((e, o) -> com.gmt2001.Console.err.printStackTrace(e)).retry().doFinally((s) -> com.gmt2001.Console.debug.println("RoleDeleteEvent disconnected due to " + s.name())).then()).and(
@@ -644,6 +647,8 @@ public class DiscordAPI extends DiscordUtil {
                 return;
             }
 
+            DiscordGuildCache.instance().load(event.getGuild());
+
             Optional.ofNullable(event.getGuild().getRoles()).map(Flux<Role>::collectList).orElseGet(() -> {
                 return Flux.<Role>empty().collectList();
             }).doOnSuccess(l -> EventBus.instance().postAsync(new DiscordGuildCreateEvent(l))).subscribe();
@@ -736,6 +741,7 @@ public class DiscordAPI extends DiscordUtil {
             if (targetGuildId > 0L && targetGuildId != getGuildId(event.getGuildId())) {
                 return;
             }
+            DiscordGuildCache.instance().putMember(event.getMember());
             EventBus.instance().postAsync(new DiscordChannelJoinEvent(event.getMember()));
         }
 
@@ -748,9 +754,22 @@ public class DiscordAPI extends DiscordUtil {
             if (targetGuildId > 0L && targetGuildId != getGuildId(event.getGuildId())) {
                 return;
             }
+            DiscordGuildCache.instance().removeMember(event.getUser().getId());
             EventBus.instance().postAsync(new DiscordChannelPartEvent(event.getUser()));
         }
 
+        /**
+         * Method that listens to member updates in the guild, such as role changes
+         * @param event The member update event
+         */
+        public static void onDiscordMemberUpdateEvent(MemberUpdateEvent event) {
+            final long targetGuildId = getTargetGuildId();
+            if (targetGuildId > 0L && targetGuildId != getGuildId(event.getGuildId())) {
+                return;
+            }
+            DiscordGuildCache.instance().putMember(event.getMemberId(), event.getCurrentRoleIds());
+        }
+
         /**
          * Method that listens to role creations in the guild
          * @param event The role create event
@@ -760,6 +779,7 @@ public class DiscordAPI extends DiscordUtil {
             if (targetGuildId > 0L && targetGuildId != getGuildId(event.getGuildId())) {
                 return;
             }
+            DiscordGuildCache.instance().putRole(event.getRole());
             EventBus.instance().postAsync(new DiscordRoleCreatedEvent(event.getRole()));
         }
 
@@ -772,6 +792,7 @@ public class DiscordAPI extends DiscordUtil {
             if (targetGuildId > 0L && targetGuildId != getGuildId(event.getCurrent().getGuildId())) {
                 return;
             }
+            DiscordGuildCache.instance().putRole(event.getCurrent());
             EventBus.instance().postAsync(new DiscordRoleUpdatedEvent(event.getCurrent()));
         }
 
@@ -784,7 +805,8 @@ public class DiscordAPI extends DiscordUtil {
             if (targetGuildId > 0L && targetGuildId != getGuildId(event.getGuildId())) {
                 return;
             }
-            Role role = event.getRole().get();
+            DiscordGuildCache.instance().removeRole(event.getRoleId());
+            Role role = event.getRole().orElse(null);
 
             if (role == null) {
                 return;
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package tv.phantombot.discord.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import discord4j.common.util.Snowflake;
+import discord4j.core.object.entity.Guild;
+import discord4j.core.object.entity.Member;
+import discord4j.core.object.entity.Role;
+import discord4j.core.util.OrderUtil;
+
+/**
+ * Holds a local copy of the roles of the guild, and the role ids of each member, so lookups do not need to call the REST API
+ * <p>
+ * The snapshot is loaded when a {@code GuildCreateEvent} is received for the selected guild, and is then kept up to date from the
+ * role create/update/delete and member join/update/leave gateway events
+ *
+ * @author gmt2001
+ */
+public final class DiscordGuildCache {
+    private static final DiscordGuildCache INSTANCE = new DiscordGuildCache();
+    private volatile RoleIndex roles = new RoleIndex(Collections.emptyList());
+    private final ConcurrentMap<Long, Set<Long>> members = new ConcurrentHashMap<>();
+    private volatile boolean rolesLoaded = false;
+    private volatile boolean membersLoaded = false;
+
+    /**
+     * An immutable index of the guild roles
+     */
+    private static final class RoleIndex {
+        private final Map<Long, Role> byId = new HashMap<>();
+        private final Map<String, List<Role>> byName = new HashMap<>();
+        private final List<Role> ordered;
+
+        private RoleIndex(Collection<Role> roles) {
+            List<Role> ordered = new ArrayList<>(roles);
+            ordered.sort(OrderUtil.ROLE_ORDER);
+            this.ordered = Collections.unmodifiableList(ordered);
+
+            for (Role role : ordered) {
+                this.byId.put(role.getId().asLong(), role);
+                this.byName.computeIfAbsent(role.getName().toLowerCase(), k -> new ArrayList<>()).add(role);
+            }
+        }
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of DiscordGuildCache
+     */
+    public static DiscordGuildCache instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private DiscordGuildCache() {
+    }
+
+    /**
+     * Replaces the snapshot with the roles and members of the guild
+     *
+     * @param guild The guild
+     */
+    public void load(Guild guild) {
+        guild.getRoles().collectList().doOnSuccess(roles -> {
+            synchronized (this) {
+                this.roles = new RoleIndex(roles);
+                this.rolesLoaded = true;
+            }
+        }).doOnError(e -> {
+            com.gmt2001.Console.err.println("[Discord] Unable to load the guild roles into the cache");
+            com.gmt2001.Console.err.printStackTrace(e);
+        }).subscribe();
+
+        guild.getMembers().collectList().doOnSuccess(members -> {
+            this.members.clear();
+            members.forEach(this::putMember);
+            this.membersLoaded = true;
+        }).doOnError(e -> {
+            com.gmt2001.Console.err.println("[Discord] Unable to load the guild members into the cache");
+            com.gmt2001.Console.err.printStackTrace(e);
+        }).subscribe();
+    }
+
+    /**
+     * Adds or replaces a role
+     *
+     * @param role The role
+     */
+    public synchronized void putRole(Role role) {
+        Map<Long, Role> roles = new HashMap<>(this.roles.byId);
+        roles.put(role.getId().asLong(), role);
+        this.roles = new RoleIndex(roles.values());
+    }
+
+    /**
+     * Removes a role
+     *
+     * @param roleId The role id
+     */
+    public synchronized void removeRole(Snowflake roleId) {
+        Map<Long, Role> roles = new HashMap<>(this.roles.byId);
+        if (roles.remove(roleId.asLong()) != null) {
+            this.roles = new RoleIndex(roles.values());
+        }
+    }
+
+    /**
+     * Adds or replaces a member
+     *
+     * @param member The member
+     */
+    public void putMember(Member member) {
+        this.putMember(member.getId(), member.getRoleIds());
+    }
+
+    /**
+     * Adds or replaces the role ids of a member
+     *
+     * @param memberId The member id
+     * @param roleIds The role ids of the member
+     */
+    public void putMember(Snowflake memberId, Set<Snowflake> roleIds) {
+        this.members.put(memberId.asLong(), Collections.unmodifiableSet(roleIds.stream().map(Snowflake::asLong).collect(Collectors.toSet())));
+    }
+
+    /**
+     * Removes a member
+     *
+     * @param memberId The member id
+     */
+    public void removeMember(Snowflake memberId) {
+        this.members.remove(memberId.asLong());
+    }
+
+    /**
+     * Indicates if the roles have been loaded
+     *
+     * @return {@code true} if the role lookups can be served from the cache
+     */
+    public boolean rolesReady() {
+        return this.rolesLoaded;
+    }
+
+    /**
+     * Indicates if the members have been loaded
+     *
+     * @return {@code true} if the member lookups can be served from the cache
+     */
+    public boolean membersReady() {
+        return this.membersLoaded;
+    }
+
+    /**
+     * Returns all roles, in permission order, starting with the role closest to @everyone
+     *
+     * @return The roles
+     */
+    public List<Role> roles() {
+        return this.roles.ordered;
+    }
+
+    /**
+     * Returns a role by id
+     *
+     * @param roleId The role id
+     * @return The role, if it exists
+     */
+    public Optional<Role> role(long roleId) {
+        return Optional.ofNullable(this.roles.byId.get(roleId));
+    }
+
+    /**
+     * Returns the roles matching any of the names or mentions, in permission order
+     * <p>
+     * Names are matched case insensitively
+     *
+     * @param roleNames The role names or mentions
+     * @return The matching roles
+     */
+    public List<Role> rolesByName(String... roleNames) {
+        RoleIndex index = this.roles;
+        Set<Role> matches = new LinkedHashSet<>();
+
+        for (String roleName : roleNames) {
+            if (roleName == null) {
+                continue;
+            }
+
+            List<Role> named = index.byName.get(roleName.toLowerCase());
+            if (named != null) {
+                matches.addAll(named);
+            }
+
+            if (roleName.startsWith("<@&") && roleName.endsWith(">")) {
+                try {
+                    Role role = index.byId.get(Long.parseUnsignedLong(roleName.substring(3, roleName.length() - 1)));
+                    if (role != null) {
+                        matches.add(role);
+                    }
+                } catch (NumberFormatException ex) {
+                }
+            }
+        }
+
+        List<Role> result = new ArrayList<>(matches);
+        result.sort(OrderUtil.ROLE_ORDER);
+        return result;
+    }
+
+    /**
+     * Returns the role ids of a member
+     *
+     * @param memberId The member id
+     * @return The role ids, if the member is in the cache
+     */
+    public Optional<Set<Long>> memberRoleIds(long memberId) {
+        return Optional.ofNullable(this.members.get(memberId));
+    }
+
+    /**
+     * Returns the roles of a member, in permission order
+     *
+     * @param memberId The member id
+     * @return The roles, if the member is in the cache
+     */
+    public Optional<Role[]> memberRoles(long memberId) {
+        RoleIndex index = this.roles;
+        return this.memberRoleIds(memberId).map(roleIds -> index.ordered.stream().filter(role -> roleIds.contains(role.getId().asLong()))
+            .toArray(Role[]::new));
+    }
+}
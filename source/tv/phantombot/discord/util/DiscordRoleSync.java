@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package tv.phantombot.discord.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.gmt2001.util.concurrent.ExecutorService;
+
+import discord4j.common.util.Snowflake;
+import discord4j.core.object.entity.Role;
+import discord4j.core.spec.GuildMemberEditSpec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import tv.phantombot.CaselessProperties;
+import tv.phantombot.PhantomBot;
+import tv.phantombot.discord.DiscordAPI;
+
+/**
+ * Reconciles the Discord roles of linked users with the roles they should have, in bulk
+ * <p>
+ * The caller provides the names of the managed roles each user should have. The current roles of each member are read from
+ * {@link DiscordGuildCache}, and a member is only edited if a managed role must be added or removed. Edits are sent concurrently
+ * and queued by the Discord4J REST router, which enforces the rate limit buckets
+ * <p>
+ * The managed roles last assigned to each user are stored in the {@code discordRoles} table, so that a role which is no longer
+ * desired is removed without touching roles which were assigned manually
+ * <p>
+ * The database reads and writes of a run are performed on the bounded elastic scheduler, never on the thread which started the run
+ * or on the Discord4J event threads
+ *
+ * @author gmt2001
+ */
+public final class DiscordRoleSync {
+    private static final DiscordRoleSync INSTANCE = new DiscordRoleSync();
+    /**
+     * The number of times a run is retried while the guild cache is not ready
+     */
+    private static final int MAX_RETRIES = 10;
+    /**
+     * The delay between retries while the guild cache is not ready, in seconds
+     */
+    private static final long RETRY_DELAY = 30L;
+    private final Scheduler scheduler = Schedulers.boundedElastic();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger checked = new AtomicInteger();
+    private final AtomicInteger modified = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile Instant started = Instant.MIN;
+    private volatile Instant finished = Instant.MIN;
+
+    /**
+     * The progress of the current or last run
+     *
+     * @param running {@code true} if a run is in progress
+     * @param total The number of users in the run
+     * @param checked The number of users which have been compared
+     * @param modified The number of members which were edited
+     * @param failed The number of members which could not be read or edited
+     * @param elapsed The time since the run started, or the duration of the last run
+     */
+    public record Progress(boolean running, int total, int checked, int modified, int failed, Duration elapsed) {
+        /**
+         * The number of users compared per second
+         *
+         * @return The throughput
+         */
+        public double usersPerSecond() {
+            long millis = this.elapsed.toMillis();
+            return millis <= 0L ? 0.0 : this.checked * 1000.0 / millis;
+        }
+    }
+
+    /**
+     * The edit to perform on one member
+     *
+     * @param memberId The member id
+     * @param roleIds The complete new set of role ids
+     * @param desired The desired managed role names, as stored in the {@code discordRoles} table
+     */
+    private record Edit(Snowflake memberId, Set<Snowflake> roleIds, String desired) {
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of DiscordRoleSync
+     */
+    public static DiscordRoleSync instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private DiscordRoleSync() {
+    }
+
+    /**
+     * Starts a reconciliation run in the background
+     * <p>
+     * Users which map to an empty collection have all of their managed roles removed. If the guild cache is not ready yet, the run is
+     * retried every {@value #RETRY_DELAY} seconds, up to {@value #MAX_RETRIES} times
+     *
+     * @param desired A map of Discord user id to the names of the managed roles the user should have
+     * @return {@code true} if the run was started; {@code false} if a run is already in progress, the guild is not available, or the
+     * run has been deferred until the guild cache is ready
+     */
+    public boolean start(Map<String, ? extends Collection<String>> desired) {
+        // Copy the input, since it may be a script object which is modified after this method returns
+        Map<String, List<String>> copy = new HashMap<>();
+        desired.forEach((id, roles) -> copy.put(id, new ArrayList<>(roles)));
+
+        return this.start(copy, 0);
+    }
+
+    /**
+     * Starts a reconciliation run in the background
+     *
+     * @param desired A map of Discord user id to the names of the managed roles the user should have
+     * @param attempt The number of previous attempts which found the guild cache not ready
+     * @return {@code true} if the run was started
+     */
+    private boolean start(Map<String, List<String>> desired, int attempt) {
+        if (DiscordAPI.getGuildId().asLong() == 0L) {
+            com.gmt2001.Console.debug.println("[Discord] Role sync skipped, no guild is available");
+            return false;
+        }
+
+        if (!DiscordGuildCache.instance().rolesReady()) {
+            if (attempt < MAX_RETRIES) {
+                com.gmt2001.Console.debug.println("[Discord] Role sync deferred, the guild cache is not ready yet; retrying in " + RETRY_DELAY + " seconds");
+                ExecutorService.schedule(() -> {
+                    this.start(desired, attempt + 1);
+                }, RETRY_DELAY, TimeUnit.SECONDS);
+            } else {
+                com.gmt2001.Console.warn.println("[Discord] Role sync skipped, the guild cache did not become ready");
+            }
+
+            return false;
+        }
+
+        if (!this.running.compareAndSet(false, true)) {
+            com.gmt2001.Console.debug.println("[Discord] Role sync skipped, a run is already in progress");
+            return false;
+        }
+
+        this.total.set(desired.size());
+        this.checked.set(0);
+        this.modified.set(0);
+        this.failed.set(0);
+        this.started = Instant.now();
+
+        /**
+         * @botproperty discord_rolesync_concurrency - The maximum number of role edits which are sent to Discord at the same time by the role manager. Default `4`
+         * @botpropertycatsort discord_rolesync_concurrency 70 300 Discord
+         */
+        int concurrency = Math.max(1, CaselessProperties.instance().getPropertyAsInt("discord_rolesync_concurrency", 4));
+
+        Flux.fromIterable(desired.entrySet())
+            .flatMap(kv -> Mono.defer(() -> this.compare(kv.getKey(), kv.getValue())).subscribeOn(this.scheduler).doOnEach(s -> {
+                if (s.isOnComplete() || s.isOnError()) {
+                    this.checked.incrementAndGet();
+                }
+            }).onErrorResume(e -> {
+                this.failed.incrementAndGet();
+                com.gmt2001.Console.debug.printStackTrace(e);
+                return Mono.empty();
+            }), concurrency)
+            .flatMap(edit -> this.apply(edit), concurrency)
+            .doFinally(s -> {
+                this.finished = Instant.now();
+                this.running.set(false);
+                Progress progress = this.progress();
+                com.gmt2001.Console.debug.println("[Discord] Role sync checked " + progress.checked() + " users, updated " + progress.modified()
+                    + ", failed " + progress.failed() + ", in " + progress.elapsed().toMillis() + "ms ("
+                    + String.format("%.1f", progress.usersPerSecond()) + " users/s)");
+            }).subscribe();
+
+        return true;
+    }
+
+    /**
+     * Compares the desired managed roles of a user with their current roles
+     * <p>
+     * If no edit is needed, but the stored managed roles differ from the desired ones, they are saved, so that a later change can remove
+     * roles which the member already had
+     *
+     * @param userId The Discord user id
+     * @param desired The names of the managed roles the user should have
+     * @return The edit to perform; empty if the member is already up to date or not in the guild
+     */
+    private Mono<Edit> compare(String userId, List<String> desired) {
+        final Snowflake memberId = Snowflake.of(userId);
+        final String previous = PhantomBot.instance().getDataStore().GetString("discordRoles", "", userId);
+        final Set<String> previousNames = new HashSet<>();
+
+        if (previous != null) {
+            for (String name : previous.split(",")) {
+                if (!name.isBlank()) {
+                    previousNames.add(name.toLowerCase());
+                }
+            }
+        }
+
+        final Set<String> desiredNames = desired.stream().map(String::toLowerCase).collect(Collectors.toSet());
+        final String desiredString = String.join(",", desired);
+
+        return this.currentRoleIds(memberId).flatMap(current -> {
+            Set<Long> next = new LinkedHashSet<>(current);
+
+            for (Long roleId : current) {
+                Optional<Role> role = DiscordGuildCache.instance().role(roleId);
+                if (role.isPresent()) {
+                    String name = role.get().getName().toLowerCase();
+                    if (previousNames.contains(name) && !desiredNames.contains(name)) {
+                        next.remove(roleId);
+                    }
+                }
+            }
+
+            for (String name : desired) {
+                List<Role> roles = DiscordGuildCache.instance().rolesByName(name);
+                if (!roles.isEmpty()) {
+                    next.add(roles.get(0).getId().asLong());
+                }
+            }
+
+            if (next.equals(current)) {
+                if (desiredString.equals(previous == null ? "" : previous)) {
+                    return Mono.empty();
+                }
+
+                return Mono.<Edit>fromRunnable(() -> PhantomBot.instance().getDataStore().SetString("discordRoles", "", userId, desiredString))
+                    .subscribeOn(this.scheduler);
+            }
+
+            return Mono.just(new Edit(memberId, next.stream().map(Snowflake::of).collect(Collectors.toSet()), desiredString));
+        });
+    }
+
+    /**
+     * Returns the current role ids of a member, from the cache if possible
+     *
+     * @param memberId The member id
+     * @return The role ids; empty if the member is not in the guild
+     */
+    private Mono<Set<Long>> currentRoleIds(Snowflake memberId) {
+        if (DiscordGuildCache.instance().membersReady()) {
+            return Mono.justOrEmpty(DiscordGuildCache.instance().memberRoleIds(memberId.asLong()));
+        }
+
+        return DiscordAPI.getGateway().getMemberById(DiscordAPI.getGuildId(), memberId)
+            .map(member -> member.getRoleIds().stream().map(Snowflake::asLong).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Sends an edit to Discord
+     *
+     * @param edit The edit
+     * @return A {@link Mono} which completes when the edit has been sent
+     */
+    private Mono<Void> apply(Edit edit) {
+        return DiscordAPI.getGateway().getRestClient().getGuildService()
+            .modifyGuildMember(DiscordAPI.getGuildId().asLong(), edit.memberId().asLong(),
+                GuildMemberEditSpec.create().withRoles(edit.roleIds()).asRequest(), "Role sync")
+            .publishOn(this.scheduler)
+            .doOnSuccess(m -> {
+                this.modified.incrementAndGet();
+                DiscordGuildCache.instance().putMember(edit.memberId(), edit.roleIds());
+                PhantomBot.instance().getDataStore().SetString("discordRoles", "", edit.memberId().asString(), edit.desired());
+            }).onErrorResume(e -> {
+                this.failed.incrementAndGet();
+                com.gmt2001.Console.err.println("Unable to edit member roles <@" + edit.memberId().asString() + ">: " + e.getMessage());
+                return Mono.empty();
+            }).then();
+    }
+
+    /**
+     * Returns the progress of the current or last run
+     *
+     * @return The progress
+     */
+    public Progress progress() {
+        boolean running = this.running.get();
+        Instant started = this.started;
+        Duration elapsed = started == Instant.MIN ? Duration.ZERO : Duration.between(started, running ? Instant.now() : this.finished);
+        return new Progress(running, this.total.get(), this.checked.get(), this.modified.get(), this.failed.get(), elapsed);
+    }
+}
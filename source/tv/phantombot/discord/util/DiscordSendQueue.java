@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package tv.phantombot.discord.util;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.channel.Channel;
+import discord4j.core.object.entity.channel.GuildMessageChannel;
+import discord4j.core.spec.EmbedCreateSpec;
+import reactor.core.publisher.Mono;
+import tv.phantombot.CaselessProperties;
+import tv.phantombot.discord.DiscordAPI;
+
+/**
+ * Sends Discord messages without blocking the caller
+ * <p>
+ * Each channel has its own queue, which sends one message at a time in the order they were queued. Since message creation is rate
+ * limited per channel by Discord, a burst of messages to one channel waits in its own queue, while messages to other channels are sent
+ * independently. The requests themselves are still subject to the rate limit buckets enforced by the Discord4J REST router
+ * <p>
+ * Announcement embeds may be queued as coalescable. A coalescable embed is held for a short window, and further embeds with the same
+ * title, color, and thumbnail which are queued to the same channel during the window are appended to its description, so a burst of
+ * similar announcements is sent as a single message
+ *
+ * @author gmt2001
+ */
+public final class DiscordSendQueue {
+    private static final DiscordSendQueue INSTANCE = new DiscordSendQueue();
+    /**
+     * The maximum length of an embed description
+     */
+    private static final int MAX_DESCRIPTION = 4096;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder totalLatency = new LongAdder();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * Send queue statistics
+     *
+     * @param channels The number of channels which have a queue
+     * @param queued The number of messages waiting to be sent
+     * @param sent The number of messages sent
+     * @param failed The number of messages which could not be sent
+     * @param coalesced The number of embeds which were merged into a previously queued embed
+     * @param averageLatencyMillis The average time between a message being queued and being sent, in milliseconds
+     * @param maxLatencyMillis The longest time between a message being queued and being sent, in milliseconds
+     */
+    public record Stats(int channels, int queued, long sent, long failed, long coalesced, long averageLatencyMillis, long maxLatencyMillis) {
+    }
+
+    /**
+     * A message waiting to be sent
+     */
+    private static final class Entry {
+        private final long queued = System.nanoTime();
+        private final CompletableFuture<Message> handle = new CompletableFuture<>();
+        private final Function<GuildMessageChannel, Mono<Message>> send;
+        private final EmbedCreateSpec embed;
+        private final String coalesceKey;
+        private final List<String> descriptions = new ArrayList<>();
+        private final long notBefore;
+        private int length = 0;
+
+        /**
+         * Constructor for a message which is sent as-is
+         *
+         * @param send The function which sends the message to the resolved channel
+         */
+        private Entry(Function<GuildMessageChannel, Mono<Message>> send) {
+            this.send = send;
+            this.embed = null;
+            this.coalesceKey = null;
+            this.notBefore = 0L;
+        }
+
+        /**
+         * Constructor for a coalescable embed
+         *
+         * @param embed The embed
+         * @param coalesceKey The key which other embeds must match to be merged into this one
+         * @param window The time to wait for similar embeds, in milliseconds
+         */
+        private Entry(EmbedCreateSpec embed, String coalesceKey, long window) {
+            this.send = null;
+            this.embed = embed;
+            this.coalesceKey = coalesceKey;
+            this.notBefore = this.queued + TimeUnit.MILLISECONDS.toNanos(window);
+            this.append(embed.description().get());
+        }
+
+        private void append(String description) {
+            this.length += (this.descriptions.isEmpty() ? 0 : 1) + description.length();
+            this.descriptions.add(description);
+        }
+
+        private boolean canAppend(String coalesceKey, String description) {
+            return this.coalesceKey != null && this.coalesceKey.equals(coalesceKey) && this.length + 1 + description.length() <= MAX_DESCRIPTION;
+        }
+    }
+
+    /**
+     * The queue of a single channel
+     */
+    private final class Lane {
+        private final String channelName;
+        private final Deque<Entry> queue = new ArrayDeque<>();
+        private boolean sending = false;
+
+        private Lane(String channelName) {
+            this.channelName = channelName;
+        }
+
+        /**
+         * Adds an entry to the queue, and starts sending if the lane is idle
+         *
+         * @param entry The entry
+         * @return The completion handle of the entry
+         */
+        private CompletableFuture<Message> add(Entry entry) {
+            synchronized (this) {
+                this.queue.add(entry);
+                queued.incrementAndGet();
+            }
+
+            this.next();
+            return entry.handle;
+        }
+
+        /**
+         * Appends an embed description to the last queued entry if it is coalescable with the same key, otherwise queues a new entry
+         *
+         * @param embed The embed
+         * @param coalesceKey The coalesce key
+         * @param window The coalesce window, in milliseconds
+         * @return The completion handle of the entry which will contain the embed
+         */
+        private CompletableFuture<Message> coalesce(EmbedCreateSpec embed, String coalesceKey, long window) {
+            String description = embed.description().get();
+
+            synchronized (this) {
+                Entry last = this.queue.peekLast();
+                if (last != null && last.canAppend(coalesceKey, description)) {
+                    last.append(description);
+                    coalesced.increment();
+                    return last.handle;
+                }
+            }
+
+            return this.add(new Entry(embed, coalesceKey, window));
+        }
+
+        /**
+         * Sends the entry at the head of the queue, if the lane is not already sending
+         */
+        private void next() {
+            Entry entry;
+            synchronized (this) {
+                if (this.sending || this.queue.isEmpty()) {
+                    return;
+                }
+
+                this.sending = true;
+                entry = this.queue.peekFirst();
+            }
+
+            long wait = entry.notBefore - System.nanoTime();
+            Mono<Long> delay = wait > 0L ? Mono.delay(Duration.ofNanos(wait)) : Mono.just(0L);
+
+            delay.then(Mono.defer(() -> {
+                synchronized (this) {
+                    // Seal the entry, so no more embeds are appended to it
+                    this.queue.pollFirst();
+                    queued.decrementAndGet();
+                }
+
+                return DiscordAPI.instance().getChannelAsync(this.channelName, c -> c.getType() != Channel.Type.GUILD_CATEGORY)
+                    .flatMap(channel -> {
+                        if (entry.send != null) {
+                            Mono<Message> send = entry.send.apply(channel);
+                            return send == null ? Mono.empty() : send;
+                        }
+
+                        return DiscordAPI.instance().sendMessageEmbedAsync(channel,
+                            entry.embed.withDescription(String.join("\n", entry.descriptions)));
+                    });
+            })).doOnSuccess(message -> {
+                if (message == null) {
+                    failed.increment();
+                    entry.handle.complete(null);
+                    return;
+                }
+
+                sent.increment();
+                long latency = System.nanoTime() - entry.queued;
+                totalLatency.add(latency);
+                maxLatency.accumulateAndGet(latency, Math::max);
+                entry.handle.complete(message);
+            }).doOnError(e -> {
+                failed.increment();
+                com.gmt2001.Console.err.println("[DISCORD] [#" + this.channelName + "] Failed to send queued message: " + e.getMessage());
+                com.gmt2001.Console.debug.printStackTrace(e);
+                entry.handle.completeExceptionally(e);
+            }).onErrorResume(e -> Mono.empty()).doFinally(s -> {
+                synchronized (this) {
+                    this.sending = false;
+                }
+
+                this.next();
+            }).subscribe();
+        }
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of DiscordSendQueue
+     */
+    public static DiscordSendQueue instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private DiscordSendQueue() {
+    }
+
+    /**
+     * Returns the queue of a channel
+     *
+     * @param channelName The channel name or id
+     * @return The queue
+     */
+    private Lane lane(String channelName) {
+        String key = DiscordAPI.instance().sanitizeChannelName(channelName).toLowerCase();
+        return this.lanes.computeIfAbsent(key, Lane::new);
+    }
+
+    /**
+     * Queues a message
+     *
+     * @param channelName The channel name or id
+     * @param send The function which sends the message once the channel is resolved
+     * @return A handle which completes with the sent message; completes with {@code null} if the channel or message was rejected
+     */
+    public CompletableFuture<Message> enqueue(String channelName, Function<GuildMessageChannel, Mono<Message>> send) {
+        return this.lane(channelName).add(new Entry(send));
+    }
+
+    /**
+     * Queues an embed which may be merged with similar embeds queued to the same channel within a short window
+     * <p>
+     * Embeds are considered similar if they have the same title, color, and thumbnail. Embeds without a description, or with fields, are
+     * never merged
+     *
+     * @param channelName The channel name or id
+     * @param embed The embed
+     * @return A handle which completes with the sent message, which is shared by all embeds merged into it
+     */
+    public CompletableFuture<Message> enqueueCoalescable(String channelName, EmbedCreateSpec embed) {
+        /**
+         * @botproperty discord_coalescems - The time to wait for similar announcements before sending an announcement embed to Discord, so a burst is sent as one embed. `0` to disable. Default `0`
+         * @botpropertycatsort discord_coalescems 80 300 Discord
+         */
+        long window = CaselessProperties.instance().getPropertyAsLong("discord_coalescems", 0L);
+
+        if (window <= 0L || embed.description().isAbsent() || embed.description().get().isBlank() || !embed.fields().isEmpty()) {
+            return this.enqueue(channelName, channel -> DiscordAPI.instance().sendMessageEmbedAsync(channel, embed));
+        }
+
+        String coalesceKey = embed.title().toOptional().orElse("") + "\u0000" + embed.color().toOptional().map(c -> c.getRGB()).orElse(-1)
+            + "\u0000" + embed.thumbnail().toOptional().orElse("");
+        return this.lane(channelName).coalesce(embed, coalesceKey, window);
+    }
+
+    /**
+     * Returns the send queue statistics
+     *
+     * @return The statistics
+     */
+    public Stats stats() {
+        long sent = this.sent.sum();
+        return new Stats(this.lanes.size(), this.queued.get(), sent, this.failed.sum(), this.coalesced.sum(),
+            sent == 0L ? 0L : TimeUnit.NANOSECONDS.toMillis(this.totalLatency.sum() / sent),
+            TimeUnit.NANOSECONDS.toMillis(this.maxLatency.get()));
+    }
+}
@@ -22,6 +22,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -29,6 +30,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -565,6 +567,83 @@ public class DiscordUtil {
         return this.sendFileAsync(channelName, "", fileLocation).doOnError(e -> com.gmt2001.Console.err.printStackTrace(e)).block();
     }
 
+    /**
+     * Queues a message to a channel, without waiting for it to be sent
+     *
+     * @param channelName The channel name or id
+     * @param message The message
+     * @return A handle which completes with the sent message
+     */
+    public CompletableFuture<Message> queueMessage(String channelName, String message) {
+        this.validateParams(message);
+        return DiscordSendQueue.instance().enqueue(channelName, channel -> this.sendMessageAsync(channel, message));
+    }
+
+    /**
+     * Queues an embed message to a channel, without waiting for it to be sent
+     *
+     * @param channelName The channel name or id
+     * @param embed The embed
+     * @return A handle which completes with the sent message
+     */
+    public CompletableFuture<Message> queueMessageEmbed(String channelName, EmbedCreateSpec embed) {
+        return this.queueMessageEmbed(channelName, embed, false);
+    }
+
+    /**
+     * Queues an embed message to a channel, without waiting for it to be sent
+     * <p>
+     * If {@code coalesce} is {@code true}, the embed may be merged with similar embeds queued to the same channel within the window set
+     * by the {@code discord_coalescems} property
+     *
+     * @param channelName The channel name or id
+     * @param embed The embed
+     * @param coalesce {@code true} to allow the embed to be merged with similar embeds
+     * @return A handle which completes with the sent message
+     */
+    public CompletableFuture<Message> queueMessageEmbed(String channelName, EmbedCreateSpec embed, boolean coalesce) {
+        if (coalesce) {
+            return DiscordSendQueue.instance().enqueueCoalescable(channelName, embed);
+        }
+
+        return DiscordSendQueue.instance().enqueue(channelName, channel -> this.sendMessageEmbedAsync(channel, embed));
+    }
+
+    /**
+     * Queues an embed message to a channel, without waiting for it to be sent
+     *
+     * @param channelName The channel name or id
+     * @param color The embed color
+     * @param message The embed description
+     * @return A handle which completes with the sent message
+     */
+    public CompletableFuture<Message> queueMessageEmbed(String channelName, String color, String message) {
+        this.validateParams(message);
+        EmbedCreateSpec embed = new EmbedBuilder().withColor(this.getColor(color)).withDescription(message).build();
+        return this.queueMessageEmbed(channelName, embed);
+    }
+
+    /**
+     * Queues a file upload to a channel, without waiting for it to be sent
+     *
+     * @param channelName The channel name or id
+     * @param message The message to send with the file; may be empty
+     * @param fileLocation The path to the file
+     * @return A handle which completes with the sent message; completes with {@code null} if the file path was rejected
+     */
+    public CompletableFuture<Message> queueFile(String channelName, String message, String fileLocation) {
+        return DiscordSendQueue.instance().enqueue(channelName, channel -> this.sendFileAsync(channel, message, fileLocation));
+    }
+
+    /**
+     * Returns the statistics of the non-blocking send queue
+     *
+     * @return The statistics
+     */
+    public DiscordSendQueue.Stats getSendQueueStats() {
+        return DiscordSendQueue.instance().stats();
+    }
+
     /**
      * Method that adds a reaction to a message.
      *
@@ -911,6 +990,11 @@ public class DiscordUtil {
             com.gmt2001.Console.warn.println("Unable to get roles, guild was null");
             return Flux.empty();
         }
+
+        if (DiscordGuildCache.instance().rolesReady()) {
+            return Flux.fromIterable(DiscordGuildCache.instance().rolesByName(roleNames));
+        }
+
         Flux<Role> roles = DiscordAPI.getGuild().getRoles().transform(OrderUtil::orderRoles);
 
         if (PhantomBot.getEnableDebugging()) {
@@ -968,6 +1052,20 @@ public class DiscordUtil {
                 com.gmt2001.Console.warn.println("Unable to get role by ID, guild was null");
                 return Mono.empty();
             }
+
+        if (DiscordGuildCache.instance().rolesReady()) {
+            try {
+                Optional<Role> role = DiscordGuildCache.instance().role(Long.parseUnsignedLong(id));
+                if (role.isPresent()) {
+                    return Mono.just(role.get());
+                }
+
+                com.gmt2001.Console.err.println("Unable to find roleId [" + id + "]");
+                return Mono.error(new NoSuchElementException("Unable to find roleId [" + id + "]"));
+            } catch (NumberFormatException ex) {
+            }
+        }
+
         try {
             return DiscordAPI.getGuild().getRoles().filter(role -> role.getId().asString().equalsIgnoreCase(id)).take(1).single();
         } catch (NoSuchElementException ex) {
@@ -1008,6 +1106,14 @@ public class DiscordUtil {
             com.gmt2001.Console.warn.println("Unable to get user roles, guild was null");
             return Mono.just(new Role[0]);
         }
+
+        if (DiscordGuildCache.instance().rolesReady() && DiscordGuildCache.instance().membersReady()) {
+            Optional<Role[]> roles = DiscordGuildCache.instance().memberRoles(user.getId().asLong());
+            if (roles.isPresent()) {
+                return Mono.just(roles.get());
+            }
+        }
+
         return user.asMember(guildId).flatMap(m -> m.getRoles().collectList().map(roles -> roles.isEmpty() ? new Role[0] : roles.toArray(Role[]::new))).onErrorReturn(new Role[0]);
     }
 
@@ -1210,11 +1316,35 @@ public class DiscordUtil {
             com.gmt2001.Console.warn.println("Unable to get guild roles, guild was null");
             return Mono.empty();
         }
+
+        if (DiscordGuildCache.instance().rolesReady()) {
+            return Mono.just(DiscordGuildCache.instance().roles());
+        }
+
         return Optional.ofNullable(Optional.ofNullable(DiscordAPI.getGuild()).map(Guild::getRoles).orElseGet(() -> Flux.<Role>empty())).map(Flux<Role>::collectList).orElseGet(() -> {
             return Flux.<Role>empty().collectList();
         });
     }
 
+    /**
+     * Starts a bulk reconciliation of the managed roles of linked users in the background
+     *
+     * @param desired A map of Discord user id to the names of the managed roles the user should have
+     * @return {@code true} if the run was started; {@code false} if a run is already in progress or the guild is not available
+     */
+    public boolean syncRoles(Map<String, ? extends Collection<String>> desired) {
+        return DiscordRoleSync.instance().start(desired);
+    }
+
+    /**
+     * Returns the progress of the current or last role reconciliation run
+     *
+     * @return The progress
+     */
+    public DiscordRoleSync.Progress getRoleSyncProgress() {
+        return DiscordRoleSync.instance().progress();
+    }
+
     /**
      * Method to check if someone is an administrator.
      *
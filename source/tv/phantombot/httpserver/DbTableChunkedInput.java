@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package tv.phantombot.httpserver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.json.JSONObject;
+
+import com.gmt2001.datastore.DataStore;
+import com.gmt2001.datastore.KeyValue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+
+/**
+ * Streams the rows of a table as JSON or NDJSON, one page at a time
+ * <p>
+ * The table is walked by keyset in order of variable, reading one page per chunk, so neither the rows nor the response are ever held
+ * in memory in full. {@code ChunkedWriteHandler} only asks for the next chunk while the channel is writable, so a slow client holds
+ * back the database reads instead of filling the outbound buffer
+ * <p>
+ * If a row limit is set and more rows remain, the response ends with a {@code next} token, which resumes the walk when passed back as
+ * {@code after}
+ *
+ * @author gmt2001
+ */
+final class DbTableChunkedInput implements ChunkedInput<ByteBuf> {
+
+    /**
+     * The number of rows read from the database per chunk
+     */
+    private static final int PAGE_SIZE = 500;
+    private final DataStore dataStore;
+    private final String table;
+    private final String section;
+    private final boolean values;
+    private final boolean ndjson;
+    private String after;
+    private long remaining;
+    private long progress = 0L;
+    private boolean started = false;
+    private boolean ended = false;
+
+    /**
+     * Constructor
+     *
+     * @param dataStore The datastore
+     * @param table The table name
+     * @param section The section name
+     * @param values {@code true} to include values; {@code false} for keys only
+     * @param ndjson {@code true} to write one JSON object per line; {@code false} for a single JSON document
+     * @param after A token from a previous response to resume after; {@code null} to start from the beginning
+     * @param limit The maximum number of rows to send; {@code 0} or less for no limit
+     */
+    DbTableChunkedInput(DataStore dataStore, String table, String section, boolean values, boolean ndjson, String after, long limit) {
+        this.dataStore = dataStore;
+        this.table = table;
+        this.section = section;
+        this.values = values;
+        this.ndjson = ndjson;
+        this.after = decodeToken(after);
+        this.remaining = limit > 0L ? limit : Long.MAX_VALUE;
+    }
+
+    /**
+     * Encodes the variable of the last row sent as a resume token
+     *
+     * @param key The variable
+     * @return The token
+     */
+    static String encodeToken(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a resume token
+     *
+     * @param token The token
+     * @return The variable to resume after; {@code null} if the token is missing or invalid
+     */
+    static String decodeToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        try {
+            return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return this.ended;
+    }
+
+    @Override
+    public void close() {
+        this.ended = true;
+    }
+
+    @Deprecated
+    @Override
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return this.readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        if (this.ended) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        if (!this.started && !this.ndjson) {
+            sb.append("{\"table\":{\"table_name\":").append(JSONObject.quote(this.table)).append(',')
+                .append(this.values ? "\"results\":[" : "\"keylist\":[");
+        }
+
+        int want = (int) Math.min(PAGE_SIZE, this.remaining);
+        // On the last page allowed by the limit, read one extra row to learn if a next token is needed
+        KeyValue[] rows = this.dataStore.GetKeyValuePage(this.table, this.section, this.after, want == this.remaining ? want + 1 : want);
+        int count = Math.min(want, rows.length);
+
+        for (int i = 0; i < count; i++) {
+            if (!this.ndjson && (this.started || i > 0)) {
+                sb.append(',');
+            }
+
+            sb.append("{\"key\":").append(JSONObject.quote(rows[i].getKey()));
+            if (this.values) {
+                sb.append(",\"value\":").append(rows[i].getValue() == null ? "null" : JSONObject.quote(rows[i].getValue()));
+            }
+            sb.append('}');
+
+            if (this.ndjson) {
+                sb.append('\n');
+            }
+        }
+
+        this.started = true;
+        this.progress += count;
+        this.remaining -= count;
+
+        if (count > 0) {
+            this.after = rows[count - 1].getKey();
+        }
+
+        if (rows.length > count || count < want || this.remaining == 0L) {
+            String next = rows.length > count ? encodeToken(this.after) : null;
+
+            if (this.ndjson) {
+                if (next != null) {
+                    sb.append("{\"next\":").append(JSONObject.quote(next)).append("}\n");
+                }
+            } else {
+                sb.append(']');
+                if (next != null) {
+                    sb.append(",\"next\":").append(JSONObject.quote(next));
+                }
+                sb.append("}}");
+            }
+
+            this.ended = true;
+        }
+
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        return allocator.buffer(bytes.length).writeBytes(bytes);
+    }
+
+    @Override
+    public long length() {
+        return -1L;
+    }
+
+    @Override
+    public long progress() {
+        return this.progress;
+    }
+}
@@ -19,20 +19,27 @@ package tv.phantombot.httpserver;
 import com.gmt2001.PathValidator;
 import com.gmt2001.httpwsserver.HttpRequestHandler;
 import com.gmt2001.httpwsserver.HttpServerPageHandler;
+import com.gmt2001.httpwsserver.HttpWsMetrics;
 import com.gmt2001.httpwsserver.auth.HttpAuthenticationHandler;
 import com.gmt2001.httpwsserver.auth.HttpSharedTokenOrPasswordAuthenticationHandler;
+import com.gmt2001.util.GamesListIndex;
 import com.gmt2001.util.Reflect;
 import com.scaniatv.LangFileUpdater;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Objects;
 
 import org.json.JSONException;
@@ -46,6 +53,8 @@ import tv.phantombot.PhantomBot;
  */
 public class HTTPAuthenticatedHandler implements HttpRequestHandler {
 
+    private static final int DEFAULT_GAMES_LIMIT = 50;
+    private static final int MAX_GAMES_LIMIT = 500;
     private HttpAuthenticationHandler authHandler;
 
     public HTTPAuthenticatedHandler(String webAuth, String myPassword) {
@@ -64,6 +73,7 @@ public class HTTPAuthenticatedHandler implements HttpRequestHandler {
         HttpServerPageHandler.registerHttpHandler("/inistore", this);
         HttpServerPageHandler.registerHttpHandler("/lang", this);
         HttpServerPageHandler.registerHttpHandler("/logs", this);
+        HttpServerPageHandler.registerHttpHandler("/metrics", this);
         return this;
     }
 
@@ -103,6 +113,9 @@ public class HTTPAuthenticatedHandler implements HttpRequestHandler {
         } else if (path.startsWith("/inistore")) {
             handleIniStore(ctx, req, qsd);
             return;
+        } else if (path.startsWith("/metrics")) {
+            handleMetrics(ctx, req, qsd);
+            return;
         }
 
         try {
@@ -120,8 +133,7 @@ public class HTTPAuthenticatedHandler implements HttpRequestHandler {
                 } else {
                     com.gmt2001.Console.debug.println("200 " + req.method().asciiName() + ": " + p.toString() + " (" + p.getFileName().toString() + " = "
                             + HttpServerPageHandler.detectContentType(p.getFileName().toString()) + ")");
-                    HttpServerPageHandler.sendHttpResponse(ctx, req, HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK,
-                            req.method().equals(HttpMethod.HEAD) ? null : Files.readAllBytes(p), p.getFileName().toString()));
+                    HttpServerPageHandler.sendCachedFile(ctx, req, p);
                 }
             }
         } catch (IOException ex) {
@@ -189,45 +201,22 @@ public class HTTPAuthenticatedHandler implements HttpRequestHandler {
 
                 HttpServerPageHandler.sendHttpResponse(ctx, req, HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, jsonObject.toString().getBytes(Charset.forName("UTF-8")), "json"));
             }
-        } else if (qsd.parameters().containsKey("getKeys")) {
-            jsonObject.object();
-            jsonObject.key("table");
-            jsonObject.object();
-            jsonObject.key("table_name").value(dbTable);
-            jsonObject.key("keylist").array();
-
-            String[] dbKeys = PhantomBot.instance().getDataStore().GetKeyList(dbTable, dbSection);
-
-            for (String dbKey : dbKeys) {
-                jsonObject.object();
-                jsonObject.key("key").value(dbKey);
-                jsonObject.endObject();
+        } else if (qsd.parameters().containsKey("getKeys") || qsd.parameters().containsKey("getAllRows")) {
+            long limit = 0L;
+            if (qsd.parameters().containsKey("limit") && !qsd.parameters().get("limit").isEmpty()) {
+                try {
+                    limit = Long.parseLong(qsd.parameters().get("limit").get(0));
+                } catch (NumberFormatException ex) {
+                }
             }
-            jsonObject.endArray();
-            jsonObject.endObject();
-            jsonObject.endObject();
 
-            HttpServerPageHandler.sendHttpResponse(ctx, req, HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, jsonObject.toString().getBytes(Charset.forName("UTF-8")), "json"));
-        } else if (qsd.parameters().containsKey("getAllRows")) {
-            jsonObject.object();
-            jsonObject.key("table");
-            jsonObject.object();
-            jsonObject.key("table_name").value(dbTable);
-            jsonObject.key("results").array();
+            String after = qsd.parameters().containsKey("after") && !qsd.parameters().get("after").isEmpty() ? qsd.parameters().get("after").get(0) : null;
+            boolean ndjson = qsd.parameters().containsKey("format") && !qsd.parameters().get("format").isEmpty()
+                    && qsd.parameters().get("format").get(0).equalsIgnoreCase("ndjson");
 
-            String[] dbKeys = PhantomBot.instance().getDataStore().GetKeyList(dbTable, dbSection);
-
-            for (String dbKey : dbKeys) {
-                jsonObject.object();
-                jsonObject.key("key").value(dbKey);
-                jsonObject.key("value").value(PhantomBot.instance().getDataStore().GetString(dbTable, dbSection, dbKey));
-                jsonObject.endObject();
-            }
-            jsonObject.endArray();
-            jsonObject.endObject();
-            jsonObject.endObject();
-
-            HttpServerPageHandler.sendHttpResponse(ctx, req, HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, jsonObject.toString().getBytes(Charset.forName("UTF-8")), "json"));
+            HttpServerPageHandler.sendChunked(ctx, req, new DbTableChunkedInput(PhantomBot.instance().getDataStore(), dbTable, dbSection,
+                    qsd.parameters().containsKey("getAllRows"), ndjson, after, limit),
+                    ndjson ? "application/x-ndjson; charset=UTF-8" : HttpServerPageHandler.detectContentType("json"));
         } else if (qsd.parameters().containsKey("getSortedRows")) {
             jsonObject.object();
             jsonObject.key("table");
@@ -312,17 +301,20 @@ public class HTTPAuthenticatedHandler implements HttpRequestHandler {
             return;
         }
 
-        try {
-            String data = Files.readString(Paths.get("./web/panel/js/utils/gamesList.txt"));
-            String search = qsd.parameters().get("search").get(0).toLowerCase();
+        int limit = DEFAULT_GAMES_LIMIT;
+        if (qsd.parameters().containsKey("limit") && !qsd.parameters().get("limit").isEmpty()) {
+            try {
+                limit = Math.max(1, Math.min(MAX_GAMES_LIMIT, Integer.parseInt(qsd.parameters().get("limit").get(0))));
+            } catch (NumberFormatException ex) {
+            }
+        }
 
+        try {
             JSONStringer stringer = new JSONStringer();
             stringer.array();
 
-            for (String g : data.split("\n")) {
-                if (g.toLowerCase().startsWith(search)) {
-                    stringer.object().key("game").value(g.replace("\r", "")).endObject();
-                }
+            for (String g : GamesListIndex.instance().search(qsd.parameters().get("search").get(0), limit)) {
+                stringer.object().key("game").value(g).endObject();
             }
 
             stringer.endArray();
@@ -334,6 +326,27 @@ public class HTTPAuthenticatedHandler implements HttpRequestHandler {
         }
     }
 
+    private void handleMetrics(ChannelHandlerContext ctx, FullHttpRequest req, QueryStringDecoder qsd) {
+        String format = qsd.parameters().getOrDefault("format", List.of("")).get(0);
+        String accept = req.headers().get(HttpHeaderNames.ACCEPT, "");
+
+        if (format.equalsIgnoreCase("prometheus") || (format.isBlank() && (accept.contains("text/plain") || accept.contains("openmetrics")))) {
+            StringBuilder sb = new StringBuilder(4096);
+            HttpWsMetrics.instance().writePrometheus(sb);
+            FullHttpResponse res = HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, sb.toString().getBytes(StandardCharsets.UTF_8), "txt");
+            res.headers().set(HttpHeaderNames.CONTENT_TYPE, "text/plain; version=0.0.4; charset=utf-8");
+            res.headers().set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_STORE);
+            HttpServerPageHandler.sendHttpResponse(ctx, req, res);
+            return;
+        }
+
+        JSONStringer jsonObject = new JSONStringer();
+        HttpWsMetrics.instance().writeJson(jsonObject);
+        FullHttpResponse res = HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, jsonObject.toString().getBytes(StandardCharsets.UTF_8), "json");
+        res.headers().set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_STORE);
+        HttpServerPageHandler.sendHttpResponse(ctx, req, res);
+    }
+
     private void handleIniStore(ChannelHandlerContext ctx, FullHttpRequest req, QueryStringDecoder qsd) {
         String iniStore = qsd.path().substring(10);
         iniStore = iniStore.replace(".ini", "");
@@ -18,7 +18,6 @@ package tv.phantombot.httpserver;
 
 import java.io.IOException;
 import java.net.URLDecoder;
-import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -26,6 +25,8 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +34,7 @@ import com.gmt2001.PathValidator;
 import com.gmt2001.httpwsserver.HTTPWSServer;
 import com.gmt2001.httpwsserver.HttpRequestHandler;
 import com.gmt2001.httpwsserver.HttpServerPageHandler;
+import com.gmt2001.httpwsserver.StaticResourceCache;
 import com.gmt2001.httpwsserver.auth.HttpAuthenticationHandler;
 import com.gmt2001.httpwsserver.auth.HttpNoAuthenticationHandler;
 import com.gmt2001.util.Reflect;
@@ -51,6 +53,30 @@ import io.netty.handler.codec.http.QueryStringDecoder;
  */
 public class HTTPNoAuthHandler implements HttpRequestHandler {
 
+    /**
+     * The maximum number of generated addon pages which are kept
+     */
+    private static final int MAX_ADDON_PAGES = 64;
+    /**
+     * Generated addon pages, by file and parameters
+     */
+    private final Map<String, AddonPage> addonPages = new LinkedHashMap<>(MAX_ADDON_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AddonPage> eldest) {
+            return this.size() > MAX_ADDON_PAGES;
+        }
+    };
+
+    /**
+     * An HTML page generated from an addon file
+     *
+     * @param sourceETag The ETag of the version of the addon file which the page was generated from
+     * @param content The page
+     * @param eTag The strong ETag of the page, with quotes
+     */
+    private record AddonPage(String sourceETag, byte[] content, String eTag) {
+    }
+
     @Override
     public HttpRequestHandler register() {
         HttpServerPageHandler.registerHttpHandler("/", this);
@@ -182,14 +208,21 @@ public class HTTPNoAuthHandler implements HttpRequestHandler {
                 if (path.startsWith("/addons") && (qsd.parameters().containsKey("marquee") || qsd.parameters().containsKey("refresh"))) {
                     handleAddons(ctx, req, p, qsd);
                 } else {
+                    String contentType = HttpServerPageHandler.detectContentType(p.getFileName().toString());
                     com.gmt2001.Console.debug.println("200 " + req.method().asciiName() + ": " + p.toString() + " (" + p.getFileName().toString() + " = "
-                            + HttpServerPageHandler.detectContentType(p.getFileName().toString()) + ")");
+                            + contentType + ")");
                     Map<CharSequence, Object> headers = Collections.emptyMap();
                     String origin = req.headers().get(HttpHeaderNames.ORIGIN);
                     if (origin != null && !origin.isBlank()) {
                         headers = Map.of(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
                     }
-                    HttpServerPageHandler.sendFile(ctx, req, p, headers);
+
+                    // Text which overlays poll is served from memory; media goes through the zero-copy range path
+                    if (StaticResourceCache.isCompressible(contentType)) {
+                        HttpServerPageHandler.sendCachedFile(ctx, req, p, headers);
+                    } else {
+                        HttpServerPageHandler.sendFile(ctx, req, p, headers);
+                    }
                 }
             }
         } catch (IOException ex) {
@@ -202,16 +235,36 @@ public class HTTPNoAuthHandler implements HttpRequestHandler {
     private void handleAddons(ChannelHandlerContext ctx, FullHttpRequest req, Path p, QueryStringDecoder qsd) {
         try {
             String ret;
+            boolean marquee = qsd.parameters().containsKey("marquee");
+            boolean span = qsd.parameters().containsKey("span");
+            List<String> defWidth = new ArrayList<>();
+            defWidth.add("420");
+            List<String> defLen = new ArrayList<>();
+            defLen.add("40");
+            int width = marquee ? Integer.parseInt(qsd.parameters().getOrDefault("width", defWidth).get(0)) : 0;
+            int len = marquee ? Integer.parseInt(qsd.parameters().getOrDefault("cutoff", defLen).get(0)) : 0;
+            StaticResourceCache.Resource resource = StaticResourceCache.instance().get(p);
+            String pageKey = p.toAbsolutePath().normalize() + "?" + (marquee ? "marquee&width=" + width + "&cutoff=" + len : "refresh") + (span ? "&span" : "");
+            AddonPage page = null;
+
+            if (resource != null) {
+                synchronized (this.addonPages) {
+                    page = this.addonPages.get(pageKey);
+                }
+
+                if (page != null && !page.sourceETag().equals(resource.eTag())) {
+                    page = null;
+                }
+            }
+
+            if (page != null) {
+                this.sendAddonPage(ctx, req, p, page);
+                return;
+            }
 
-            if (qsd.parameters().containsKey("marquee")) {
-                List<String> defWidth = new ArrayList<>();
-                defWidth.add("420");
-                List<String> defLen = new ArrayList<>();
-                defLen.add("40");
-                int width = Integer.parseInt(qsd.parameters().getOrDefault("width", defWidth).get(0));
-                int len = Integer.parseInt(qsd.parameters().getOrDefault("cutoff", defLen).get(0));
-                String data = Files.readString(p);
+            String data = resource != null ? new String(resource.identity(), StandardCharsets.UTF_8) : Files.readString(p);
 
+            if (marquee) {
                 ret = "<html><head><meta http-equiv=\"refresh\" content=\"5\" /><style>"
                         + "body { margin: 5px; }"
                         + ".marquee { "
@@ -241,17 +294,28 @@ public class HTTPNoAuthHandler implements HttpRequestHandler {
                         + "<span>" + data.substring(0, Math.min(data.length(), len)) + "&nbsp;</span>"
                         + "</div></div></body></html>";
             } else {
-                ret = "<html><head><meta http-equiv=\"refresh\" content=\"5\" /></head><body>" + (qsd.parameters().containsKey("span") ? "<span>" : "") + Files.readString(p) + (qsd.parameters().containsKey("span") ? "</span>" : "") + "</body></html>";
+                ret = "<html><head><meta http-equiv=\"refresh\" content=\"5\" /></head><body>" + (span ? "<span>" : "") + data + (span ? "</span>" : "") + "</body></html>";
             }
 
-            com.gmt2001.Console.debug.println("200 " + req.method().asciiName() + ": " + p.toString() + " (" + p.getFileName().toString() + " = "
-                    + HttpServerPageHandler.detectContentType("html") + ")");
-            FullHttpResponse res = HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, ret.getBytes(Charset.forName("UTF-8")), "html");
-            String origin = req.headers().get(HttpHeaderNames.ORIGIN);
-            if (origin != null && !origin.isBlank()) {
-                res.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+            byte[] content = ret.getBytes(StandardCharsets.UTF_8);
+
+            if (resource == null) {
+                com.gmt2001.Console.debug.println("200 " + req.method().asciiName() + ": " + p.toString() + " (" + p.getFileName().toString() + " = "
+                        + HttpServerPageHandler.detectContentType("html") + ")");
+                FullHttpResponse res = HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, content, "html");
+                String origin = req.headers().get(HttpHeaderNames.ORIGIN);
+                if (origin != null && !origin.isBlank()) {
+                    res.headers().set(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+                }
+                HttpServerPageHandler.sendHttpResponse(ctx, req, res);
+                return;
             }
-            HttpServerPageHandler.sendHttpResponse(ctx, req, res);
+
+            page = new AddonPage(resource.eTag(), content, "\"" + resource.eTag() + "-" + Integer.toHexString(pageKey.hashCode()) + "\"");
+            synchronized (this.addonPages) {
+                this.addonPages.put(pageKey, page);
+            }
+            this.sendAddonPage(ctx, req, p, page);
         } catch (NumberFormatException | IOException ex) {
             com.gmt2001.Console.debug.println("500");
             com.gmt2001.Console.debug.printStackTrace(ex);
@@ -259,4 +323,25 @@ public class HTTPNoAuthHandler implements HttpRequestHandler {
         }
     }
 
+    /**
+     * Sends a generated addon page, or {@code 304 Not Modified} if the client already has it
+     *
+     * @param ctx The {@link ChannelHandlerContext} of the session
+     * @param req The {@link FullHttpRequest} containing the request
+     * @param p The addon file
+     * @param page The generated page
+     */
+    private void sendAddonPage(ChannelHandlerContext ctx, FullHttpRequest req, Path p, AddonPage page) {
+        Map<CharSequence, Object> headers = new HashMap<>();
+        // The page refreshes itself every few seconds, so it must be revalidated instead of served from the browser cache
+        headers.put(HttpHeaderNames.CACHE_CONTROL, "private, no-cache");
+        String origin = req.headers().get(HttpHeaderNames.ORIGIN);
+        if (origin != null && !origin.isBlank()) {
+            headers.put(HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN, origin);
+        }
+
+        boolean notModified = HttpServerPageHandler.sendCachedBytes(ctx, req, page.content(), "html", page.eTag(), headers);
+        com.gmt2001.Console.debug.println((notModified ? "304 " : "200 ") + req.method().asciiName() + ": " + p.toString() + " ("
+                + p.getFileName().toString() + " = " + HttpServerPageHandler.detectContentType("html") + ")");
+    }
 }
@@ -118,11 +118,13 @@ public class HTTPOAuthHandler implements HttpRequestHandler {
             if (HttpServerPageHandler.checkFilePermissions(ctx, req, p, false)) {
                 com.gmt2001.Console.debug.println("200 " + req.method().asciiName() + ": " + p.toString() + " (" + p.getFileName().toString() + " = "
                         + HttpServerPageHandler.detectContentType(p.getFileName().toString()) + ")");
-                byte[] data = Files.readAllBytes(p);
                 if (qsd.path().startsWith("/oauth")) {
-                    data = TwitchAuthorizationCodeFlow.handleRequest(req, data, this);
+                    // The OAuth page is rewritten per request, so it bypasses the static cache
+                    byte[] data = TwitchAuthorizationCodeFlow.handleRequest(req, Files.readAllBytes(p), this);
+                    HttpServerPageHandler.sendHttpResponse(ctx, req, HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, data, p.getFileName().toString()));
+                } else {
+                    HttpServerPageHandler.sendCachedFile(ctx, req, p);
                 }
-                HttpServerPageHandler.sendHttpResponse(ctx, req, HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, data, p.getFileName().toString()));
             }
         } catch (IOException ex) {
             com.gmt2001.Console.debug.println("500 " + req.method().asciiName() + ": " + qsd.path());
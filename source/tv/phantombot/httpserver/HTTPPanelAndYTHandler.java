@@ -98,8 +98,7 @@ public class HTTPPanelAndYTHandler implements HttpRequestHandler {
         if (req.method().equals(HttpMethod.GET) && CUSTOM_MANIFESTS_PATH.equals(qsd.path())) {
             try {
                 CustomPanelManifestCache.CachedResponse cached = CustomPanelManifestCollector.getCachedResponse();
-                PanelUser panelUser = PanelUserHandler.checkLoginAndGetUserB64(
-                        HttpBasicAuthenticationHandler.getAuthorizationString(req.headers()), CUSTOM_MANIFESTS_PATH);
+                PanelUser panelUser = PanelUserHandler.checkLoginAndGetUser(ctx, req.headers(), CUSTOM_MANIFESTS_PATH);
                 byte[] body = CustomPanelManifestCollector.filterManifestBytesForPanelUser(cached.bytes(), panelUser);
                 String etag = CustomPanelManifestCache.computeStrongEtag(body);
                 boolean notModified = HttpServerPageHandler.sendCachedBytes(ctx, req, body, "custom-manifests.json", etag);
@@ -132,8 +131,7 @@ public class HTTPPanelAndYTHandler implements HttpRequestHandler {
             if (HttpServerPageHandler.checkFilePermissions(ctx, req, p, false)) {
                 com.gmt2001.Console.debug.println("200 " + req.method().asciiName() + ": " + p.toString() + " (" + p.getFileName().toString() + " = "
                         + HttpServerPageHandler.detectContentType(p.getFileName().toString()) + ")");
-                byte[] data = Files.readAllBytes(p);
-                HttpServerPageHandler.sendHttpResponse(ctx, req, HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, data, p.getFileName().toString()));
+                HttpServerPageHandler.sendCachedFile(ctx, req, p);
             }
         } catch (IOException ex) {
             com.gmt2001.Console.debug.println("500 " + req.method().asciiName() + ": " + qsd.path());
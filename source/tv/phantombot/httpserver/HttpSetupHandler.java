@@ -130,8 +130,7 @@ public class HttpSetupHandler implements HttpRequestHandler {
             if (HttpServerPageHandler.checkFilePermissions(ctx, req, p, false)) {
                 com.gmt2001.Console.debug.println("200 " + req.method().asciiName() + ": " + p.toString() + " (" + p.getFileName().toString() + " = "
                         + HttpServerPageHandler.detectContentType(p.getFileName().toString()) + ")");
-                byte[] data = Files.readAllBytes(p);
-                HttpServerPageHandler.sendHttpResponse(ctx, req, HttpServerPageHandler.prepareHttpResponse(HttpResponseStatus.OK, data, p.getFileName().toString()));
+                HttpServerPageHandler.sendCachedFile(ctx, req, p);
             }
         } catch (IOException ex) {
             com.gmt2001.Console.debug.println("500 " + req.method().asciiName() + ": " + qsd.path());
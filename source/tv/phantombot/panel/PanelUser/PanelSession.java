@@ -0,0 +1,322 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package tv.phantombot.panel.PanelUser;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import tv.phantombot.CaselessProperties;
+
+/**
+ * Issues and validates signed, short-lived session tokens for {@link PanelUser panel users}
+ * <p>
+ * A session is issued after a successful password login. The token carries the username, the expiry time, and the revocation generation
+ * of the user, signed with HMAC-SHA256 using a random key which only exists in memory. The signature also covers the login credential
+ * which the session was issued for, so the session ends as soon as the client stops sending that credential, such as after logging out.
+ * Validating a token is a signature check against the {@link PanelUser} object that was loaded at login, so it does not access the database
+ * <p>
+ * Changing a user through {@link PanelUserHandler} revokes all of their sessions by advancing their generation. Restarting the bot
+ * generates a new key, which revokes all sessions
+ *
+ * @author gmt2001
+ */
+public final class PanelSession {
+    private static final PanelSession INSTANCE = new PanelSession();
+    /**
+     * The name of the cookie which holds the session token
+     */
+    public static final String COOKIE = "panelsession";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, Long> generations = new ConcurrentHashMap<>();
+    private final Map<String, PanelUser> users = new ConcurrentHashMap<>();
+    private final ThreadLocal<Mac> mac = new ThreadLocal<>();
+    private volatile SecretKeySpec key;
+    private final LongAdder sessionHits = new LongAdder();
+    private final LongAdder sessionMisses = new LongAdder();
+    private final LongAdder passwordLogins = new LongAdder();
+    private final LongAdder failedLogins = new LongAdder();
+    private final LongAdder sessionNanos = new LongAdder();
+    private final LongAdder passwordNanos = new LongAdder();
+    private final AtomicLong maxSessionNanos = new AtomicLong();
+    private final AtomicLong maxPasswordNanos = new AtomicLong();
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+
+    /**
+     * Authentication statistics
+     *
+     * @param sessionHits The number of requests authenticated by a session token
+     * @param sessionMisses The number of session tokens which were rejected
+     * @param passwordLogins The number of requests authenticated by username and password
+     * @param failedLogins The number of requests which were not authenticated
+     * @param averageSessionMillis The average time to validate a session token, in milliseconds
+     * @param maxSessionMillis The longest time to validate a session token, in milliseconds
+     * @param averagePasswordMillis The average time to authenticate by username and password, in milliseconds
+     * @param maxPasswordMillis The longest time to authenticate by username and password, in milliseconds
+     * @param issued The number of sessions issued
+     * @param revoked The number of revocations
+     * @param cachedUsers The number of users with an active session cache entry
+     */
+    public record Stats(long sessionHits, long sessionMisses, long passwordLogins, long failedLogins, double averageSessionMillis,
+            double maxSessionMillis, double averagePasswordMillis, double maxPasswordMillis, long issued, long revoked, int cachedUsers) {
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of PanelSession
+     */
+    public static PanelSession instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private PanelSession() {
+        this.rotateKey();
+    }
+
+    /**
+     * The lifetime of a session
+     *
+     * @return The lifetime
+     */
+    public static Duration ttl() {
+        /**
+         * @botproperty panelsessionttl - The number of minutes that a panel login session remains valid without re-checking the password. `0` to disable sessions. Default `30`
+         * @botpropertycatsort panelsessionttl 40 40 Panel Login
+         */
+        return Duration.ofMinutes(Math.max(0L, CaselessProperties.instance().getPropertyAsLong("panelsessionttl", 30L)));
+    }
+
+    /**
+     * Indicates if sessions are enabled
+     *
+     * @return {@code true} if sessions are issued and accepted
+     */
+    public static boolean isEnabled() {
+        return !ttl().isZero();
+    }
+
+    /**
+     * Issues a new session token for a user who has just authenticated by password
+     *
+     * @param user The user
+     * @param credential The login credential which was checked
+     * @return The session token; {@code null} if sessions are disabled
+     */
+    public String issue(PanelUser user, String credential) {
+        Duration ttl = ttl();
+
+        if (ttl.isZero() || user == null) {
+            return null;
+        }
+
+        String name = normalize(user.getUsername());
+        long generation = this.generations.getOrDefault(name, 0L);
+        long expires = System.currentTimeMillis() + ttl.toMillis();
+        String payload = ENCODER.encodeToString(name.getBytes(StandardCharsets.UTF_8)) + "." + Long.toString(expires, 36) + "."
+            + Long.toString(generation, 36);
+        this.users.put(name, user);
+        this.issued.increment();
+
+        return payload + "." + ENCODER.encodeToString(this.sign(payload, credential));
+    }
+
+    /**
+     * Validates a session token
+     *
+     * @param token The session token
+     * @param credential The login credential sent with the request
+     * @return The {@link PanelUser} which the token was issued to; {@code null} if the token is invalid, expired, revoked, or was issued
+     * for a different credential
+     */
+    public PanelUser validate(String token, String credential) {
+        if (token == null || token.isBlank() || !isEnabled()) {
+            return null;
+        }
+
+        int sig = token.lastIndexOf('.');
+        if (sig <= 0) {
+            return null;
+        }
+
+        String payload = token.substring(0, sig);
+        byte[] expected;
+        byte[] actual;
+        try {
+            expected = this.sign(payload, credential);
+            actual = DECODER.decode(token.substring(sig + 1));
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return null;
+        }
+
+        String[] parts = payload.split("\\.", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+
+        try {
+            String name = new String(DECODER.decode(parts[0]), StandardCharsets.UTF_8);
+            long expires = Long.parseLong(parts[1], 36);
+            long generation = Long.parseLong(parts[2], 36);
+
+            if (expires < System.currentTimeMillis() || generation != this.generations.getOrDefault(name, 0L)) {
+                return null;
+            }
+
+            PanelUser user = this.users.get(name);
+            return user != null && user.isEnabled() ? user : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Indicates if a session token is past half of its lifetime, and should be replaced by a new one
+     *
+     * @param token A valid session token
+     * @return {@code true} if the token should be replaced
+     */
+    public boolean shouldRenew(String token) {
+        String[] parts = token.split("\\.", -1);
+
+        try {
+            return Long.parseLong(parts[1], 36) - System.currentTimeMillis() < ttl().toMillis() / 2L;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+            return true;
+        }
+    }
+
+    /**
+     * Revokes all sessions of a user
+     *
+     * @param username The username
+     */
+    public void revoke(String username) {
+        if (username == null) {
+            return;
+        }
+
+        String name = normalize(username);
+        this.generations.merge(name, 1L, Long::sum);
+        this.users.remove(name);
+        this.revoked.increment();
+    }
+
+    /**
+     * Revokes all sessions of all users
+     */
+    public void revokeAll() {
+        this.rotateKey();
+        this.users.clear();
+        this.revoked.increment();
+    }
+
+    /**
+     * Records the time taken to check the authentication of a request
+     *
+     * @param session {@code true} if a session token was checked; {@code false} if a username and password was checked
+     * @param success {@code true} if the request was authenticated
+     * @param nanos The time taken, in nanoseconds
+     */
+    void record(boolean session, boolean success, long nanos) {
+        if (session) {
+            if (success) {
+                this.sessionHits.increment();
+            } else {
+                this.sessionMisses.increment();
+            }
+            this.sessionNanos.add(nanos);
+            this.maxSessionNanos.accumulateAndGet(nanos, Math::max);
+        } else {
+            if (success) {
+                this.passwordLogins.increment();
+            } else {
+                this.failedLogins.increment();
+            }
+            this.passwordNanos.add(nanos);
+            this.maxPasswordNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * Returns the authentication statistics
+     *
+     * @return The statistics
+     */
+    public Stats stats() {
+        long sessions = this.sessionHits.sum() + this.sessionMisses.sum();
+        long passwords = this.passwordLogins.sum() + this.failedLogins.sum();
+        return new Stats(this.sessionHits.sum(), this.sessionMisses.sum(), this.passwordLogins.sum(), this.failedLogins.sum(),
+            millis(this.sessionNanos.sum() / Math.max(1L, sessions)), millis(this.maxSessionNanos.get()),
+            millis(this.passwordNanos.sum() / Math.max(1L, passwords)), millis(this.maxPasswordNanos.get()),
+            this.issued.sum(), this.revoked.sum(), this.users.size());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private void rotateKey() {
+        byte[] bytes = new byte[32];
+        this.random.nextBytes(bytes);
+        this.key = new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    private byte[] sign(String payload, String credential) {
+        SecretKeySpec key = this.key;
+
+        try {
+            Mac mac = this.mac.get();
+            if (mac == null) {
+                mac = Mac.getInstance(ALGORITHM);
+                this.mac.set(mac);
+            }
+            mac.init(key);
+            mac.update(payload.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) '\n');
+            return mac.doFinal((credential == null ? "" : credential).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
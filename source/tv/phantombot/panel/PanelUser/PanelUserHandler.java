@@ -28,8 +28,14 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONStringer;
 
+import com.gmt2001.httpwsserver.HttpServerPageHandler;
+import com.gmt2001.httpwsserver.SetCookieHandler;
+import com.gmt2001.httpwsserver.auth.HttpBasicAuthenticationHandler;
 import com.mcawful.CustomPanelManifestRegistry;
 
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.ssl.SslHandler;
 import tv.phantombot.PhantomBot;
 import tv.phantombot.panel.WsPanelHandler;
 
@@ -480,34 +486,120 @@ public final class PanelUserHandler {
      */
     public static PanelUser checkLoginAndGetUser(String username, String password, String requestUri) {
         PanelUser user = PanelUser.LookupByUsername(username);
-        if (user == null || !user.isEnabled()) {
+        if (user == null || !user.isEnabled() || !canAccessUri(user, requestUri)) {
             return null;
         }
 
+        if (password.equals(user.getPassword())) {
+            user.setLastLoginNOW();
+
+            try {
+                user.doupdate();
+            } catch (Exception ex) {
+                com.gmt2001.Console.err.printStackTrace(ex);
+            }
+
+            return user;
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks if the {@link PanelUser panel user} is allowed to access the uri
+     *
+     * @param user       The user
+     * @param requestUri The requested uri; {@code null} to skip the check
+     * @return {@code true} if the user is allowed to access the uri
+     */
+    private static boolean canAccessUri(PanelUser user, String requestUri) {
         if (requestUri != null) {
             if ((requestUri.contains("/setup/") || requestUri.contains("/oauth/"))
                     && (!user.isConfigUser() || !user.canManageUsers())) {
-                return null;
+                return false;
             }
             if (requestUri.contains("/ytplayer/") && !(user.getPermission().containsKey("youtube player")
                     && user.getPermission().get("youtube player").equals(Permission.READ_WRITE))) {
-                return null;
+                return false;
             }
         }
 
-        if (password.equals(user.getPassword())) {
-            user.setLastLoginNOW();
+        return true;
+    }
 
-            try {
-                user.doupdate();
-            } catch (Exception ex) {
-                com.gmt2001.Console.err.printStackTrace(ex);
+    /**
+     * Checks if the {@link PanelUser panel user} who sent the request is allowed
+     * to logon to the web panel and/or use the websocket
+     * <br />
+     * <br />
+     * A valid {@link PanelSession session} cookie, issued for the login in the
+     * {@code Authorization} header or the {@code panellogin} cookie, is checked
+     * first, which does not access the database. Otherwise, the login itself is
+     * checked, and if it is valid and {@code ctx} is not {@code null}, a new session
+     * cookie is set on the response. A session past half of its lifetime is only
+     * renewed after the login itself is checked again
+     *
+     * @param ctx        The {@link ChannelHandlerContext} of the session;
+     *                   {@code null} to not issue a session
+     * @param headers    The request headers
+     * @param requestUri The requested uri
+     * @return A {@link PanelUser} if the user exists, is enabled and is allowed to
+     *         access the uri; {@code null} otherwise
+     * @see PanelSession
+     */
+    public static PanelUser checkLoginAndGetUser(ChannelHandlerContext ctx, HttpHeaders headers, String requestUri) {
+        long start = System.nanoTime();
+        String credential = HttpBasicAuthenticationHandler.getAuthorizationString(headers);
+        String token = null;
+
+        if (credential == null || credential.isEmpty()) {
+            return null;
+        }
+
+        if (PanelSession.isEnabled()) {
+            token = HttpServerPageHandler.parseCookies(headers).get(PanelSession.COOKIE);
+        }
+
+        if (token != null) {
+            PanelUser user = PanelSession.instance().validate(token, credential);
+            PanelSession.instance().record(true, user != null, System.nanoTime() - start);
+
+            if (user != null && (ctx == null || !PanelSession.instance().shouldRenew(token))) {
+                return canAccessUri(user, requestUri) ? user : null;
             }
 
-            return user;
+            start = System.nanoTime();
         }
 
-        return null;
+        PanelUser user;
+        try {
+            user = checkLoginAndGetUserB64(credential, requestUri);
+        } catch (IllegalArgumentException ex) {
+            user = null;
+        }
+        PanelSession.instance().record(false, user != null, System.nanoTime() - start);
+
+        if (user != null && ctx != null) {
+            issueSession(ctx, user, credential);
+        }
+
+        return user;
+    }
+
+    /**
+     * Sets a new {@link PanelSession session} cookie on the next response
+     *
+     * @param ctx        The {@link ChannelHandlerContext} of the session
+     * @param user       The user
+     * @param credential The login credential which was checked
+     */
+    private static void issueSession(ChannelHandlerContext ctx, PanelUser user, String credential) {
+        String token = PanelSession.instance().issue(user, credential);
+
+        if (token != null) {
+            SetCookieHandler.setCookie(ctx, PanelSession.COOKIE + "=" + token + "; Path=/; Max-Age=" + PanelSession.ttl().toSeconds()
+                    + "; HttpOnly; SameSite=Strict" + (ctx.channel().pipeline().get(SslHandler.class) != null ? "; Secure" : ""));
+        }
     }
 
     /**
@@ -587,6 +679,8 @@ public final class PanelUserHandler {
         } catch (Exception ex) {
             com.gmt2001.Console.err.printStackTrace(ex);
             return PanelMessage.SaveError;
+        } finally {
+            PanelSession.instance().revoke(username);
         }
 
         return PanelMessage.Success.setResponse("Password changed successfully");
@@ -687,6 +781,8 @@ public final class PanelUserHandler {
         } catch (Exception ex) {
             com.gmt2001.Console.err.printStackTrace(ex);
             return PanelMessage.SaveError;
+        } finally {
+            PanelSession.instance().revoke(username);
         }
 
         return PanelMessage.Success.setResponse("User successfully deleted");
@@ -795,6 +891,9 @@ public final class PanelUserHandler {
         } catch (Exception ex) {
             com.gmt2001.Console.err.printStackTrace(ex);
             return PanelMessage.SaveError;
+        } finally {
+            PanelSession.instance().revoke(currentUsername);
+            PanelSession.instance().revoke(newUsername);
         }
 
         return PanelMessage.Success.setResponse("User successfully edited");
@@ -852,6 +951,8 @@ public final class PanelUserHandler {
         } catch (Exception ex) {
             com.gmt2001.Console.err.printStackTrace(ex);
             return PanelMessage.SaveError;
+        } finally {
+            PanelSession.instance().revoke(username);
         }
 
         return PanelMessage.Success.setResponse(password);
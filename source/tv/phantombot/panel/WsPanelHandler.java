@@ -756,12 +756,27 @@ public class WsPanelHandler implements WsFrameHandler {
 
         jsonObject.object().key("query_id").value(uniqueID).key("results").array();
 
-        KeyValue[] rows = PhantomBot.instance().getDataStore().GetKeyValueList(table, "");
+        JSONObject query = jso.getJSONObject("query");
+        int limit = query.optInt("limit", 0);
+        KeyValue[] rows;
+        if (limit > 0) {
+            // Keyset pagination; the last key of a full page is returned as the next cursor
+            rows = PhantomBot.instance().getDataStore().GetKeyValuePage(table, "", query.optString("after", null), limit);
+        } else {
+            rows = PhantomBot.instance().getDataStore().GetKeyValueList(table, "");
+        }
+
         for (KeyValue row : rows) {
             jsonObject.object().key("table").value(table).key("key").value(row.getKey()).key("value").value(row.getValue()).endObject();
         }
 
-        jsonObject.endArray().endObject();
+        jsonObject.endArray();
+
+        if (limit > 0 && rows.length == limit) {
+            jsonObject.key("next").value(rows[rows.length - 1].getKey());
+        }
+
+        jsonObject.endObject();
 
         if (ctx == null) {
             sendJSONToAll(jsonObject.toString());
@@ -800,10 +815,8 @@ public class WsPanelHandler implements WsFrameHandler {
                     return;
                 }
 
-                String[] dbKeys = PhantomBot.instance().getDataStore().GetKeyList(table, "");
-                for (String dbKey : dbKeys) {
-                    String value = PhantomBot.instance().getDataStore().GetString(table, "", dbKey);
-                    jsonObject.object().key("table").value(table).key("key").value(dbKey).key("value").value(value).endObject();
+                for (KeyValue row : PhantomBot.instance().getDataStore().GetKeyValueList(table, "")) {
+                    jsonObject.object().key("table").value(table).key("key").value(row.getKey()).key("value").value(row.getValue()).endObject();
                 }
             }
         }
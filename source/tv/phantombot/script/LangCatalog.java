@@ -0,0 +1,507 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package tv.phantombot.script;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+
+import com.gmt2001.util.Reflect;
+
+/**
+ * The catalog of lang strings used by {@code $.lang}
+ * <p>
+ * Each string is compiled once, when it is loaded, into a {@link Template} which records the positions of its {@code $1} to {@code $99}
+ * placeholders, so formatting a message is a single pass which appends the literal segments and the arguments
+ * <p>
+ * A load builds a complete new catalog, which then replaces the active one in a single write, so a reload never exposes a partially
+ * loaded catalog to other threads. The parsed JSON lang files are also written to a snapshot, which is used at the next startup instead
+ * of parsing directories whose files have not changed
+ *
+ * @author gmt2001
+ */
+public final class LangCatalog {
+    private static final LangCatalog INSTANCE = new LangCatalog();
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final Path SNAPSHOT = Paths.get(Reflect.GetExecutionPath(), "config", "lang.snapshot");
+    private volatile Map<String, Template> templates = Collections.emptyMap();
+    /**
+     * Strings registered by lang scripts rather than loaded from JSON, in registration order
+     */
+    private final Map<String, String> registered = Collections.synchronizedMap(new LinkedHashMap<>());
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private Map<String, DirectorySnapshot> snapshots = null;
+    private Map<String, Template> loading = null;
+    private boolean snapshotChanged = false;
+
+    /**
+     * The parsed JSON lang files of a directory
+     *
+     * @param fingerprint The fingerprint of the names, sizes, and modification times of the files
+     * @param strings The lang strings, in load order
+     */
+    private record DirectorySnapshot(long fingerprint, Map<String, String> strings) {
+    }
+
+    /**
+     * A compiled lang string
+     */
+    public static final class Template {
+        private final String source;
+        /**
+         * The literal segments; there is one more segment than there are placeholders
+         */
+        private final String[] literals;
+        /**
+         * The first digit of each placeholder
+         */
+        private final int[] oneDigit;
+        /**
+         * The first two digits of each placeholder; {@code -1} if the placeholder has one digit
+         */
+        private final int[] twoDigit;
+        private final int paramCount;
+        private final int literalLength;
+
+        private Template(String source) {
+            List<String> literals = new ArrayList<>();
+            List<int[]> placeholders = new ArrayList<>();
+            int start = 0;
+            int length = 0;
+
+            for (int i = 0; i < source.length() - 1; i++) {
+                if (source.charAt(i) == '$' && isDigit(source.charAt(i + 1))) {
+                    literals.add(source.substring(start, i));
+                    length += i - start;
+                    int one = source.charAt(i + 1) - '0';
+                    int two = -1;
+                    i++;
+
+                    if (i + 1 < source.length() && isDigit(source.charAt(i + 1))) {
+                        two = one * 10 + (source.charAt(i + 1) - '0');
+                        i++;
+                    }
+
+                    placeholders.add(new int[]{one, two});
+                    start = i + 1;
+                }
+            }
+
+            literals.add(source.substring(start));
+            length += source.length() - start;
+
+            this.source = source;
+            this.literals = literals.toArray(String[]::new);
+            this.oneDigit = new int[placeholders.size()];
+            this.twoDigit = new int[placeholders.size()];
+            boolean[] present = new boolean[100];
+
+            for (int i = 0; i < placeholders.size(); i++) {
+                this.oneDigit[i] = placeholders.get(i)[0];
+                this.twoDigit[i] = placeholders.get(i)[1];
+                present[this.oneDigit[i]] = true;
+                if (this.twoDigit[i] >= 0) {
+                    present[this.twoDigit[i]] = true;
+                }
+            }
+
+            int count = 0;
+            while (count < 99 && present[count + 1]) {
+                count++;
+            }
+
+            this.paramCount = count;
+            this.literalLength = length;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        /**
+         * The number of consecutive placeholders, starting at {@code $1}, which appear in the string
+         *
+         * @return The number of placeholders
+         */
+        public int paramCount() {
+            return this.paramCount;
+        }
+
+        /**
+         * Replaces the placeholders with the arguments
+         * <p>
+         * A two-digit placeholder is only used as such if there are enough arguments, otherwise it is treated as a one-digit placeholder
+         * followed by a digit. Placeholders without a matching argument are left as-is
+         *
+         * @param args The arguments, where {@code args[0]} replaces {@code $1}
+         * @return The formatted string
+         */
+        public String format(String... args) {
+            int argc = args == null ? 0 : args.length;
+
+            if (this.oneDigit.length == 0) {
+                return this.source;
+            }
+
+            StringBuilder sb = new StringBuilder(this.literalLength + this.oneDigit.length * 16);
+
+            for (int i = 0; i < this.oneDigit.length; i++) {
+                sb.append(this.literals[i]);
+                int one = this.oneDigit[i];
+                int two = this.twoDigit[i];
+
+                if (two >= 1 && two <= argc) {
+                    sb.append(args[two - 1]);
+                } else if (one >= 1 && one <= argc) {
+                    sb.append(args[one - 1]);
+                    if (two >= 0) {
+                        sb.append(two % 10);
+                    }
+                } else {
+                    sb.append('$').append(two >= 0 ? two / 10 : one);
+                    if (two >= 0) {
+                        sb.append(two % 10);
+                    }
+                }
+            }
+
+            sb.append(this.literals[this.literals.length - 1]);
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return this.source;
+        }
+    }
+
+    /**
+     * Singleton method
+     *
+     * @return The singleton instance of LangCatalog
+     */
+    public static LangCatalog instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Constructor
+     */
+    private LangCatalog() {
+    }
+
+    /**
+     * Starts building a new catalog
+     * <p>
+     * Until {@link #commit()} is called, {@link #register(String, String)} and {@link #loadDirectory(String)} add to the new catalog and
+     * the active catalog is unchanged. Strings registered by lang scripts during previous loads are carried over, since unchanged
+     * scripts are not executed again unless the load is forced
+     */
+    public void begin() {
+        this.loadLock.lock();
+        this.loading = new HashMap<>(this.templates.size() + 64);
+
+        synchronized (this.registered) {
+            this.registered.forEach((key, value) -> this.loading.put(key, new Template(value)));
+        }
+    }
+
+    /**
+     * Replaces the active catalog with the one built since {@link #begin()}, and updates the snapshot if any directory was parsed
+     */
+    public void commit() {
+        if (!this.loadLock.isHeldByCurrentThread()) {
+            return;
+        }
+
+        try {
+            this.templates = Map.copyOf(this.loading);
+            this.loading = null;
+
+            if (this.snapshotChanged) {
+                this.snapshotChanged = false;
+                this.writeSnapshot();
+            }
+        } finally {
+            this.loadLock.unlock();
+        }
+    }
+
+    /**
+     * Adds all JSON lang files in a directory, and its subdirectories, to the catalog being built
+     * <p>
+     * If the files have not changed since they were last parsed, the strings are taken from the snapshot instead
+     *
+     * @param path The directory
+     */
+    public void loadDirectory(String path) {
+        if (this.loading == null || !this.loadLock.isHeldByCurrentThread()) {
+            throw new IllegalStateException("loadDirectory must be called between begin and commit");
+        }
+
+        Path dir = Paths.get(path).toAbsolutePath().normalize();
+        String dirKey = dir.toString().replace('\\', '/');
+
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        try {
+            this.findFiles(dir, files);
+        } catch (IOException ex) {
+            com.gmt2001.Console.err.printStackTrace(ex);
+            return;
+        }
+
+        long fingerprint = files.size();
+        for (Path file : files) {
+            try {
+                fingerprint = fingerprint * 31L + dir.relativize(file).toString().hashCode();
+                fingerprint = fingerprint * 31L + Files.size(file);
+                fingerprint = fingerprint * 31L + Files.getLastModifiedTime(file).toMillis();
+            } catch (IOException ex) {
+                fingerprint = fingerprint * 31L + System.nanoTime();
+            }
+        }
+
+        DirectorySnapshot snapshot = this.snapshots().get(dirKey);
+
+        if (snapshot == null || snapshot.fingerprint() != fingerprint) {
+            Map<String, String> strings = new LinkedHashMap<>();
+
+            for (Path file : files) {
+                try {
+                    JSONObject jso = new JSONObject(Files.readString(file, StandardCharsets.UTF_8).trim());
+                    for (String key : jso.keySet()) {
+                        if (!key.isEmpty()) {
+                            strings.put(key.toLowerCase(), jso.optString(key, ""));
+                        }
+                    }
+                } catch (Exception ex) {
+                    com.gmt2001.Console.err.println("Error loading " + file.toString() + ": " + ex.getMessage());
+                }
+            }
+
+            snapshot = new DirectorySnapshot(fingerprint, strings);
+            this.snapshots().put(dirKey, snapshot);
+            this.snapshotChanged = true;
+        }
+
+        snapshot.strings().forEach((key, value) -> this.loading.put(key, new Template(value)));
+    }
+
+    /**
+     * Finds the JSON files in a directory tree, in a stable order
+     *
+     * @param dir The directory
+     * @param files The list to add the files to
+     * @throws IOException if a directory can not be listed
+     */
+    private void findFiles(Path dir, List<Path> files) throws IOException {
+        List<Path> children;
+        try (Stream<Path> stream = Files.list(dir)) {
+            children = stream.sorted().toList();
+        }
+
+        for (Path child : children) {
+            if (Files.isDirectory(child)) {
+                this.findFiles(child, files);
+            } else if (child.getFileName().toString().endsWith(".json")) {
+                files.add(child);
+            }
+        }
+    }
+
+    /**
+     * Registers a lang string
+     * <p>
+     * During a load, the string is added to the catalog being built. Otherwise, it is added to the active catalog immediately
+     *
+     * @param key The key
+     * @param value The lang string
+     */
+    public void register(String key, String value) {
+        if (key == null || key.isEmpty() || value == null) {
+            return;
+        }
+
+        key = key.toLowerCase();
+        this.registered.put(key, value);
+
+        if (this.loadLock.isHeldByCurrentThread() && this.loading != null) {
+            this.loading.put(key, new Template(value));
+        } else {
+            synchronized (this) {
+                Map<String, Template> next = new HashMap<>(this.templates);
+                next.put(key, new Template(value));
+                this.templates = Map.copyOf(next);
+            }
+        }
+    }
+
+    /**
+     * Returns the compiled lang string for a key
+     *
+     * @param key The key
+     * @return The template; {@code null} if the key does not exist
+     */
+    public Template template(String key) {
+        return key == null ? null : this.templates.get(key.toLowerCase());
+    }
+
+    /**
+     * Indicates if a key exists
+     *
+     * @param key The key
+     * @return {@code true} if the key exists
+     */
+    public boolean exists(String key) {
+        return this.template(key) != null;
+    }
+
+    /**
+     * Formats a lang string
+     *
+     * @param key The key
+     * @param args The arguments, where {@code args[0]} replaces {@code $1}
+     * @return The formatted string; {@code null} if the key does not exist
+     */
+    public String format(String key, String... args) {
+        Template template = this.template(key);
+        return template == null ? null : template.format(args);
+    }
+
+    /**
+     * The number of consecutive placeholders, starting at {@code $1}, in a lang string
+     *
+     * @param key The key
+     * @return The number of placeholders; {@code 0} if the key does not exist
+     */
+    public int paramCount(String key) {
+        Template template = this.template(key);
+        return template == null ? 0 : template.paramCount();
+    }
+
+    /**
+     * The number of keys in the active catalog
+     *
+     * @return The number of keys
+     */
+    public int size() {
+        return this.templates.size();
+    }
+
+    /**
+     * Returns the directory snapshots, reading them from disk the first time
+     *
+     * @return The snapshots, by absolute directory path
+     */
+    private Map<String, DirectorySnapshot> snapshots() {
+        if (this.snapshots == null) {
+            this.snapshots = new HashMap<>();
+
+            if (Files.isRegularFile(SNAPSHOT)) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(SNAPSHOT)))) {
+                    if (in.readInt() == SNAPSHOT_VERSION) {
+                        int dirs = in.readInt();
+                        for (int d = 0; d < dirs; d++) {
+                            String dir = in.readUTF();
+                            long fingerprint = in.readLong();
+                            int count = in.readInt();
+                            Map<String, String> strings = new LinkedHashMap<>(count * 2);
+                            for (int i = 0; i < count; i++) {
+                                strings.put(in.readUTF(), readString(in));
+                            }
+                            this.snapshots.put(dir, new DirectorySnapshot(fingerprint, strings));
+                        }
+                    }
+                } catch (IOException ex) {
+                    com.gmt2001.Console.debug.println("Discarding lang snapshot: " + ex.getMessage());
+                    this.snapshots.clear();
+                }
+            }
+        }
+
+        return this.snapshots;
+    }
+
+    /**
+     * Writes the directory snapshots to disk
+     */
+    private void writeSnapshot() {
+        Path temp = SNAPSHOT.resolveSibling(SNAPSHOT.getFileName().toString() + ".tmp");
+
+        try {
+            Files.createDirectories(SNAPSHOT.getParent());
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(this.snapshots.size());
+                for (Map.Entry<String, DirectorySnapshot> dir : this.snapshots.entrySet()) {
+                    out.writeUTF(dir.getKey());
+                    out.writeLong(dir.getValue().fingerprint());
+                    out.writeInt(dir.getValue().strings().size());
+                    for (Map.Entry<String, String> kv : dir.getValue().strings().entrySet()) {
+                        out.writeUTF(kv.getKey());
+                        writeString(out, kv.getValue());
+                    }
+                }
+            }
+
+            Files.move(temp, SNAPSHOT, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            com.gmt2001.Console.err.println("Unable to write the lang snapshot: " + ex.getMessage());
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ex2) {
+            }
+        }
+    }
+
+    /**
+     * Writes a string of any length as UTF-8, since {@link DataOutputStream#writeUTF(String)} is limited to 65535 bytes
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -25,21 +25,41 @@ import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.gmt2001.util.concurrent.ExecutorService;
 
+/**
+ * Reloads scripts when their files are modified
+ * <p>
+ * Modifications are debounced per file: a file is only reloaded once it has not been modified for {@link #DEBOUNCE_MILLIS}, so an
+ * editor which writes a file several times on save, or a {@code git pull} which touches many files, causes each script to be reloaded
+ * once. All files which are due are reloaded together in one pass, in the order the scripts were originally loaded
+ */
 public class ScriptFileWatcher {
 
-    private static final long INTERVAL_SECONDS = 5;
+    private static final long INTERVAL_SECONDS = 1;
+    private static final long DEBOUNCE_MILLIS = 1000;
     private static ScriptFileWatcher instance;
     private final Map<String, Script> scripts = new ConcurrentHashMap<>();
+    /**
+     * Script path to the sequence number of when it was first loaded
+     */
+    private final Map<String, Long> loadOrder = new ConcurrentHashMap<>();
+    private final AtomicLong loadSequence = new AtomicLong();
     private final Map<Path, WatchKey> paths = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+    /**
+     * Script path to the time of the last modification event, in nanoseconds
+     */
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
     private final ScheduledFuture<?> update;
     private final WatchService watchService;
 
@@ -74,12 +94,15 @@ public class ScriptFileWatcher {
      */
     public synchronized void addScript(Script script) {
         Path scriptPath = Paths.get(script.getPath()).toAbsolutePath();
-        scripts.put(scriptPath.toString().replace('\\', '/'), script);
+        String pathKey = scriptPath.toString().replace('\\', '/');
+        scripts.put(pathKey, script);
+        loadOrder.putIfAbsent(pathKey, loadSequence.getAndIncrement());
         Path path = scriptPath.getParent();
         if (!paths.containsKey(path)) {
             try {
                 WatchKey key = path.register(watchService, StandardWatchEventKinds.ENTRY_MODIFY);
                 paths.put(path, key);
+                keys.put(key, path);
             } catch (IOException | ClosedWatchServiceException ex) {
                 com.gmt2001.Console.err.printStackTrace(ex);
             }
@@ -102,47 +125,92 @@ public class ScriptFileWatcher {
      * Method that runs on a new thread to reload scripts.
      */
     private void run() {
-        boolean isValid = true;
         try {
-            while (isValid) {
-                WatchKey key = this.watchService.poll();
-                
-                if (key != null) {
-                    for (final WatchEvent<?> event: key.pollEvents()) {
-                        if (event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
-                            @SuppressWarnings("unchecked")
-                            WatchEvent<Path> watchEvent = (WatchEvent<Path>)event;
-                            Path fileName = watchEvent.context();
-                            Optional<Entry<Path, WatchKey>> pathEntry = paths.entrySet().stream().filter(e -> e.getValue().equals(key)).findFirst();
-
-                            if (pathEntry.isPresent()) {
-                                try {
-                                    Path basePath = pathEntry.get().getKey();
-                                    String scriptPath = basePath.resolve(fileName).toString().replace('\\', '/');
-                                    if (scripts.containsKey(scriptPath)) {
-                                        Script script = scripts.get(scriptPath);
-                                        if (script.isKilled()) {
-                                            scripts.remove(scriptPath);
-                                        } else {
-                                            File file = script.getFile();
-                                            if (file.lastModified() != script.getLastModified()) {
-                                                script.setLastModified(file.lastModified());
-                                                script.reload();
-                                            }
-                                        }
-                                    }
-                                } catch (Exception ex) {
-                                    com.gmt2001.Console.err.printStackTrace(ex);
-                                }
-                            }
-                        }
+            this.poll();
+        } catch (ClosedWatchServiceException ex) {
+            return;
+        }
+
+        this.reloadDue();
+    }
+
+    /**
+     * Drains the pending events from the watch service, recording the time of the last modification of each watched script
+     */
+    private void poll() {
+        WatchKey key;
+        while ((key = this.watchService.poll()) != null) {
+            Path basePath = keys.get(key);
+
+            for (final WatchEvent<?> event: key.pollEvents()) {
+                if (basePath != null && event.kind() == StandardWatchEventKinds.ENTRY_MODIFY) {
+                    @SuppressWarnings("unchecked")
+                    WatchEvent<Path> watchEvent = (WatchEvent<Path>)event;
+                    String scriptPath = basePath.resolve(watchEvent.context()).toString().replace('\\', '/');
+
+                    if (scripts.containsKey(scriptPath)) {
+                        pending.put(scriptPath, System.nanoTime());
                     }
+                }
+            }
+
+            key.reset();
+        }
+    }
 
-                    key.reset();
+    /**
+     * Reloads, in load order, the modified scripts whose files have not changed again within the debounce window
+     */
+    private void reloadDue() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        List<String> due = new ArrayList<>();
+        pending.forEach((scriptPath, lastEvent) -> {
+            if (now - lastEvent >= TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS)) {
+                due.add(scriptPath);
+            }
+        });
+
+        if (due.isEmpty()) {
+            return;
+        }
+
+        due.sort(Comparator.comparingLong(scriptPath -> loadOrder.getOrDefault(scriptPath, Long.MAX_VALUE)));
+        long start = System.nanoTime();
+        int reloaded = 0;
+
+        for (String scriptPath : due) {
+            pending.remove(scriptPath);
+            Script script = scripts.get(scriptPath);
+
+            if (script == null) {
+                continue;
+            }
+
+            try {
+                if (script.isKilled()) {
+                    scripts.remove(scriptPath);
+                    loadOrder.remove(scriptPath);
                 } else {
-                    isValid = false;
+                    File file = script.getFile();
+                    if (file.lastModified() != script.getLastModified()) {
+                        script.setLastModified(file.lastModified());
+                        script.reload();
+                        reloaded++;
+                    }
                 }
+            } catch (Exception ex) {
+                com.gmt2001.Console.err.printStackTrace(ex);
             }
-        } catch (ClosedWatchServiceException ex) {}
+        }
+
+        if (reloaded > 1) {
+            com.gmt2001.Console.out.println("Reloaded " + reloaded + " modules in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        } else if (reloaded == 1) {
+            com.gmt2001.Console.debug.println("Reloaded 1 module in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        }
     }
 }
@@ -49,6 +49,7 @@ import com.gmt2001.httpclient.HttpClient;
 import com.gmt2001.httpclient.HttpClientResponse;
 import com.gmt2001.httpclient.NotJSONException;
 import com.gmt2001.httpclient.URIUtil;
+import com.gmt2001.ratelimiters.RateLimiter;
 import com.gmt2001.twitch.cache.ViewerCache;
 import com.gmt2001.twitch.eventsub.EventSubSubscription;
 import com.gmt2001.util.concurrent.ExecutorService;
@@ -84,6 +85,10 @@ public class Helix {
      */
     public static final int MUTATOR_CACHE_TIME = 1000;
     private static final int RATELIMIT_DEFMAX = 120;
+    /**
+     * Client-side rolling window limit, spreading requests across the minute instead of draining the bucket reported by Twitch
+     */
+    private static final int RATELIMIT_CLIENTMAX = 800;
     private static final int WARNING_INTERVAL_MINS = 5;
 
     /**
@@ -107,6 +112,7 @@ public class Helix {
     private final ConcurrentMap<String, CallRequest> calls = new ConcurrentHashMap<>();
     private final ReentrantLock lock = new ReentrantLock();
     private Instant nextWarning = Instant.now();
+    private final RateLimiter clientRateLimiter = RateLimiter.optional(Duration.ofMinutes(1), RATELIMIT_CLIENTMAX);
 
     private Helix() {
         ExecutorService.schedule(() -> {
@@ -166,8 +172,13 @@ public class Helix {
 
     /**
      * Method that checks if we hit the limit.
+     * <p>
+     * This intentionally blocks the calling thread until a token is available, the same as the wait for the bucket reported by Twitch
+     * below, since {@link #handleRequest(HttpMethod, String, String, boolean, String)} returns the response synchronously
      */
     private void checkRateLimit() {
+        this.clientRateLimiter.acquire().join();
+
         if (getRemainingRateLimit() <= 0) {
             try {
                 // Sleep until a token is returned to the bucket
@@ -24,6 +24,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
 import tv.phantombot.PhantomBot;
 import tv.phantombot.twitch.api.TwitchValidate;
@@ -36,6 +37,11 @@ public class TwitchSession extends MessageQueue {
     private final ReentrantLock reconnectLock = new ReentrantLock();
     private final ExponentialBackoff backoff = new ExponentialBackoff(1000L, 900000L);
     private boolean isJoined = false;
+    /**
+     * Set while a sender is running, or waiting for the rate limit or a connection, so only one sender runs at a time
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private boolean limitWarned = false;
 
     /**
      * Class constructor.
@@ -56,8 +62,11 @@ public class TwitchSession extends MessageQueue {
         com.gmt2001.Console.debug.println("Started the initial connection failure timer");
     }
 
+    /**
+     * Starts sending queued messages.
+     */
     public void doSubscribe() {
-        this.subscribe(this);
+        this.wake();
     }
 
     /**
@@ -86,30 +95,29 @@ public class TwitchSession extends MessageQueue {
         return PhantomBot.instance().getTMI().rateLimiter().limit() - PhantomBot.instance().getTMI().rateLimiter().currentTokens();
     }
 
-    private void send(String message, boolean isretry) {
+    /**
+     * Sends a message.
+     *
+     * @param message
+     * @return {@code false} if the message was requeued to retry once connected
+     */
+    private boolean send(Message message) {
         try {
             if (PhantomBot.instance().getTMI().connected() && this.isJoined) {
-                PhantomBot.instance().getTMI().sendPrivMessage(this.getChannelName(), message);
+                PhantomBot.instance().getTMI().sendPrivMessage(this.getChannelName(), message.getMessage());
                 this.backoff.ResetIn(Duration.ofSeconds(30));
-            } else {
-                if (!isretry) {
-                    try {
-                        com.gmt2001.Console.warn.println("Tried to send message before connecting to Twitch, trying again in 5 seconds...");
-                        Thread.sleep(5000);
-                        this.send(message, true);
-                    } catch (InterruptedException ex2) {
-                    }
-                }
+                com.gmt2001.Console.out.println("[CHAT] " + message.getMessage());
+                return true;
+            } else if (message.markRetried()) {
+                com.gmt2001.Console.warn.println("Tried to send message before connecting to Twitch, trying again in 5 seconds...");
+                this.requeue(message);
+                return false;
             }
         } catch (NotYetConnectedException ex) {
-            if (!isretry) {
-                try {
-                    com.gmt2001.Console.warn.println("Tried to send message before connecting to Twitch, trying again in 5 seconds...");
-                    Thread.sleep(5000);
-                    this.send(message, true);
-                    return;
-                } catch (InterruptedException ex2) {
-                }
+            if (message.markRetried()) {
+                com.gmt2001.Console.warn.println("Tried to send message before connecting to Twitch, trying again in 5 seconds...");
+                this.requeue(message);
+                return false;
             }
             com.gmt2001.Console.err.println("Failed to send message to Twitch [NotYetConnectedException]: " + ex.getMessage());
             com.gmt2001.Console.err.printStackTrace(ex);
@@ -117,6 +125,8 @@ public class TwitchSession extends MessageQueue {
             com.gmt2001.Console.err.println("Failed to send message to Twitch [" + ex.getClass().getSimpleName() + "]: " + ex.getMessage());
             com.gmt2001.Console.err.printStackTrace(ex);
         }
+
+        return true;
     }
 
     /**
@@ -125,7 +135,7 @@ public class TwitchSession extends MessageQueue {
      * @param message
      */
     public void send(String message) {
-        this.send(message, false);
+        this.send(new Message(message));
     }
 
     /**
@@ -177,40 +187,75 @@ public class TwitchSession extends MessageQueue {
     }
 
     @Override
-    public void onNext(Message message) {
-        if (this.isAllowedToSend) {
-            if (!PhantomBot.instance().getTMI().rateLimiter().isTokenAvailable()) {
-                long time = Instant.now().until(PhantomBot.instance().getTMI().rateLimiter().nextReset(), ChronoUnit.MILLIS);
-                com.gmt2001.Console.warn.println("Message limit of (" + PhantomBot.instance().getTMI().rateLimiter().limit() + ") has been reached. Messages will be sent again in " + time + "ms");
-            }
-
-            PhantomBot.instance().getTMI().rateLimiter().waitAndRun(() -> {
-                this.send(message.getMessage());
-                com.gmt2001.Console.out.println("[CHAT] " + message.getMessage());
-            });
+    protected void wake() {
+        if (!this.killed && this.draining.compareAndSet(false, true)) {
+            ExecutorService.execute(this::drain);
         }
+    }
 
-        if (Instant.now().isAfter(this.nextReminder)) {
-            if ((!this.isAllowedToSend || TwitchValidate.instance().hasOAuthInconsistencies(PhantomBot.instance().getChannelName()))) {
+    /**
+     * Resumes sending after a delay, keeping other senders from starting in the meantime.
+     *
+     * @param delayMS
+     */
+    private void resumeIn(long delayMS) {
+        ExecutorService.schedule(() -> {
+            this.draining.set(false);
+            this.wake();
+        }, Math.max(1L, delayMS), TimeUnit.MILLISECONDS);
+    }
 
-                TwitchValidate.instance().checkOAuthInconsistencies(PhantomBot.instance().getChannelName());
+    /**
+     * Sends queued messages, highest priority first, as rate limit tokens are available.
+     */
+    private void drain() {
+        try {
+            while (!this.killed && this.hasPending()) {
+                if (this.isAllowedToSend && !PhantomBot.instance().getTMI().rateLimiter().isTokenAvailable()) {
+                    long time = Instant.now().until(PhantomBot.instance().getTMI().rateLimiter().nextReset(), ChronoUnit.MILLIS);
+                    if (!this.limitWarned) {
+                        this.limitWarned = true;
+                        com.gmt2001.Console.warn.println("Message limit of (" + PhantomBot.instance().getTMI().rateLimiter().limit() + ") has been reached. Messages will be sent again in " + time + "ms");
+                    }
+                    this.resumeIn(time);
+                    return;
+                }
+
+                this.limitWarned = false;
+                Message message = this.next(isAction -> PhantomBot.instance().getTMI().privMsgMaxLength(this.getChannelName(), isAction == 1, null));
 
-                if (!this.isAllowedToSend) {
-                    com.gmt2001.Console.warn.println("WARNING: May not be a moderator");
+                if (message == null) {
+                    break;
                 }
-            }
 
-            this.nextReminder = Instant.now().plusMillis(REMINDER_INTERVAL);
+                if (this.isAllowedToSend && !this.send(message)) {
+                    this.resumeIn(5000L);
+                    return;
+                }
+
+                if (Instant.now().isAfter(this.nextReminder)) {
+                    if ((!this.isAllowedToSend || TwitchValidate.instance().hasOAuthInconsistencies(PhantomBot.instance().getChannelName()))) {
+
+                        TwitchValidate.instance().checkOAuthInconsistencies(PhantomBot.instance().getChannelName());
+
+                        if (!this.isAllowedToSend) {
+                            com.gmt2001.Console.warn.println("WARNING: May not be a moderator");
+                        }
+                    }
+
+                    this.nextReminder = Instant.now().plusMillis(REMINDER_INTERVAL);
+                }
+            }
+        } catch (Exception ex) {
+            com.gmt2001.Console.err.printStackTrace(ex);
         }
 
-        PhantomBot.instance().getTMI().rateLimiter().waitAndRun(() -> {
-            this.subscription.request(1);
-        });
-    }
+        this.draining.set(false);
 
-    @Override
-    public void onComplete() {
-        this.close();
+        // A message may have been queued after the last check, while this sender still held the flag
+        if (this.hasPending()) {
+            this.wake();
+        }
     }
 
     public void quitIRC() {
@@ -220,14 +265,10 @@ public class TwitchSession extends MessageQueue {
     /**
      * Method that stops everything for TwitchWSIRC, there's no going back after this.
      */
-    @Override
-    @SuppressWarnings("ConvertToTryWithResources")
     public void close() {
         // Kill the message queue.
         this.kill();
 
         this.quitIRC();
-
-        super.close();
     }
 }
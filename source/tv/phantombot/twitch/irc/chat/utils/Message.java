@@ -18,7 +18,28 @@ package tv.phantombot.twitch.irc.chat.utils;
 
 public class Message {
 
+    /**
+     * The priority classes of outbound messages, highest first
+     */
+    public enum Priority {
+        /**
+         * Moderation actions and system messages
+         */
+        MODERATION,
+        /**
+         * Replies to commands
+         */
+        REPLY,
+        /**
+         * Output of timers, such as notices and game announcements; may expire if it waits too long
+         */
+        BACKGROUND
+    }
+
     private final String message;
+    private final Priority priority;
+    private final long queuedAt = System.nanoTime();
+    private boolean retried = false;
 
     /**
      * Class constructor.
@@ -26,7 +47,18 @@ public class Message {
      * @param message
      */
     public Message(String message) {
+        this(message, Priority.REPLY);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param message
+     * @param priority
+     */
+    public Message(String message, Priority priority) {
         this.message = message;
+        this.priority = priority;
     }
 
     /**
@@ -37,4 +69,33 @@ public class Message {
     public String getMessage() {
         return this.message;
     }
+
+    /**
+     * Method that returns the priority class of the message.
+     *
+     * @return priority
+     */
+    public Priority getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * Method that returns when the message was queued.
+     *
+     * @return The {@link System#nanoTime()} at which the message was queued
+     */
+    public long getQueuedAt() {
+        return this.queuedAt;
+    }
+
+    /**
+     * Method that marks the message as having been requeued after a failed send.
+     *
+     * @return {@code true} if the message had not been retried before
+     */
+    public boolean markRetried() {
+        boolean first = !this.retried;
+        this.retried = true;
+        return first;
+    }
 }
@@ -17,19 +17,71 @@
 package tv.phantombot.twitch.irc.chat.utils;
 
 import java.time.Instant;
-import java.util.concurrent.Flow;
-import java.util.concurrent.Flow.Processor;
-import java.util.concurrent.Flow.Subscription;
-import java.util.concurrent.SubmissionPublisher;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
 
-public abstract class MessageQueue extends SubmissionPublisher<Message> implements Processor<Message, Message> {
+import com.gmt2001.JSTimers;
 
+import tv.phantombot.CaselessProperties;
+import tv.phantombot.twitch.irc.chat.utils.Message.Priority;
+
+/**
+ * The outbound chat queue
+ * <p>
+ * Messages are held in one queue per {@link Priority}, and the sender always takes the oldest message of the highest priority which
+ * has one, so moderation actions and command replies are not delayed behind notices when the rate limit is exhausted. Messages sent
+ * from a script timer are {@link Priority#BACKGROUND}, and expire if they wait longer than {@code chatbackgroundmaxage}
+ * <p>
+ * If {@code chatpackmessages} is enabled, consecutive plain chat messages of the same priority are joined into one message, up to
+ * the maximum length of a PRIVMSG, so a burst costs fewer rate limit tokens
+ * <p>
+ * The reply and background queues hold at most {@code chatqueuemax} messages each. When a full queue receives a message, its oldest
+ * message is dropped, so a flood of replies can not grow the queue without limit. Moderation messages are never dropped
+ */
+public abstract class MessageQueue {
+
+    /**
+     * The text placed between packed messages
+     */
+    private static final String PACK_SEPARATOR = " | ";
     protected final String channelName;
     protected boolean isAllowedToSend = false;
     protected Instant nextReminder = Instant.now();
     protected static final long REMINDER_INTERVAL = 300000L;
-    protected Subscription subscription;
+    private final Map<Priority, ConcurrentLinkedDeque<Message>> queues = new EnumMap<>(Priority.class);
+    private final Map<Priority, PriorityStats> stats = new EnumMap<>(Priority.class);
+    protected volatile boolean killed = false;
+
+    /**
+     * Queue statistics of a priority class
+     *
+     * @param priority The priority class
+     * @param depth The number of messages waiting to be sent
+     * @param sent The number of messages sent, counting each packed message separately
+     * @param packed The number of messages which were packed into a previous message
+     * @param expired The number of messages which expired before being sent
+     * @param dropped The number of messages which were dropped because the queue was full
+     * @param averageWaitMillis The average time between a message being queued and sent, in milliseconds
+     * @param maxWaitMillis The longest time between a message being queued and sent, in milliseconds
+     */
+    public record QueueStats(Priority priority, int depth, long sent, long packed, long expired, long dropped, long averageWaitMillis, long maxWaitMillis) {
+    }
+
+    private static final class PriorityStats {
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder packed = new LongAdder();
+        private final LongAdder expired = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final LongAdder wait = new LongAdder();
+        private final AtomicLong maxWait = new AtomicLong();
+    }
 
     /**
      * Class constructor.
@@ -37,8 +89,12 @@ public abstract class MessageQueue extends SubmissionPublisher<Message> implemen
      * @param channelName
      */
     protected MessageQueue(String channelName) {
-        super();
         this.channelName = channelName;
+
+        for (Priority priority : Priority.values()) {
+            this.queues.put(priority, new ConcurrentLinkedDeque<>());
+            this.stats.put(priority, new PriorityStats());
+        }
     }
 
     /**
@@ -60,52 +116,219 @@ public abstract class MessageQueue extends SubmissionPublisher<Message> implemen
     }
 
     /**
-     * Attempts to enqueue a message, timing out after 5 seconds.
+     * Enqueues a message as a command reply, or as a background message if called from a script timer.
      *
      * @param message
      */
     public void say(String message) {
-        message = message.replace('\r', ' ');
-        String[] spl = message.split("\n");
-        for (String str : spl) {
-            this.offer(new Message(str), 5, TimeUnit.SECONDS, (s, m) -> {
-                com.gmt2001.Console.warn.println("Failed to submit message: " + m.getMessage());
-                return false;
-            });
-        }
+        this.say(message, JSTimers.isTimerCallback() ? Priority.BACKGROUND : Priority.REPLY);
     }
 
     /**
-     * Attempts to enqueue a message until success.
+     * Enqueues a message with a moderation priority, ahead of replies and background messages.
      *
      * @param message
      */
     public void sayNow(String message) {
+        this.say(message, Priority.MODERATION);
+    }
+
+    /**
+     * Enqueues a message with the specified priority.
+     *
+     * @param message
+     * @param priority
+     */
+    public void say(String message, Priority priority) {
+        if (this.killed) {
+            return;
+        }
+
         message = message.replace('\r', ' ');
         String[] spl = message.split("\n");
+        ConcurrentLinkedDeque<Message> queue = this.queues.get(priority);
+        PriorityStats pstats = this.stats.get(priority);
+        /**
+         * @botproperty chatqueuemax - The maximum number of chat replies, and separately of timer messages, waiting for the rate limit. When full, the oldest message is dropped. Default `256`
+         * @botpropertycatsort chatqueuemax 880 20 Twitch
+         */
+        int max = priority == Priority.MODERATION ? Integer.MAX_VALUE : Math.max(1, CaselessProperties.instance().getPropertyAsInt("chatqueuemax", 256));
         for (String str : spl) {
-            this.submit(new Message(str));
+            queue.add(new Message(str, priority));
+
+            if (pstats.depth.incrementAndGet() > max) {
+                Message dropped = queue.poll();
+
+                if (dropped != null) {
+                    pstats.depth.decrementAndGet();
+                    pstats.dropped.increment();
+                    com.gmt2001.Console.warn.println("Chat queue full, dropped message: " + dropped.getMessage());
+                }
+            }
         }
+
+        this.wake();
     }
 
     /**
-     * Method that kills this instance.
+     * Returns a message to the head of its queue, after a send which can be retried has failed.
+     *
+     * @param message
      */
-    public void kill() {
-        if (this.subscription != null) {
-            this.subscription.cancel();
+    protected void requeue(Message message) {
+        this.queues.get(message.getPriority()).addFirst(message);
+        this.stats.get(message.getPriority()).depth.incrementAndGet();
+    }
+
+    /**
+     * Indicates if any message is waiting to be sent.
+     *
+     * @return
+     */
+    protected boolean hasPending() {
+        for (ConcurrentLinkedDeque<Message> queue : this.queues.values()) {
+            if (!queue.isEmpty()) {
+                return true;
+            }
         }
+
+        return false;
     }
 
-    @Override
-    public void onSubscribe(Flow.Subscription subscription) {
-        this.subscription = subscription;
-        this.subscription.request(1);
+    /**
+     * Removes the next message to send, from the highest priority queue which is not empty, and records its wait time.
+     * <p>
+     * Expired background messages are discarded. If packing is enabled, following messages of the same priority are joined to it
+     *
+     * @param maxLength A function returning the maximum length of the message content, given if it is an action
+     * @return The message; {@code null} if there are no messages
+     */
+    protected Message next(IntUnaryOperator maxLength) {
+        for (Priority priority : Priority.values()) {
+            ConcurrentLinkedDeque<Message> queue = this.queues.get(priority);
+            PriorityStats pstats = this.stats.get(priority);
+            Message message;
+
+            while ((message = queue.poll()) != null) {
+                pstats.depth.decrementAndGet();
+
+                if (priority == Priority.BACKGROUND && this.isExpired(message)) {
+                    pstats.expired.increment();
+                    com.gmt2001.Console.debug.println("Dropped expired message: " + message.getMessage());
+                    continue;
+                }
+
+                this.recordSent(pstats, message);
+                return this.pack(queue, pstats, message, maxLength);
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isExpired(Message message) {
+        /**
+         * @botproperty chatbackgroundmaxage - The number of seconds that a chat message sent by a timer, such as a notice, may wait for the rate limit before it is discarded. `0` to never discard. Default `60`
+         * @botpropertycatsort chatbackgroundmaxage 860 20 Twitch
+         */
+        long maxAge = CaselessProperties.instance().getPropertyAsLong("chatbackgroundmaxage", 60L);
+        return maxAge > 0L && System.nanoTime() - message.getQueuedAt() > TimeUnit.SECONDS.toNanos(maxAge);
+    }
+
+    private void recordSent(PriorityStats pstats, Message message) {
+        long wait = System.nanoTime() - message.getQueuedAt();
+        pstats.sent.increment();
+        pstats.wait.add(wait);
+        pstats.maxWait.accumulateAndGet(wait, Math::max);
+    }
+
+    /**
+     * Joins the following messages of a queue to a message while they fit
+     */
+    private Message pack(ConcurrentLinkedDeque<Message> queue, PriorityStats pstats, Message first, IntUnaryOperator maxLength) {
+        /**
+         * @botproperty chatpackmessages - If `true`, consecutive short chat messages waiting for the rate limit are joined into one message. Default `false`
+         * @botpropertycatsort chatpackmessages 870 20 Twitch
+         */
+        if (!CaselessProperties.instance().getPropertyAsBoolean("chatpackmessages", false) || !isPackable(first.getMessage())) {
+            return first;
+        }
+
+        boolean isAction = isAction(first.getMessage());
+        String text = isAction ? first.getMessage().substring(4) : first.getMessage();
+        int max = maxLength.applyAsInt(isAction ? 1 : 0);
+        StringBuilder sb = null;
+        Message next;
+
+        while ((next = queue.peek()) != null && isPackable(next.getMessage()) && isAction(next.getMessage()) == isAction) {
+            String nextText = isAction ? next.getMessage().substring(4) : next.getMessage();
+            int length = (sb == null ? text.length() : sb.length()) + PACK_SEPARATOR.length() + nextText.length();
+
+            if (length > max || !queue.remove(next)) {
+                break;
+            }
+
+            pstats.depth.decrementAndGet();
+
+            if (sb == null) {
+                sb = new StringBuilder(max).append(text);
+            }
+
+            sb.append(PACK_SEPARATOR).append(nextText);
+            this.recordSent(pstats, next);
+            pstats.packed.increment();
+        }
+
+        if (sb == null) {
+            return first;
+        }
+
+        return new Message((isAction ? "/me " : "") + sb.toString(), first.getPriority());
+    }
+
+    private static boolean isAction(String message) {
+        return message.regionMatches(true, 0, "/me ", 0, 4);
+    }
+
+    /**
+     * Slash and dot commands other than {@code /me} are redirected to the API, so they can not be packed
+     */
+    private static boolean isPackable(String message) {
+        return isAction(message) || (!message.startsWith("/") && !message.startsWith("."));
+    }
+
+    /**
+     * Returns the queue statistics of each priority class, highest first.
+     *
+     * @return
+     */
+    public QueueStats[] stats() {
+        QueueStats[] result = new QueueStats[Priority.values().length];
+
+        for (Priority priority : Priority.values()) {
+            PriorityStats pstats = this.stats.get(priority);
+            long sent = pstats.sent.sum();
+            result[priority.ordinal()] = new QueueStats(priority, this.queues.get(priority).size(), sent, pstats.packed.sum(), pstats.expired.sum(),
+                pstats.dropped.sum(), sent == 0L ? 0L : TimeUnit.NANOSECONDS.toMillis(pstats.wait.sum() / sent), TimeUnit.NANOSECONDS.toMillis(pstats.maxWait.get()));
+        }
+
+        return result;
     }
 
-    @Override
-    public void onError(Throwable thrwbl) {
-        com.gmt2001.Console.err.printStackTrace(thrwbl);
-        com.gmt2001.Console.err.println("MessageQueue threw an exception and is being disconnected...");
+    /**
+     * Method that kills this instance.
+     */
+    public void kill() {
+        this.killed = true;
+
+        for (Priority priority : Priority.values()) {
+            this.queues.get(priority).clear();
+            this.stats.get(priority).depth.set(0);
+        }
     }
+
+    /**
+     * Called when a message is queued, to start sending if the sender is idle.
+     */
+    protected abstract void wake();
 }
@@ -16,6 +16,7 @@
  */
 package tv.phantombot.ytplayer;
 
+import com.gmt2001.datastore.KeyValue;
 import com.gmt2001.httpwsserver.WebSocketFrameHandler;
 import com.gmt2001.httpwsserver.WsFrameHandler;
 import com.gmt2001.httpwsserver.auth.WsAuthenticationHandler;
@@ -339,10 +340,8 @@ public class WsYTHandler implements WsFrameHandler {
 
         jsonObject.object().key("query_id").value(id);
 
-        String[] dbKeys = PhantomBot.instance().getDataStore().GetKeyList(table, "");
-        for (String dbKey : dbKeys) {
-            String value = PhantomBot.instance().getDataStore().GetString(table, "", dbKey);
-            jsonObject.key(dbKey).value(value);
+        for (KeyValue kv : PhantomBot.instance().getDataStore().GetKeyValueList(table, "")) {
+            jsonObject.key(kv.getKey()).value(kv.getValue());
         }
 
         jsonObject.endObject();
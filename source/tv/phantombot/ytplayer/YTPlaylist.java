@@ -0,0 +1,387 @@
+/*
+ * Copyright (C) 2016-2026 phantombot.github.io/PhantomBot
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package tv.phantombot.ytplayer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.gmt2001.datastore.DataStore;
+import com.gmt2001.datastore.KeyValue;
+
+import tv.phantombot.PhantomBot;
+
+/**
+ * A YouTube player playlist
+ * <p>
+ * The songs are held in insertion order, indexed by video id, and persisted in the {@code ytPlaylist_<name>} table. Each song keeps
+ * the numeric key it was stored under, so adding a song is a single write of the next key and removing a song is a single delete of
+ * its key, without renumbering. The table is read once, in bulk, when the playlist is first used
+ * <p>
+ * The play order is a separate list, which is shuffled when it is reset if randomization is enabled. Advancing through the play order
+ * is constant time. Removed songs are not searched for in the play order; they are skipped when reached instead
+ *
+ * @author gmt2001
+ */
+public final class YTPlaylist {
+    /**
+     * The prefix of the playlist tables
+     */
+    public static final String TABLE_PREFIX = "ytPlaylist_";
+    /**
+     * The table which lists the playlists
+     */
+    public static final String REGISTRY = "yt_playlists_registry";
+    private static final String LASTKEY = "lastkey";
+    private static final ConcurrentMap<String, YTPlaylist> PLAYLISTS = new ConcurrentHashMap<>();
+    private final String name;
+    private final String table;
+    /**
+     * Video id to database key, in insertion order
+     */
+    private final LinkedHashMap<String, Long> songs = new LinkedHashMap<>();
+    /**
+     * Database key to video id
+     */
+    private final Map<Long, String> keys = new HashMap<>();
+    /**
+     * Database keys, in play order
+     */
+    private final List<Long> playOrder = new ArrayList<>();
+    private int cursor = 0;
+    private long lastKey = -1L;
+
+    /**
+     * Returns a playlist, loading it from the database if it is not already loaded
+     * <p>
+     * The playlist is created and registered if it does not exist
+     *
+     * @param name The playlist name
+     * @return The playlist
+     */
+    public static YTPlaylist get(String name) {
+        return PLAYLISTS.computeIfAbsent(name, YTPlaylist::new);
+    }
+
+    /**
+     * Indicates if a playlist is registered
+     *
+     * @param name The playlist name
+     * @return {@code true} if the playlist exists
+     */
+    public static boolean exists(String name) {
+        return PLAYLISTS.containsKey(name) || datastore().exists(REGISTRY, TABLE_PREFIX + name);
+    }
+
+    /**
+     * Deletes a playlist and its table
+     *
+     * @param name The playlist name
+     * @return {@code true} if the playlist existed
+     */
+    public static boolean delete(String name) {
+        boolean existed = exists(name);
+        PLAYLISTS.remove(name);
+        datastore().del(REGISTRY, TABLE_PREFIX + name);
+        datastore().RemoveFile(TABLE_PREFIX + name);
+        return existed;
+    }
+
+    /**
+     * Returns the names of all registered playlists
+     *
+     * @return The playlist names, without the table prefix
+     */
+    public static List<String> names() {
+        List<String> names = new ArrayList<>();
+
+        for (String key : datastore().GetKeyList(REGISTRY, "")) {
+            if (key.startsWith(TABLE_PREFIX)) {
+                names.add(key.substring(TABLE_PREFIX.length()));
+            }
+        }
+
+        return names;
+    }
+
+    private static DataStore datastore() {
+        return PhantomBot.instance().getDataStore();
+    }
+
+    /**
+     * Constructor
+     *
+     * @param name The playlist name
+     */
+    private YTPlaylist(String name) {
+        this.name = name;
+        this.table = TABLE_PREFIX + name;
+
+        if (!datastore().exists(REGISTRY, this.table) || !datastore().FileExists(this.table)) {
+            datastore().SetBoolean(REGISTRY, "", this.table, true);
+            datastore().AddFile(this.table);
+        }
+
+        this.load();
+    }
+
+    /**
+     * Reads all songs from the table
+     */
+    private void load() {
+        List<Map.Entry<Long, String>> rows = new ArrayList<>();
+
+        for (KeyValue kv : datastore().GetKeyValueList(this.table, "")) {
+            if (kv.getKey().equals(LASTKEY)) {
+                try {
+                    this.lastKey = Math.max(this.lastKey, Long.parseLong(kv.getValue()));
+                } catch (NumberFormatException ex) {
+                }
+                continue;
+            }
+
+            try {
+                rows.add(Map.entry(Long.valueOf(kv.getKey()), kv.getValue()));
+            } catch (NumberFormatException ex) {
+                com.gmt2001.Console.debug.println("Ignoring non-numeric key " + kv.getKey() + " in " + this.table);
+            }
+        }
+
+        rows.sort(Map.Entry.comparingByKey());
+
+        for (Map.Entry<Long, String> row : rows) {
+            this.lastKey = Math.max(this.lastKey, row.getKey());
+            if (row.getValue() == null || row.getValue().isBlank() || this.songs.putIfAbsent(row.getValue(), row.getKey()) != null) {
+                // Duplicate or blank row left behind by older versions
+                datastore().RemoveKey(this.table, "", Long.toString(row.getKey()));
+            } else {
+                this.keys.put(row.getKey(), row.getValue());
+            }
+        }
+    }
+
+    /**
+     * The playlist name
+     *
+     * @return The name
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * The table in which the playlist is stored
+     *
+     * @return The table name
+     */
+    public String table() {
+        return this.table;
+    }
+
+    /**
+     * The number of songs in the playlist
+     *
+     * @return The number of songs
+     */
+    public synchronized int size() {
+        return this.songs.size();
+    }
+
+    /**
+     * Indicates if a video is in the playlist
+     *
+     * @param videoId The video id
+     * @return {@code true} if the video is in the playlist
+     */
+    public synchronized boolean contains(String videoId) {
+        return this.songs.containsKey(videoId);
+    }
+
+    /**
+     * Returns all video ids, in insertion order
+     *
+     * @return The video ids
+     */
+    public synchronized List<String> songs() {
+        return new ArrayList<>(this.songs.keySet());
+    }
+
+    /**
+     * Adds a video to the end of the playlist
+     * <p>
+     * If the play order has been reset, the video is also placed at a random remaining position of the play order when shuffled, or at
+     * the end when not shuffled
+     *
+     * @param videoId The video id
+     * @param shuffled {@code true} if the play order is shuffled
+     * @return The database key of the new song; {@code -2} if the video is already in the playlist
+     */
+    public synchronized long add(String videoId, boolean shuffled) {
+        if (this.songs.containsKey(videoId)) {
+            return -2L;
+        }
+
+        long key = ++this.lastKey;
+        this.songs.put(videoId, key);
+        this.keys.put(key, videoId);
+        datastore().SetBatchString(this.table, "", new String[]{Long.toString(key), LASTKEY}, new String[]{videoId, Long.toString(key)});
+        this.enqueue(key, shuffled);
+
+        return key;
+    }
+
+    /**
+     * Adds videos to the end of the playlist, in one database write
+     * <p>
+     * Videos which are already in the playlist are skipped
+     *
+     * @param videoIds The video ids
+     * @param shuffled {@code true} if the play order is shuffled
+     * @return The number of videos added
+     */
+    public synchronized int addAll(Collection<String> videoIds, boolean shuffled) {
+        List<String> keys = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+
+        for (String videoId : videoIds) {
+            if (videoId == null || videoId.isBlank() || this.songs.containsKey(videoId)) {
+                continue;
+            }
+
+            long key = ++this.lastKey;
+            this.songs.put(videoId, key);
+            this.keys.put(key, videoId);
+            keys.add(Long.toString(key));
+            values.add(videoId);
+            this.enqueue(key, shuffled);
+        }
+
+        int added = keys.size();
+
+        if (added > 0) {
+            keys.add(LASTKEY);
+            values.add(Long.toString(this.lastKey));
+            datastore().SetBatchString(this.table, "", keys.toArray(String[]::new), values.toArray(String[]::new));
+        }
+
+        return added;
+    }
+
+    /**
+     * Inserts a new video into the remaining play order
+     *
+     * @param key The database key of the song
+     * @param shuffled {@code true} to insert at a random remaining position
+     */
+    private void enqueue(long key, boolean shuffled) {
+        this.playOrder.add(key);
+
+        if (shuffled && this.playOrder.size() - this.cursor > 1) {
+            Collections.swap(this.playOrder, this.playOrder.size() - 1, ThreadLocalRandom.current().nextInt(this.cursor, this.playOrder.size()));
+        }
+    }
+
+    /**
+     * Removes a video from the playlist
+     *
+     * @param videoId The video id
+     * @return {@code true} if the video was in the playlist
+     */
+    public synchronized boolean remove(String videoId) {
+        Long key = this.songs.remove(videoId);
+
+        if (key == null) {
+            return false;
+        }
+
+        this.keys.remove(key);
+        datastore().RemoveKey(this.table, "", Long.toString(key));
+        return true;
+    }
+
+    /**
+     * Rebuilds the play order from all songs
+     *
+     * @param shuffle {@code true} to shuffle the play order
+     * @return The number of songs
+     */
+    public synchronized int reset(boolean shuffle) {
+        this.playOrder.clear();
+        this.playOrder.addAll(this.songs.values());
+        this.cursor = 0;
+
+        if (shuffle) {
+            Collections.shuffle(this.playOrder, ThreadLocalRandom.current());
+        }
+
+        return this.songs.size();
+    }
+
+    /**
+     * Returns the next video id in the play order
+     *
+     * @return The video id; {@code null} if the end of the play order has been reached
+     */
+    public synchronized String next() {
+        while (this.cursor < this.playOrder.size()) {
+            String videoId = this.keys.get(this.playOrder.get(this.cursor++));
+            if (videoId != null) {
+                return videoId;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Indicates if the end of the play order has been reached
+     *
+     * @return {@code true} if there are no more songs to play before the play order must be reset
+     */
+    public synchronized boolean isExhausted() {
+        while (this.cursor < this.playOrder.size() && !this.keys.containsKey(this.playOrder.get(this.cursor))) {
+            this.cursor++;
+        }
+
+        return this.cursor >= this.playOrder.size();
+    }
+
+    /**
+     * Returns all video ids in the play order, including those already played
+     *
+     * @return The video ids
+     */
+    public synchronized List<String> playOrder() {
+        List<String> order = new ArrayList<>(this.playOrder.size());
+
+        for (Long key : this.playOrder) {
+            String videoId = this.keys.get(key);
+            if (videoId != null) {
+                order.add(videoId);
+            }
+        }
+
+        return order;
+    }
+}